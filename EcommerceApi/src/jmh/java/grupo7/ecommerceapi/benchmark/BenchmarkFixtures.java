@@ -0,0 +1,84 @@
+package grupo7.ecommerceapi.benchmark;
+
+import grupo7.ecommerceapi.entity.BillingAddress;
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Order;
+import grupo7.ecommerceapi.entity.OrderItem;
+import grupo7.ecommerceapi.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos de prueba compartidos por los benchmarks.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static Category category() {
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Electrónica");
+        category.setDescription("Productos electrónicos");
+        category.setIsActive(true);
+        return category;
+    }
+
+    static Product product(long id, boolean discounted) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Producto " + id);
+        product.setDescription("Descripción del producto " + id);
+        product.setPrice(new BigDecimal("1499.99"));
+        product.setDiscount(discounted ? new BigDecimal("1199.50") : null);
+        product.setImage("/api/files/producto-" + id + ".jpg");
+        product.setStock(100);
+        product.setIsActive(true);
+        product.setCategory(category());
+        product.setCreatedAt(LocalDateTime.now());
+        product.setUpdatedAt(LocalDateTime.now());
+        return product;
+    }
+
+    static Order order(int itemCount) {
+        Order order = new Order();
+        order.setId(1L);
+        order.setOrderNumber("ORD-BENCH-1");
+        order.setStatus(Order.OrderStatus.PENDING);
+        order.setCreatedAt(LocalDateTime.now());
+        order.setUpdatedAt(LocalDateTime.now());
+
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            Product product = product(i + 1, i % 2 == 0);
+            OrderItem item = new OrderItem();
+            item.setId((long) i + 1);
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(2);
+            item.setUnitPrice(product.getActualPrice());
+            item.setTotalPrice(product.getActualPrice().multiply(BigDecimal.valueOf(2)));
+            total = total.add(item.getTotalPrice());
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        order.setTotalAmount(total);
+
+        BillingAddress billing = new BillingAddress();
+        billing.setId(1L);
+        billing.setFirstName("Juan");
+        billing.setLastName("Pérez");
+        billing.setDni("30123456");
+        billing.setAddress("Av. Siempre Viva 742");
+        billing.setCity("Buenos Aires");
+        billing.setPostalCode("1000");
+        order.setBillingAddresses(List.of(billing));
+        order.setShippingAddresses(List.of());
+        return order;
+    }
+}
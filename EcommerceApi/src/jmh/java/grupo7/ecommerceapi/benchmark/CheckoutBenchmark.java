@@ -0,0 +1,136 @@
+package grupo7.ecommerceapi.benchmark;
+
+import grupo7.ecommerceapi.EcommerceApiApplication;
+import grupo7.ecommerceapi.dto.OrderResponseDTO;
+import grupo7.ecommerceapi.dto.order.CreateOrderRequest;
+import grupo7.ecommerceapi.dto.order.OrderAddressDTO;
+import grupo7.ecommerceapi.dto.order.OrderItemRequestDTO;
+import grupo7.ecommerceapi.dto.order.OrderPaymentDTO;
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.entity.User;
+import grupo7.ecommerceapi.repository.CategoryRepository;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import grupo7.ecommerceapi.repository.UserRepository;
+import grupo7.ecommerceapi.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code OrderService.createOrder} completo contra una base H2 embebida (perfil {@code jmh}).
+ * El parámetro {@code lines} muestra cómo escala el checkout con la cantidad de líneas del carrito.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"1", "10", "50"})
+    public int lines;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private User user;
+    private CreateOrderRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(EcommerceApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("jmh")
+                .run();
+        orderService = context.getBean(OrderService.class);
+
+        User buyer = new User();
+        buyer.setName("Bench");
+        buyer.setSurname("Mark");
+        buyer.setEmail("bench@example.com");
+        buyer.setPassword("not-used");
+        user = context.getBean(UserRepository.class).save(buyer);
+
+        Category category = new Category();
+        category.setName("Benchmark");
+        category.setDescription("Categoría del benchmark");
+        category = context.getBean(CategoryRepository.class).save(category);
+
+        List<Product> products = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            Product product = new Product();
+            product.setName("Producto " + i);
+            product.setDescription("Producto de benchmark " + i);
+            product.setPrice(BigDecimal.valueOf(100 + i));
+            product.setImage("/api/files/bench-" + i + ".jpg");
+            product.setStock(STOCK);
+            product.setCategory(category);
+            products.add(product);
+        }
+        products = context.getBean(ProductRepository.class).saveAll(products);
+
+        request = new CreateOrderRequest();
+        List<OrderItemRequestDTO> items = new ArrayList<>(lines);
+        for (Product product : products) {
+            OrderItemRequestDTO item = new OrderItemRequestDTO();
+            item.setProductId(product.getId());
+            item.setQuantity(1);
+            items.add(item);
+        }
+        request.setItems(items);
+        request.setBilling(address());
+        request.setShipping(address());
+        request.setPayment(payment());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderResponseDTO createOrder() {
+        return orderService.createOrder(user.getId(), request);
+    }
+
+    private static OrderAddressDTO address() {
+        OrderAddressDTO address = new OrderAddressDTO();
+        address.setFirstName("Juan");
+        address.setLastName("Pérez");
+        address.setDni("30123456");
+        address.setAddress("Av. Siempre Viva 742");
+        address.setCity("Buenos Aires");
+        address.setPostalCode("1000");
+        return address;
+    }
+
+    private static OrderPaymentDTO payment() {
+        OrderPaymentDTO payment = new OrderPaymentDTO();
+        payment.setCardNumber("4111111111111111");
+        payment.setExpiryDate("12/30");
+        payment.setCvv("123");
+        payment.setCardholderName("Juan Pérez");
+        return payment;
+    }
+}
@@ -0,0 +1,105 @@
+package grupo7.ecommerceapi.benchmark;
+
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.search.ProductFacetIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Filtro combinado (categoría + descuento + stock + precio) con conteos por faceta: intersección de
+ * bitmaps de ProductFacetIndex contra recorrer la lista de productos una vez por faceta.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FacetFilterBenchmark {
+
+    private static final int CATEGORIES = 20;
+    private static final BigDecimal MIN_PRICE = new BigDecimal("40");
+    private static final BigDecimal MAX_PRICE = new BigDecimal("180");
+
+    @Param({"10000", "100000"})
+    public int productCount;
+
+    private List<Product> products;
+    private ProductFacetIndex index;
+    private ProductFacetIndex.Filter filter;
+    private Pageable pageable;
+
+    @Setup
+    public void setUp() {
+        List<Category> categories = new ArrayList<>(CATEGORIES);
+        for (int i = 0; i < CATEGORIES; i++) {
+            Category category = BenchmarkFixtures.category();
+            category.setId((long) i + 1);
+            category.setName("Categoría " + i);
+            categories.add(category);
+        }
+        products = new ArrayList<>(productCount);
+        for (long id = 1; id <= productCount; id++) {
+            Product product = BenchmarkFixtures.product(id, id % 3 == 0);
+            product.setPrice(BigDecimal.valueOf(10 + id % 290));
+            product.setDiscount(id % 3 == 0 ? product.getPrice().subtract(BigDecimal.ONE) : null);
+            product.setStock((int) (id % 4));
+            product.setCategory(categories.get((int) (id % CATEGORIES)));
+            products.add(product);
+        }
+        index = new ProductFacetIndex(null, true, new String[]{"25", "50", "100", "250"});
+        index.rebuild(products);
+        filter = new ProductFacetIndex.Filter(Set.of("Categoría 3", "Categoría 7"), true, true, MIN_PRICE, MAX_PRICE);
+        pageable = PageRequest.of(0, 12, Sort.by("price"));
+    }
+
+    @Benchmark
+    public ProductFacetIndex.Result bitmaps() {
+        return index.filter(filter, null, pageable);
+    }
+
+    @Benchmark
+    public Object linearScan() {
+        Predicate<Product> category = product ->
+                Set.of("Categoría 3", "Categoría 7").contains(product.getCategory().getName());
+        Predicate<Product> price = product ->
+                product.getPrice().compareTo(MIN_PRICE) >= 0 && product.getPrice().compareTo(MAX_PRICE) <= 0;
+        Predicate<Product> discounted = Product::hasDiscount;
+        Predicate<Product> inStock = product -> product.getStock() > 0;
+
+        List<Product> page = products.stream()
+                .filter(category.and(price).and(discounted).and(inStock))
+                .sorted(Comparator.comparing(Product::getPrice).thenComparing(Product::getId))
+                .limit(12)
+                .toList();
+        Map<String, Long> categoryCounts = products.stream()
+                .filter(price.and(discounted).and(inStock))
+                .collect(Collectors.groupingBy(product -> product.getCategory().getName(), Collectors.counting()));
+        long discountedCount = products.stream().filter(category.and(price).and(inStock).and(discounted)).count();
+        long inStockCount = products.stream().filter(category.and(price).and(discounted).and(inStock)).count();
+        return List.of(page, categoryCounts, discountedCount, inStockCount);
+    }
+}
@@ -0,0 +1,78 @@
+package grupo7.ecommerceapi.benchmark;
+
+import grupo7.ecommerceapi.dto.OrderResponseDTO;
+import grupo7.ecommerceapi.dto.ProductResponseDTO;
+import grupo7.ecommerceapi.dto.ProductSummaryDTO;
+import grupo7.ecommerceapi.dto.ProductSummaryRow;
+import grupo7.ecommerceapi.entity.Order;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.mapper.OrderMapper;
+import grupo7.ecommerceapi.mapper.ProductMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de los mappers que arman las respuestas de productos y pedidos.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"1", "20"})
+    public int orderItems;
+
+    private ProductMapper productMapper;
+    private OrderMapper orderMapper;
+    private Product product;
+    private ProductSummaryRow productRow;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        productMapper = new ProductMapper();
+        orderMapper = new OrderMapper(productMapper);
+        product = BenchmarkFixtures.product(1L, true);
+        productRow = new ProductSummaryRow(product.getId(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getDiscount(), product.getImage(), product.getStock(),
+                product.getIsActive(), product.getCreatedAt(), product.getUpdatedAt(),
+                product.getCategory().getId(), product.getCategory().getName(),
+                product.getCategory().getDescription(), product.getCategory().getIsActive(),
+                product.getCategory().getCreatedAt(), product.getCategory().getUpdatedAt());
+        order = BenchmarkFixtures.order(orderItems);
+    }
+
+    @Benchmark
+    public ProductSummaryDTO productToSummary() {
+        return productMapper.toSummary(product);
+    }
+
+    @Benchmark
+    public ProductSummaryDTO projectedRowToSummary() {
+        return productMapper.toSummary(productRow);
+    }
+
+    @Benchmark
+    public ProductResponseDTO productToResponse() {
+        return productMapper.toResponse(product);
+    }
+
+    @Benchmark
+    public OrderResponseDTO orderToResponse() {
+        return orderMapper.toResponse(order);
+    }
+}
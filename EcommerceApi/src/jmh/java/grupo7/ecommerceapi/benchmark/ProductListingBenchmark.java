@@ -0,0 +1,72 @@
+package grupo7.ecommerceapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import grupo7.ecommerceapi.catalog.ProductJsonCache;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.mapper.ProductMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Serialización de una página de productos: armando cada ProductSummaryDTO y serializándolo
+ * (como antes) contra copiar los fragmentos de ProductJsonCache. Correr con -prof gc para
+ * comparar también la asignación por operación.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductListingBenchmark {
+
+    @Param({"12", "48"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ProductMapper productMapper;
+    private ProductJsonCache productJsonCache;
+    private Page<Product> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        productMapper = new ProductMapper();
+        productJsonCache = new ProductJsonCache(productMapper, true, 1000, Duration.ofHours(1));
+        List<Product> products = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> BenchmarkFixtures.product(id, id % 2 == 0))
+                .toList();
+        page = new PageImpl<>(products, PageRequest.of(0, pageSize), 1000);
+        // Primera pasada: deja los fragmentos en la caché
+        objectMapper.writeValue(OutputStream.nullOutputStream(), page.map(productJsonCache::fragment));
+    }
+
+    @Benchmark
+    public void summaryDtos() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), page.map(productMapper::toSummary));
+    }
+
+    @Benchmark
+    public void cachedFragments() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), page.map(productJsonCache::fragment));
+    }
+}
@@ -0,0 +1,54 @@
+package grupo7.ecommerceapi.benchmark;
+
+import grupo7.ecommerceapi.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculos de precio que se ejecutan por cada producto serializado.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductPriceBenchmark {
+
+    @Param({"true", "false"})
+    public boolean discounted;
+
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        product = BenchmarkFixtures.product(1L, discounted);
+    }
+
+    @Benchmark
+    public BigDecimal actualPrice() {
+        return product.getActualPrice();
+    }
+
+    @Benchmark
+    public BigDecimal discountPercentage() {
+        return product.getDiscountPercentage();
+    }
+
+    @Benchmark
+    public String formattedPrice() {
+        return product.getFormattedPrice();
+    }
+}
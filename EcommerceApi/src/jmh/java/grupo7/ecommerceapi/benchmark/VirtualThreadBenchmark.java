@@ -0,0 +1,104 @@
+package grupo7.ecommerceapi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Ráfaga de requests que pasan casi todo el tiempo bloqueados en JDBC, atendidos por un pool
+ * de 200 hilos de plataforma (el máximo por defecto de Tomcat) o por un hilo virtual cada uno.
+ * La espera de MySQL se simula con un sleep, y {@code connections} modela el pool de Hikari:
+ * con hilos virtuales el límite pasa a ser la cantidad de conexiones. La variante
+ * {@code virtual} necesita correr sobre Java 21+.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int REQUESTS_PER_BURST = 2_000;
+    private static final long JDBC_MILLIS = 5;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"30", "1000"})
+    public int connections;
+
+    private ExecutorService platformPool;
+    private Consumer<Runnable> executor;
+    private Semaphore connectionPool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        connectionPool = new Semaphore(connections);
+        if ("virtual".equals(threads)) {
+            if (Runtime.version().feature() < 21) {
+                throw new IllegalStateException("Los hilos virtuales requieren Java 21+");
+            }
+            VirtualThreadTaskExecutor virtualThreads = new VirtualThreadTaskExecutor("bench-");
+            executor = virtualThreads::execute;
+        } else {
+            platformPool = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+            executor = platformPool::execute;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (platformPool != null) {
+            platformPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Una operación es la ráfaga completa; requests por segundo = ops/s * 2000
+     */
+    @Benchmark
+    public int burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS_PER_BURST);
+        AtomicInteger served = new AtomicInteger();
+        for (int i = 0; i < REQUESTS_PER_BURST; i++) {
+            executor.accept(() -> {
+                try {
+                    connectionPool.acquire();
+                    try {
+                        Thread.sleep(JDBC_MILLIS);
+                        served.incrementAndGet();
+                    } finally {
+                        connectionPool.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return served.get();
+    }
+}
@@ -2,8 +2,10 @@ package grupo7.ecommerceapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EcommerceApiApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,16 @@
+package grupo7.ecommerceapi.cache;
+
+/**
+ * Nombres de las regiones de la caché de segundo nivel. Cada región se dimensiona con
+ * hibernate.cache.local.&lt;región&gt;.max-size / .ttl (ver application.properties).
+ */
+public final class CacheRegions {
+
+    public static final String CATEGORY = "category";
+    public static final String PRODUCT = "product";
+    // Resultados de CategoryRepository.findAllActive / findActiveByName (guardan solo los ids)
+    public static final String CATEGORY_QUERIES = "category-queries";
+
+    private CacheRegions() {
+    }
+}
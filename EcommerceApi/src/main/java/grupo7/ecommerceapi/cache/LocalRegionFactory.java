@@ -0,0 +1,98 @@
+package grupo7.ecommerceapi.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Proveedor de la caché de segundo nivel de Hibernate, en memoria del proceso. Hibernate lo
+ * instancia a partir de hibernate.cache.region.factory_class (no es un bean de Spring).
+ * Cada región toma su tamaño y TTL de hibernate.cache.local.&lt;región&gt;.max-size / .ttl y,
+ * si no están, de hibernate.cache.local.default.*.
+ * La caché es local a cada instancia: con varias instancias, lo que escribe una solo se
+ * refleja en las otras cuando vence el TTL.
+ */
+public class LocalRegionFactory extends RegionFactoryTemplate {
+
+    static final String SETTINGS_PREFIX = "hibernate.cache.local.";
+    static final String STATISTICS = SETTINGS_PREFIX + "statistics";
+    private static final String DEFAULT_REGION = "default";
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    // Una entrada por tabla; no pueden vencer antes que los resultados de consultas que validan
+    private static final int TIMESTAMPS_MAX_SIZE = 10_000;
+
+    private final Map<String, LocalRegionStorage> regions = new ConcurrentHashMap<>();
+    private Map<String, Object> settings = Map.of();
+    private boolean statistics;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        this.settings = new HashMap<>(configValues);
+        this.statistics = Boolean.parseBoolean(String.valueOf(configValues.getOrDefault(STATISTICS, "true")));
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regions.values().forEach(LocalRegionStorage::release);
+        regions.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return register(regionConfig.getRegionName());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return register(regionName);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return register(new LocalRegionStorage(regionName, TIMESTAMPS_MAX_SIZE, null, statistics));
+    }
+
+    /**
+     * Tamaño, TTL y aciertos/fallos de cada región
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        new TreeMap<>(regions).forEach((name, region) -> snapshot.put(name, region.snapshot()));
+        return snapshot;
+    }
+
+    private LocalRegionStorage register(String regionName) {
+        int maxSize = Integer.parseInt(setting(regionName, "max-size", String.valueOf(DEFAULT_MAX_SIZE)));
+        Duration ttl = DurationStyle.detectAndParse(setting(regionName, "ttl", DEFAULT_TTL.toString()));
+        return register(new LocalRegionStorage(regionName, maxSize, ttl, statistics));
+    }
+
+    private LocalRegionStorage register(LocalRegionStorage region) {
+        regions.put(region.getRegionName(), region);
+        return region;
+    }
+
+    private String setting(String regionName, String key, String defaultValue) {
+        Object value = settings.get(SETTINGS_PREFIX + regionName + "." + key);
+        if (value == null) {
+            value = settings.getOrDefault(SETTINGS_PREFIX + DEFAULT_REGION + "." + key, defaultValue);
+        }
+        return String.valueOf(value).trim();
+    }
+}
@@ -0,0 +1,117 @@
+package grupo7.ecommerceapi.cache;
+
+import grupo7.ecommerceapi.util.ExpiringCache;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contenido de una región de la caché de segundo nivel, con contadores de aciertos y fallos.
+ * Hibernate guarda acá tanto las entradas como los bloqueos de las escrituras en curso, así que
+ * una lectura que encuentra un bloqueo también cuenta como acierto.
+ */
+public class LocalRegionStorage implements DomainDataStorageAccess {
+
+    private final String regionName;
+    private final ExpiringCache<Object, Object> entries;
+    private final int maxSize;
+    private final Duration ttl;
+    private final boolean statistics;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param ttl vencimiento de cada entrada, o null para que no venzan
+     */
+    public LocalRegionStorage(String regionName, int maxSize, Duration ttl, boolean statistics) {
+        this.regionName = regionName;
+        this.entries = new ExpiringCache<>(maxSize);
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.statistics = statistics;
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Object value = entries.get(key);
+        if (statistics) {
+            (value != null ? hits : misses).increment();
+        }
+        return value;
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        if (ttl == null) {
+            entries.put(key, value, Long.MAX_VALUE);
+        } else {
+            entries.put(key, value, ttl);
+        }
+        if (statistics) {
+            puts.increment();
+        }
+    }
+
+    @Override
+    public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+        evictData(key);
+    }
+
+    @Override
+    public void clearCache(SharedSessionContractImplementor session) {
+        evictData();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return entries.get(key) != null;
+    }
+
+    @Override
+    public void evictData() {
+        entries.invalidateAll();
+        if (statistics) {
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public void evictData(Object key) {
+        entries.invalidate(key);
+        if (statistics) {
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public void release() {
+        entries.invalidateAll();
+    }
+
+    public Map<String, Object> snapshot() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("size", entries.size());
+        snapshot.put("maxSize", maxSize);
+        snapshot.put("ttl", ttl != null ? ttl.toString() : "none");
+        snapshot.put("hits", hitCount);
+        snapshot.put("misses", missCount);
+        snapshot.put("hitRatio", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        snapshot.put("puts", puts.sum());
+        snapshot.put("evictions", evictions.sum());
+        return snapshot;
+    }
+}
@@ -0,0 +1,58 @@
+package grupo7.ecommerceapi.cache;
+
+import grupo7.ecommerceapi.catalog.CatalogVersion;
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+
+/**
+ * Desalojo explícito de la caché de segundo nivel. Hibernate ya actualiza la caché con lo que
+ * escribe por la sesión, pero el stock se modifica por JDBC (ProductStockRepository) sin pasar
+ * por ella: por eso cada escritura de ProductService / CategoryService desaloja la entrada al
+ * hacer commit, a partir del mismo evento que usan el catálogo y el índice de búsqueda.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache().evictEntityData(Product.class, event.productId());
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        CacheImplementor cache = cache();
+        cache.evictEntityData(Category.class, event.categoryId());
+        cache.evictQueryRegion(CacheRegions.CATEGORY_QUERIES);
+    }
+
+    /**
+     * Estadísticas por región, o vacío si la caché de segundo nivel está desactivada
+     */
+    public Map<String, Object> snapshot() {
+        if (cache().getRegionFactory() instanceof LocalRegionFactory regionFactory) {
+            return regionFactory.snapshot();
+        }
+        return Map.of();
+    }
+
+    private CacheImplementor cache() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class).getCache();
+    }
+}
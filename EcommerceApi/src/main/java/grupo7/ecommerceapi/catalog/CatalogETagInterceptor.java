@@ -0,0 +1,53 @@
+package grupo7.ecommerceapi.catalog;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * GET condicional para los listados públicos del catálogo. El ETag combina la
+ * {@link CatalogVersion} con la URL y sus parámetros, así que se resuelve sin consultar nada:
+ * si coincide con If-None-Match se responde 304 antes de llegar al controller.
+ * Last-Modified se informa pero no se usa para responder 304 (tiene resolución de segundos y
+ * el catálogo puede cambiar varias veces en el mismo segundo).
+ * Mientras la versión no está asentada ({@link CatalogVersion#isSettled()}) la respuesta va sin
+ * ETag y con no-store: puede salir de una réplica que todavía no tiene el último cambio.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogETagInterceptor implements HandlerInterceptor {
+
+    // Cualquier caché (navegador o CDN) puede guardarlo, pero tiene que revalidar en cada uso
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePublic().getHeaderValue();
+    private static final String NO_STORE = CacheControl.noStore().getHeaderValue();
+
+    private final CatalogVersion catalogVersion;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        if (!catalogVersion.isSettled()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, NO_STORE);
+            return true;
+        }
+        long lastModified = catalogVersion.lastModified();
+        String eTag = eTag(catalogVersion.current(), request.getRequestURI(), request.getQueryString());
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        // Responde 304 si If-None-Match coincide y agrega el ETag a la respuesta
+        return !new ServletWebRequest(request, response).checkNotModified(eTag);
+    }
+
+    static String eTag(long version, String uri, String queryString) {
+        String resource = queryString != null ? uri + "?" + queryString : uri;
+        return "W/\"" + Long.toHexString(version) + "-" + Integer.toHexString(resource.hashCode()) + "\"";
+    }
+}
@@ -0,0 +1,268 @@
+package grupo7.ecommerceapi.catalog;
+
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Foto inmutable del catálogo activo (productos y categorías).
+ * Cada escritura genera una nueva instancia (copy-on-write), por lo que una misma
+ * foto puede ser leída por muchos hilos a la vez sin bloqueos.
+ */
+public final class CatalogSnapshot {
+
+    static final Comparator<Product> BY_ID = Comparator.comparing(Product::getId);
+    static final Comparator<Product> BY_NAME = Comparator
+            .comparing(Product::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Product::getId);
+    static final Comparator<Product> BY_PRICE = Comparator
+            .comparing(Product::getPrice)
+            .thenComparing(Product::getId);
+
+    private static final CatalogSnapshot EMPTY = new CatalogSnapshot(0L, List.of(), Map.of());
+
+    private final long version;
+    private final Map<Long, Product> productsById;
+    private final List<Product> productsByIdOrder;
+    private final List<Product> productsByName;
+    private final List<Product> productsByPrice;
+    private final Map<String, Category> categoriesByName;
+
+    private CatalogSnapshot(long version, List<Product> products, Map<String, Category> categoriesByName) {
+        this.version = version;
+        Map<Long, Product> byId = new HashMap<>();
+        products.forEach(product -> byId.put(product.getId(), product));
+        this.productsById = Collections.unmodifiableMap(byId);
+        this.productsByIdOrder = sortedCopy(products, BY_ID);
+        this.productsByName = sortedCopy(products, BY_NAME);
+        this.productsByPrice = sortedCopy(products, BY_PRICE);
+        this.categoriesByName = categoriesByName;
+    }
+
+    // Listas ya ordenadas (las arma withProduct sin volver a ordenar)
+    private CatalogSnapshot(long version, Map<Long, Product> productsById, List<Product> productsByIdOrder,
+                            List<Product> productsByName, List<Product> productsByPrice,
+                            Map<String, Category> categoriesByName) {
+        this.version = version;
+        this.productsById = productsById;
+        this.productsByIdOrder = productsByIdOrder;
+        this.productsByName = productsByName;
+        this.productsByPrice = productsByPrice;
+        this.categoriesByName = categoriesByName;
+    }
+
+    public static CatalogSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Construye una foto nueva a partir de las entidades cargadas desde la base de datos.
+     * Las entidades se copian para que la foto no comparta estado con el contexto de persistencia.
+     */
+    public static CatalogSnapshot of(long version, List<Product> products, List<Category> categories) {
+        Map<String, Category> categoryCopies = new HashMap<>();
+        categories.stream()
+                .filter(category -> Boolean.TRUE.equals(category.getIsActive()))
+                .forEach(category -> categoryCopies.put(normalize(category.getName()), copyOf(category)));
+
+        List<Product> productCopies = products.stream()
+                .filter(CatalogSnapshot::isListable)
+                .map(CatalogSnapshot::copyOf)
+                .toList();
+
+        return new CatalogSnapshot(version, productCopies, Collections.unmodifiableMap(categoryCopies));
+    }
+
+    /**
+     * Devuelve una foto nueva con el producto reemplazado. Si {@code product} es null
+     * o ya no está activo, el producto se quita de la foto. Las listas se copian y el producto
+     * se quita y se inserta por búsqueda binaria, sin volver a ordenarlas.
+     */
+    public CatalogSnapshot withProduct(long newVersion, Long productId, Product product) {
+        Product previous = productsById.get(productId);
+        Product replacement = isListable(product) ? copyOf(product) : null;
+
+        Map<Long, Product> byId = new HashMap<>(productsById);
+        byId.remove(productId);
+        if (replacement != null) {
+            byId.put(productId, replacement);
+        }
+        return new CatalogSnapshot(newVersion, Collections.unmodifiableMap(byId),
+                replaced(productsByIdOrder, previous, replacement, BY_ID),
+                replaced(productsByName, previous, replacement, BY_NAME),
+                replaced(productsByPrice, previous, replacement, BY_PRICE),
+                categoriesByName);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return productsById.size();
+    }
+
+    public Product getProduct(Long id) {
+        return productsById.get(id);
+    }
+
+    public Category getCategory(String name) {
+        return name == null ? null : categoriesByName.get(normalize(name));
+    }
+
+    public Page<Product> findAll(Pageable pageable) {
+        return page(product -> true, pageable);
+    }
+
+    public Page<Product> findByCategoryName(String categoryName, Pageable pageable) {
+        String normalized = normalize(categoryName);
+        return page(product -> product.getCategory() != null
+                && normalize(product.getCategory().getName()).equals(normalized), pageable);
+    }
+
+    public Page<Product> findDiscounted(Pageable pageable) {
+        return page(Product::hasDiscount, pageable);
+    }
+
+    public Page<Product> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        return page(product -> product.getPrice().compareTo(minPrice) >= 0
+                && product.getPrice().compareTo(maxPrice) <= 0, pageable);
+    }
+
+    public Page<Product> findAllOrderedBy(String property, Sort.Direction direction, Pageable pageable) {
+        return slice(orderedBy(property), direction.isDescending(), product -> true, pageable);
+    }
+
+    /**
+     * Indica si el ordenamiento pedido puede resolverse con las listas pre-ordenadas de la foto.
+     */
+    public static boolean supports(Sort sort) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && isSortableProperty(orders.get(0).getProperty());
+    }
+
+    private Page<Product> page(Predicate<Product> filter, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        if (sort.isUnsorted()) {
+            return slice(productsByIdOrder, false, filter, pageable);
+        }
+        Sort.Order order = sort.iterator().next();
+        return slice(orderedBy(order.getProperty()), order.isDescending(), filter, pageable);
+    }
+
+    private List<Product> orderedBy(String property) {
+        return switch (property) {
+            case "name" -> productsByName;
+            case "price" -> productsByPrice;
+            default -> productsByIdOrder;
+        };
+    }
+
+    private static Page<Product> slice(List<Product> ordered, boolean descending,
+                                       Predicate<Product> filter, Pageable pageable) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+
+        List<Product> content = new ArrayList<>(Math.min(limit, 64));
+        long matched = 0;
+        int size = ordered.size();
+        for (int i = 0; i < size; i++) {
+            Product product = ordered.get(descending ? size - 1 - i : i);
+            if (!filter.test(product)) {
+                continue;
+            }
+            if (matched >= offset && content.size() < limit) {
+                content.add(product);
+            }
+            matched++;
+        }
+        return new PageImpl<>(content, pageable, matched);
+    }
+
+    /**
+     * Copia de una lista ordenada sin {@code previous} y con {@code replacement} en su lugar
+     * (cualquiera de los dos puede ser null). Los comparadores desempatan por id, así que cada
+     * producto tiene una única posición.
+     */
+    private static List<Product> replaced(List<Product> sorted, Product previous, Product replacement,
+                                          Comparator<Product> comparator) {
+        List<Product> copy = new ArrayList<>(sorted.size() + 1);
+        copy.addAll(sorted);
+        if (previous != null) {
+            int index = Collections.binarySearch(copy, previous, comparator);
+            if (index >= 0) {
+                copy.remove(index);
+            }
+        }
+        if (replacement != null) {
+            int index = Collections.binarySearch(copy, replacement, comparator);
+            copy.add(index >= 0 ? index : -index - 1, replacement);
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    private static List<Product> sortedCopy(List<Product> products, Comparator<Product> comparator) {
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(comparator);
+        return Collections.unmodifiableList(sorted);
+    }
+
+    private static boolean isSortableProperty(String property) {
+        return "id".equals(property) || "name".equals(property) || "price".equals(property);
+    }
+
+    private static boolean isListable(Product product) {
+        return product != null
+                && product.getId() != null
+                && Boolean.TRUE.equals(product.getIsActive())
+                && product.getPrice() != null
+                && product.getName() != null;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Product copyOf(Product source) {
+        Product copy = new Product();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setPrice(source.getPrice());
+        copy.setDiscount(source.getDiscount());
+        copy.setImage(source.getImage());
+        copy.setStock(source.getStock());
+        copy.setIsActive(source.getIsActive());
+        copy.setCategory(source.getCategory() != null ? copyOf(source.getCategory()) : null);
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+
+    private static Category copyOf(Category source) {
+        Category copy = new Category();
+        copy.setId(source.getId());
+        copy.setName(source.getName());
+        copy.setDescription(source.getDescription());
+        copy.setIsActive(source.getIsActive());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+}
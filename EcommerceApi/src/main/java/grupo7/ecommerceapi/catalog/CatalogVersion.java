@@ -0,0 +1,160 @@
+package grupo7.ecommerceapi.catalog;
+
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.repository.CatalogVersionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Versión monotónica del catálogo: sube cada vez que hace commit una escritura de productos
+ * (incluido el stock) o de categorías. Los ETag de los listados se derivan de ella (ver
+ * {@link CatalogETagInterceptor}).
+ *
+ * <p>La versión vive en la tabla {@code catalog_version} de la primaria, así que todas las
+ * instancias entregan el mismo ETag para los mismos datos. Un cambio solo se marca en memoria:
+ * cada {@code catalog.version.refresh-interval} la tarea programada aplica todos los cambios
+ * marcados con un solo UPDATE y relee la versión de las demás instancias. Así los hilos de los
+ * requests nunca tocan la base por la versión. Mientras haya un cambio sin aplicar
+ * {@link #isSettled()} es false y no se ofrece ETag.</p>
+ *
+ * <p>Con réplicas de lectura, durante {@code datasource.replicas.max-lag} después de cada
+ * cambio el listado puede salir de una réplica que todavía no lo tiene: en esa ventana
+ * {@link #isSettled()} es false y no se ofrece ETag, para no asociar la versión nueva a
+ * datos viejos.</p>
+ *
+ * <p>Si la tabla no existe (falta aplicar db/add_catalog_version.sql) la versión queda local
+ * a la instancia, como {@link ProductCatalog}, y arranca en la hora de inicio para que un
+ * reinicio no repita versiones ya entregadas.</p>
+ */
+@Component
+public class CatalogVersion {
+
+    private static final Logger logger = Logger.getLogger(CatalogVersion.class.getName());
+
+    /**
+     * Orden de los listeners que refrescan datos servidos en los listados (catálogo en memoria,
+     * índice de búsqueda, caché de segundo nivel). Corren antes que la subida de versión, que
+     * usa el orden por defecto: así nadie recibe la versión nueva junto con datos viejos.
+     */
+    public static final int REFRESH_ORDER = 0;
+
+    /**
+     * @param lastModified momento (epoch en milisegundos) en que esta instancia vio la versión
+     */
+    private record State(long version, long lastModified) {
+    }
+
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final long settleMillis;
+
+    private volatile State state;
+    private volatile boolean shared;
+    // Cambios confirmados que la versión en memoria todavía no refleja
+    private final AtomicLong pendingChanges = new AtomicLong();
+    // Una pasada de refresh() a la vez (espera a MySQL, por eso no es synchronized)
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public CatalogVersion(CatalogVersionRepository catalogVersionRepository,
+                          @Value("${datasource.replicas.enabled:false}") boolean replicasEnabled,
+                          @Value("${datasource.replicas.max-lag:5s}") Duration maxReplicaLag) {
+        this.catalogVersionRepository = catalogVersionRepository;
+        this.settleMillis = replicasEnabled ? maxReplicaLag.toMillis() : 0;
+        long now = System.currentTimeMillis();
+        this.state = new State(now, now);
+    }
+
+    public long current() {
+        return state.version();
+    }
+
+    /**
+     * Momento (epoch en milisegundos) de la última subida de versión
+     */
+    public long lastModified() {
+        return state.lastModified();
+    }
+
+    /**
+     * Indica si los datos de la versión actual ya llegaron a todas las réplicas que atienden
+     * lecturas (y si la versión compartida está al día), o sea si puede ofrecerse su ETag
+     */
+    public boolean isSettled() {
+        return pendingChanges.get() == 0 && System.currentTimeMillis() - state.lastModified() >= settleMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            long version = catalogVersionRepository.current().orElse(0L);
+            state = new State(version, System.currentTimeMillis());
+            shared = true;
+        } catch (DataAccessException e) {
+            logger.log(Level.WARNING, "Sin tabla catalog_version (ver db/add_catalog_version.sql): "
+                    + "la versión del catálogo queda local a esta instancia", e);
+        }
+    }
+
+    public void bump() {
+        if (!shared) {
+            advanceTo(state.version() + 1);
+            return;
+        }
+        // Lo aplica refresh(); hasta entonces isSettled() es false
+        pendingChanges.incrementAndGet();
+    }
+
+    /**
+     * Aplica los cambios marcados y relee la versión compartida; así se ven también los
+     * cambios hechos desde otras instancias
+     */
+    @Scheduled(fixedDelayString = "${catalog.version.refresh-interval:1s}")
+    public void refresh() {
+        if (!shared || !refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            long marked = pendingChanges.get();
+            // Todos los cambios marcados desde la pasada anterior van en un solo UPDATE (en autocommit)
+            if (marked > 0) {
+                catalogVersionRepository.increment();
+            }
+            catalogVersionRepository.current().ifPresent(this::advanceTo);
+            // Recién ahora la versión en memoria refleja esos cambios
+            pendingChanges.addAndGet(-marked);
+        } catch (DataAccessException e) {
+            // Los cambios siguen pendientes: no se ofrecen ETags hasta la próxima pasada
+            logger.log(Level.WARNING, "No se pudo actualizar la versión del catálogo; se reintenta", e);
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bump();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        bump();
+    }
+
+    private synchronized void advanceTo(long version) {
+        if (version > state.version()) {
+            state = new State(version, System.currentTimeMillis());
+        }
+    }
+}
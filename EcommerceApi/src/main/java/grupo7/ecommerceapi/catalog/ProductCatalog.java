@@ -0,0 +1,128 @@
+package grupo7.ecommerceapi.catalog;
+
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.repository.CategoryRepository;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Catálogo en memoria (opcional) que sirve los listados de productos sin consultar MySQL.
+ * Mantiene una {@link CatalogSnapshot} inmutable que se reemplaza atómicamente
+ * cada vez que una escritura sobre productos o categorías hace commit.
+ *
+ * <p>Las recargas y las actualizaciones por evento leen la base sin bloqueo y solo publican bajo
+ * el bloqueo, si su lectura es la más nueva ({@link RefreshTickets}): así una recarga no puede
+ * pisar una actualización posterior ni dos actualizaciones del mismo producto aplicarse en
+ * desorden. Las lecturas de la foto no bloquean.</p>
+ */
+@Component
+public class ProductCatalog {
+
+    private static final Logger logger = Logger.getLogger(ProductCatalog.class.getName());
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final boolean enabled;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.empty());
+    private final RefreshTickets tickets = new RefreshTickets();
+    private volatile boolean loaded;
+
+    public ProductCatalog(ProductRepository productRepository,
+                          CategoryRepository categoryRepository,
+                          @Value("${catalog.snapshot.enabled:false}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Indica si el catálogo en memoria está habilitado, cargado y puede resolver el orden pedido.
+     */
+    public boolean canServe(Pageable pageable) {
+        return enabled && loaded && CatalogSnapshot.supports(pageable.getSort());
+    }
+
+    public boolean isAvailable() {
+        return enabled && loaded;
+    }
+
+    /**
+     * Foto vigente del catálogo. Los lectores deben tomarla una sola vez por consulta.
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Recarga completa del catálogo desde la base de datos.
+     */
+    public void reload() {
+        long ticket = tickets.next();
+        List<Product> products = productRepository.findAllActiveWithCategory();
+        List<Category> categories = categoryRepository.findAllActive();
+        applyReload(ticket, products, categories);
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        long ticket = tickets.next();
+        Product product = productRepository.findActiveById(event.productId()).orElse(null);
+        applyProduct(ticket, event.productId(), product);
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        // Un cambio de categoría afecta a todos sus productos: se reconstruye la foto completa
+        reload();
+    }
+
+    private synchronized void applyReload(long ticket, List<Product> products, List<Category> categories) {
+        if (!tickets.acceptReload(ticket)) {
+            return;
+        }
+        CatalogSnapshot current = snapshot.get();
+        CatalogSnapshot reloaded = CatalogSnapshot.of(current.getVersion() + 1, products, categories);
+        // Los productos leídos después que la recarga se conservan como estaban
+        for (Long productId : tickets.newerThanReload()) {
+            reloaded = reloaded.withProduct(reloaded.getVersion(), productId, current.getProduct(productId));
+        }
+        snapshot.set(reloaded);
+        loaded = true;
+        logger.info("Catálogo en memoria cargado con " + reloaded.size() + " productos");
+    }
+
+    private synchronized void applyProduct(long ticket, Long productId, Product product) {
+        if (tickets.acceptProduct(productId, ticket)) {
+            snapshot.updateAndGet(current -> current.withProduct(current.getVersion() + 1, productId, product));
+        }
+    }
+}
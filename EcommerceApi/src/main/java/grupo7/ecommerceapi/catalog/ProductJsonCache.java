@@ -0,0 +1,111 @@
+package grupo7.ecommerceapi.catalog;
+
+import grupo7.ecommerceapi.dto.ProductSummaryDTO;
+import grupo7.ecommerceapi.dto.ProductSummaryJson;
+import grupo7.ecommerceapi.dto.ProductSummaryRow;
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.mapper.ProductMapper;
+import grupo7.ecommerceapi.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caché del JSON (UTF-8) de cada resumen de producto, por id y versión. La versión es el
+ * updated_at del producto y el de su categoría, así que un cambio hecho desde otra instancia
+ * tampoco se sirve viejo (las columnas guardan microsegundos, ver db/add_updated_at_precision.sql,
+ * y las escrituras por JDBC las completan con CURRENT_TIMESTAMP(6)); además las entradas se descartan con cada ProductChangedEvent /
+ * CategoryChangedEvent local. En un acierto no se arma el DTO ni se serializa: los listados
+ * copian los bytes a la respuesta (ver {@link ProductSummaryJson}).
+ */
+@Component
+public class ProductJsonCache {
+
+    private record Version(LocalDateTime productUpdatedAt, LocalDateTime categoryUpdatedAt) {
+    }
+
+    private record Fragment(Version version, byte[] json) {
+    }
+
+    private final ProductMapper productMapper;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final ExpiringCache<Long, Fragment> fragments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ProductJsonCache(ProductMapper productMapper,
+                            @Value("${catalog.json-cache.enabled:true}") boolean enabled,
+                            @Value("${catalog.json-cache.max-size:20000}") int maxSize,
+                            @Value("${catalog.json-cache.ttl:10m}") Duration ttl) {
+        this.productMapper = productMapper;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.fragments = new ExpiringCache<>(maxSize);
+    }
+
+    public ProductSummaryJson fragment(ProductSummaryRow row) {
+        return fragment(row.id(), new Version(row.updatedAt(), row.categoryUpdatedAt()),
+                () -> productMapper.toSummary(row));
+    }
+
+    public ProductSummaryJson fragment(Product product) {
+        Category category = product.getCategory();
+        return fragment(product.getId(),
+                new Version(product.getUpdatedAt(), category != null ? category.getUpdatedAt() : null),
+                () -> productMapper.toSummary(product));
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        fragments.invalidate(event.productId());
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // El resumen incluye la categoría y no se sabe qué productos la usan
+        fragments.invalidateAll();
+    }
+
+    public Map<String, Object> snapshot() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", enabled);
+        snapshot.put("size", fragments.size());
+        snapshot.put("hits", hitCount);
+        snapshot.put("misses", lookups - hitCount);
+        snapshot.put("hitRatio", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        return snapshot;
+    }
+
+    private ProductSummaryJson fragment(Long productId, Version version, Supplier<ProductSummaryDTO> summary) {
+        if (!enabled) {
+            return ProductSummaryJson.of(summary.get(), null);
+        }
+        Fragment fragment = fragments.get(productId);
+        if (fragment != null && Objects.equals(fragment.version(), version)) {
+            hits.increment();
+            return ProductSummaryJson.cached(fragment.json());
+        }
+        misses.increment();
+        return ProductSummaryJson.of(summary.get(),
+                json -> fragments.put(productId, new Fragment(version, json), ttl));
+    }
+}
@@ -0,0 +1,66 @@
+package grupo7.ecommerceapi.catalog;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ordena las relecturas de la base que hacen las estructuras en memoria (catálogo, índices,
+ * autocompletado) al recibir un evento, sin leer bajo su bloqueo.
+ *
+ * <p>Cada relectura saca un turno con {@link #next()} antes de leer: el commit que disparó el
+ * evento ocurrió antes, así que la lectura lo ve. Al aplicar, una lectura solo se publica si su
+ * turno es posterior al último aplicado para ese producto y a la última recarga completa; así una
+ * lectura vieja que termina tarde nunca pisa a una más nueva.</p>
+ *
+ * <p>{@link #next()} se puede llamar desde cualquier hilo; el resto se llama bajo el bloqueo con
+ * el que el dueño publica su estado, para que la decisión y la publicación sean una sola.</p>
+ */
+public final class RefreshTickets {
+
+    private final AtomicLong sequence = new AtomicLong();
+    // Productos aplicados después de la última recarga completa -> turno de su lectura
+    private final Map<Long, Long> appliedProducts = new HashMap<>();
+    private long appliedReload;
+
+    /**
+     * Turno para una lectura que está por empezar.
+     */
+    public long next() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Indica si la lectura de un producto hecha con {@code ticket} es la más nueva y, si lo es,
+     * la registra como aplicada.
+     */
+    public boolean acceptProduct(Long productId, long ticket) {
+        if (ticket <= appliedReload || ticket <= appliedProducts.getOrDefault(productId, 0L)) {
+            return false;
+        }
+        appliedProducts.put(productId, ticket);
+        return true;
+    }
+
+    /**
+     * Indica si la recarga completa hecha con {@code ticket} es la más nueva y, si lo es, la
+     * registra como aplicada.
+     */
+    public boolean acceptReload(long ticket) {
+        if (ticket <= appliedReload) {
+            return false;
+        }
+        appliedReload = ticket;
+        appliedProducts.values().removeIf(applied -> applied <= ticket);
+        return true;
+    }
+
+    /**
+     * Productos con una lectura más nueva que la última recarga aceptada: al publicarla hay que
+     * conservar lo que ya se tenía de ellos en lugar de lo que trajo la recarga.
+     */
+    public Set<Long> newerThanReload() {
+        return Set.copyOf(appliedProducts.keySet());
+    }
+}
@@ -0,0 +1,43 @@
+package grupo7.ecommerceapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.logging.Logger;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    private static final Logger logger = Logger.getLogger(AsyncConfig.class.getName());
+
+    /**
+     * Pool acotado para generar las variantes de imagen. Si la cola se llena la tarea se
+     * descarta (la imagen original se sigue sirviendo) en lugar de frenar el upload.
+     * En modo de hilos virtuales los workers también lo son, pero el pool sigue acotado:
+     * redimensionar imágenes usa CPU y no conviene correr más de {@code pool-size} a la vez.
+     */
+    @Bean(name = "imageProcessingExecutor")
+    public ThreadPoolTaskExecutor imageProcessingExecutor(
+            Environment environment,
+            @Value("${image.variants.executor.pool-size:2}") int poolSize,
+            @Value("${image.variants.executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-variants-");
+        executor.setRejectedExecutionHandler((task, pool) ->
+                logger.warning("Cola de variantes de imagen llena: se descarta la tarea"));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,133 @@
+package grupo7.ecommerceapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import grupo7.ecommerceapi.datasource.ConnectionPoolMetrics;
+import grupo7.ecommerceapi.datasource.ReplicaLagMonitor;
+import grupo7.ecommerceapi.datasource.ReplicaRoutingDataSource;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reparte las transacciones de solo lectura entre réplicas de MySQL. Se activa con
+ * {@code datasource.replicas.enabled=true}; sin eso se usa el único
+ * {@code spring.datasource.url} de siempre.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Un pool por cada URL de réplica, con las mismas credenciales y propiedades del driver
+     * que la primaria
+     */
+    @Bean(destroyMethod = "close")
+    ReplicaPools replicaPools(DataSourceProperties properties, HikariDataSource primaryDataSource,
+                              ConnectionPoolMetrics poolMetrics,
+                              @Value("${datasource.replicas.urls}") List<String> urls,
+                              @Value("${datasource.replicas.maximum-pool-size:10}") int maximumPoolSize) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i).trim())
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+            replica.setDataSourceProperties(primaryDataSource.getDataSourceProperties());
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(poolMetrics);
+            replicas.put(replica.getPoolName(), replica);
+        }
+        return new ReplicaPools(replicas);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaPools replicaPools,
+                                               @Value("${datasource.replicas.max-lag:5s}") Duration maxLag) {
+        return new ReplicaLagMonitor(replicaPools.dataSources(), ReplicaLagMonitor.MYSQL, maxLag);
+    }
+
+    /**
+     * El proxy perezoso demora pedir la conexión hasta la primera sentencia, cuando
+     * la transacción ya indicó si es de solo lectura
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPools replicaPools,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 @Value("${datasource.replicas.max-lag:5s}") Duration maxLag) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                primaryDataSource, replicaPools.dataSources(), replicaLagMonitor, maxLag);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Con open-in-view el EntityManager vive todo el request y, por defecto, retiene la
+     * conexión entre transacciones: una escritura después de una lectura usaría la réplica.
+     * Liberándola al terminar cada transacción, cada una elige su base.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    /**
+     * Las lecturas que siguen a una escritura se quedan en la primaria solo dentro del
+     * mismo request; los hilos del servidor se reutilizan
+     */
+    @Bean
+    public OncePerRequestFilter replicaStickinessFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    ReplicaRoutingDataSource.clearStickiness();
+                }
+            }
+        };
+    }
+
+    record ReplicaPools(Map<String, DataSource> dataSources) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            dataSources.values().forEach(dataSource -> ((HikariDataSource) dataSource).close());
+        }
+    }
+}
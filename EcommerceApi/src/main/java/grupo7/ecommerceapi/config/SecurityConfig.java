@@ -35,6 +35,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Endpoints públicos (sin autenticación)
                         .requestMatchers("/auth/**").permitAll()
+                        // Métricas internas: solo usuarios autenticados (van antes que /health/**)
+                        .requestMatchers("/health/uploads", "/health/db-pool", "/health/cache").authenticated()
                         .requestMatchers("/health/**").permitAll()
                         .requestMatchers("/categories/**").permitAll()
                         // Productos: GET público, POST/PUT/DELETE requieren autenticación
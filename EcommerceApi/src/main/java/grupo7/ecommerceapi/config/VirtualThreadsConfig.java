@@ -0,0 +1,76 @@
+package grupo7.ecommerceapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Modo de hilos virtuales ({@code spring.threads.virtual.enabled=true} corriendo sobre Java 21+).
+ * Spring Boot ya atiende los requests de Tomcat y los {@code @Async}/{@code @Scheduled} en hilos
+ * virtuales; acá se revisa al arrancar que el driver JDBC no bloquee el hilo portador
+ * ("pinning") dentro de secciones {@code synchronized} mientras espera a MySQL.
+ * <p>
+ * La misma regla vale para el código propio: las secciones que esperan a MySQL o al disco
+ * (conciliación de stock, bloqueos por digest de las imágenes) usan {@code ReentrantLock}, y los
+ * índices y el catálogo en memoria leen la base fuera de su bloqueo; los {@code synchronized}
+ * que quedan solo publican estado en memoria.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    private static final Logger logger = Logger.getLogger(VirtualThreadsConfig.class.getName());
+
+    // Connector/J cambió sus bloques synchronized por ReentrantLock a partir de esta versión
+    private static final int[] MIN_MYSQL_DRIVER = {8, 0, 33};
+
+    private static final Pattern VERSION = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+)");
+
+    private final DataSource dataSource;
+
+    public VirtualThreadsConfig(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkPinningRisks() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String driver = metaData.getDriverName() + " " + metaData.getDriverVersion();
+            if (driver.contains("MySQL") && !isAtLeast(metaData.getDriverVersion(), MIN_MYSQL_DRIVER)) {
+                logger.warning(() -> "Hilos virtuales con " + driver + ": las versiones anteriores a 8.0.33 "
+                        + "esperan a MySQL dentro de bloques synchronized y fijan el hilo portador. "
+                        + "Actualizar mysql-connector-j o desactivar spring.threads.virtual.enabled");
+                return;
+            }
+            logger.info(() -> "Requests atendidos en hilos virtuales (driver " + driver + ")");
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "No se pudo verificar el driver JDBC para hilos virtuales", e);
+        }
+    }
+
+    static boolean isAtLeast(String version, int[] minimum) {
+        Matcher matcher = VERSION.matcher(version);
+        if (!matcher.find()) {
+            return false;
+        }
+        int[] actual = {
+                Integer.parseInt(matcher.group(1)),
+                Integer.parseInt(matcher.group(2)),
+                Integer.parseInt(matcher.group(3))
+        };
+        return Arrays.compare(actual, minimum) >= 0;
+    }
+}
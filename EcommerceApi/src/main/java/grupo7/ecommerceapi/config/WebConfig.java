@@ -0,0 +1,38 @@
+package grupo7.ecommerceapi.config;
+
+import grupo7.ecommerceapi.catalog.CatalogETagInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CatalogETagInterceptor catalogETagInterceptor;
+    private final boolean catalogETagsEnabled;
+
+    public WebConfig(CatalogETagInterceptor catalogETagInterceptor,
+                     @Value("${catalog.etag.enabled:true}") boolean catalogETagsEnabled) {
+        this.catalogETagInterceptor = catalogETagInterceptor;
+        this.catalogETagsEnabled = catalogETagsEnabled;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!catalogETagsEnabled) {
+            return;
+        }
+        // Solo listados públicos: no dependen del usuario y cambian únicamente con el catálogo
+        registry.addInterceptor(catalogETagInterceptor)
+                .addPathPatterns(
+                        "/products",
+                        "/products/offers",
+                        "/products/price-range",
+                        "/products/filter",
+                        "/products/suggest",
+                        "/products/category/**",
+                        "/categories",
+                        "/categories/**");
+    }
+}
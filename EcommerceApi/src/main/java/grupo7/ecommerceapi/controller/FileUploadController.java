@@ -1,19 +1,28 @@
 package grupo7.ecommerceapi.controller;
 
+import grupo7.ecommerceapi.exception.InvalidUploadException;
 import grupo7.ecommerceapi.service.FileStorageService;
+import grupo7.ecommerceapi.service.ProductService;
+import grupo7.ecommerceapi.storage.FileMetadata;
+import grupo7.ecommerceapi.storage.ImageVariant;
+import grupo7.ecommerceapi.storage.ImageVariantService;
+import grupo7.ecommerceapi.storage.StaticFileServer;
+import grupo7.ecommerceapi.storage.StoredUpload;
+import grupo7.ecommerceapi.storage.UploadMetrics;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/files")
@@ -21,6 +30,13 @@ import java.util.Map;
 public class FileUploadController {
 
   private final FileStorageService fileStorageService;
+  private final StaticFileServer staticFileServer;
+  private final ImageVariantService imageVariantService;
+  private final ProductService productService;
+  private final UploadMetrics uploadMetrics;
+
+  private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
+  private static final CacheControl VARIANT_PENDING = CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic();
 
   /**
    * POST /api/files/upload - Subir un archivo (imagen)
@@ -31,29 +47,26 @@ public class FileUploadController {
       // Validar que sea una imagen
       String contentType = file.getContentType();
       if (contentType == null || !contentType.startsWith("image/")) {
+        uploadMetrics.recordRejected();
         Map<String, String> errorResponse = new HashMap<>();
         errorResponse.put("error", "Solo se permiten archivos de imagen");
         return ResponseEntity.badRequest().body(errorResponse);
       }
 
       // Validar tamaño (5MB máximo)
-      long maxSize = 5 * 1024 * 1024; // 5MB
-      if (file.getSize() > maxSize) {
+      if (file.getSize() > MAX_FILE_SIZE) {
+        uploadMetrics.recordRejected();
         Map<String, String> errorResponse = new HashMap<>();
         errorResponse.put("error", "El archivo no debe superar los 5MB");
         return ResponseEntity.badRequest().body(errorResponse);
       }
 
       // Guardar el archivo
+      long start = System.nanoTime();
       String fileName = fileStorageService.storeFile(file);
+      uploadMetrics.recordAccepted(new StoredUpload(fileName, file.getSize()), System.nanoTime() - start);
 
-      // Crear respuesta
-      Map<String, String> response = new HashMap<>();
-      response.put("fileName", fileName);
-      response.put("fileUrl", "/api/files/" + fileName);
-      response.put("message", "Archivo subido exitosamente");
-
-      return ResponseEntity.status(HttpStatus.CREATED).body(response);
+      return uploadCreated(fileName);
 
     } catch (Exception e) {
       Map<String, String> errorResponse = new HashMap<>();
@@ -63,35 +76,89 @@ public class FileUploadController {
   }
 
   /**
-   * GET /api/files/{fileName} - Descargar/visualizar un archivo
+   * POST /api/files/upload/stream - Subir una imagen enviando los bytes crudos como cuerpo
+   * (Content-Type: image/* o application/octet-stream). No pasa por el parser multipart:
+   * el cuerpo se escribe directo al disco, se rechaza apenas los primeros bytes no son una
+   * imagen o se supera el tamaño máximo, y la memoria usada no depende del tamaño del archivo.
    */
-  @GetMapping("/{fileName:.+}")
-  public ResponseEntity<Resource> downloadFile(@PathVariable String fileName, HttpServletRequest request) {
+  @PostMapping("/upload/stream")
+  public ResponseEntity<Map<String, String>> uploadStream(HttpServletRequest request) {
     try {
-      // Cargar el archivo como Resource
-      Resource resource = fileStorageService.loadFileAsResource(fileName);
-
-      // Determinar el tipo de contenido del archivo
-      String contentType = null;
-      try {
-        contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-      } catch (IOException ex) {
-        // Si no se puede determinar, usar tipo genérico
+      // Si el cliente declara un tamaño excesivo se rechaza sin leer el cuerpo
+      if (request.getContentLengthLong() > MAX_FILE_SIZE) {
+        throw new InvalidUploadException(HttpStatus.PAYLOAD_TOO_LARGE, "El archivo no debe superar los 5MB");
       }
 
-      // Por defecto, usar application/octet-stream
-      if (contentType == null) {
-        contentType = "application/octet-stream";
-      }
+      long start = System.nanoTime();
+      StoredUpload upload = fileStorageService.storeStream(request.getInputStream(), MAX_FILE_SIZE);
+      uploadMetrics.recordAccepted(upload, System.nanoTime() - start);
 
-      return ResponseEntity.ok()
-          .contentType(MediaType.parseMediaType(contentType))
-          .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-          .body(resource);
+      return uploadCreated(upload.fileName());
 
+    } catch (InvalidUploadException e) {
+      uploadMetrics.recordRejected();
+      Map<String, String> errorResponse = new HashMap<>();
+      errorResponse.put("error", e.getMessage());
+      return ResponseEntity.status(e.getStatus()).body(errorResponse);
     } catch (Exception e) {
-      return ResponseEntity.notFound().build();
+      Map<String, String> errorResponse = new HashMap<>();
+      errorResponse.put("error", "Error al subir el archivo: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    }
+  }
+
+  private ResponseEntity<Map<String, String>> uploadCreated(String fileName) {
+    // Generar miniatura y tamaño mediano en segundo plano
+    imageVariantService.generateVariantsAsync(fileName);
+
+    // Crear respuesta
+    Map<String, String> response = new HashMap<>();
+    response.put("fileName", fileName);
+    response.put("fileUrl", "/api/files/" + fileName);
+    response.put("thumbnailUrl", "/api/files/" + fileName + "?size=" + ImageVariant.THUMBNAIL.getQualifier());
+    response.put("mediumUrl", "/api/files/" + fileName + "?size=" + ImageVariant.MEDIUM.getQualifier());
+    response.put("message", "Archivo subido exitosamente");
+
+    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+  }
+
+  /**
+   * GET /api/files/{fileName} - Descargar/visualizar un archivo
+   * Responde 304 si el cliente ya tiene la versión, soporta Range y se cachea como inmutable.
+   * Con ?size=thumb|medium devuelve la variante reducida (o el original si aún no está lista).
+   */
+  @GetMapping("/{fileName:.+}")
+  public void downloadFile(@PathVariable String fileName,
+      @RequestParam(required = false) String size,
+      HttpServletRequest request,
+      HttpServletResponse response) throws IOException {
+    if (size != null) {
+      Optional<ImageVariant> variant = ImageVariant.fromQualifier(size);
+      if (variant.isEmpty()) {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        return;
+      }
+      Optional<FileMetadata> variantMetadata = fileStorageService.getMetadata(variant.get().fileNameFor(fileName));
+      if (variantMetadata.isPresent()) {
+        staticFileServer.serve(variantMetadata.get(), request, response);
+        return;
+      }
+      // La variante todavía se está generando: se sirve el original con caché corta
+      Optional<FileMetadata> original = fileStorageService.getMetadata(fileName);
+      if (original.isEmpty()) {
+        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        return;
+      }
+      staticFileServer.serve(original.get(), request, response, VARIANT_PENDING);
+      return;
     }
+
+    Optional<FileMetadata> metadata = fileStorageService.getMetadata(fileName);
+    if (metadata.isEmpty()) {
+      response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    staticFileServer.serve(metadata.get(), request, response);
   }
 
   /**
@@ -100,10 +167,16 @@ public class FileUploadController {
   @DeleteMapping("/{fileName:.+}")
   public ResponseEntity<Map<String, String>> deleteFile(@PathVariable String fileName) {
     try {
-      boolean deleted = fileStorageService.deleteFile(fileName);
+      // Un archivo direccionado por contenido (o su variante) puede ser la imagen de otros productos
+      FileStorageService.Deletion deletion = fileStorageService.deleteIfUnused(fileName, productService::isImageInUse);
+      if (deletion == FileStorageService.Deletion.IN_USE) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "El archivo está en uso por un producto o se subió hace poco");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+      }
 
       Map<String, String> response = new HashMap<>();
-      if (deleted) {
+      if (deletion == FileStorageService.Deletion.DELETED) {
         response.put("message", "Archivo eliminado exitosamente");
         return ResponseEntity.ok(response);
       } else {
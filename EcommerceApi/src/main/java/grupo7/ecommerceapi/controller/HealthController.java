@@ -1,17 +1,29 @@
 package grupo7.ecommerceapi.controller;
 
+import grupo7.ecommerceapi.cache.SecondLevelCache;
+import grupo7.ecommerceapi.catalog.ProductJsonCache;
+import grupo7.ecommerceapi.datasource.ConnectionPoolMetrics;
+import grupo7.ecommerceapi.storage.UploadMetrics;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/health")
+@RequiredArgsConstructor
 public class HealthController {
 
+  private final UploadMetrics uploadMetrics;
+  private final ConnectionPoolMetrics connectionPoolMetrics;
+  private final SecondLevelCache secondLevelCache;
+  private final ProductJsonCache productJsonCache;
+
   @GetMapping
   public ResponseEntity<Map<String, String>> health() {
     Map<String, String> response = new HashMap<>();
@@ -19,4 +31,33 @@ public class HealthController {
     response.put("service", "EcommerceApi");
     return ResponseEntity.ok(response);
   }
+
+  /**
+   * GET /api/health/uploads - Uploads aceptados/rechazados y throughput de escritura
+   * (requiere autenticación)
+   */
+  @GetMapping("/uploads")
+  public ResponseEntity<Map<String, Object>> uploads() {
+    return ResponseEntity.ok(uploadMetrics.snapshot());
+  }
+
+  /**
+   * GET /api/health/db-pool - Conexiones activas/ociosas/en espera e histograma de espera por pool
+   * (requiere autenticación)
+   */
+  @GetMapping("/db-pool")
+  public ResponseEntity<Map<String, Object>> dbPool() {
+    return ResponseEntity.ok(connectionPoolMetrics.snapshot());
+  }
+
+  /**
+   * GET /api/health/cache - Tamaño y aciertos/fallos por región de la caché de segundo nivel
+   * y de la caché de JSON de productos (requiere autenticación)
+   */
+  @GetMapping("/cache")
+  public ResponseEntity<Map<String, Object>> cache() {
+    Map<String, Object> response = new LinkedHashMap<>(secondLevelCache.snapshot());
+    response.put("product-json", productJsonCache.snapshot());
+    return ResponseEntity.ok(response);
+  }
 }
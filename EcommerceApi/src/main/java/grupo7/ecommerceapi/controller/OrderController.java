@@ -7,13 +7,16 @@ import grupo7.ecommerceapi.dto.order.UpdateOrderStatusRequest;
 import grupo7.ecommerceapi.entity.Order;
 import grupo7.ecommerceapi.entity.User;
 import grupo7.ecommerceapi.service.OrderService;
+import grupo7.ecommerceapi.util.NdjsonWriter;
 import grupo7.ecommerceapi.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,16 +27,17 @@ public class OrderController {
 
     private final OrderService orderService;
     private final SecurityUtil securityUtil;
+    private final NdjsonWriter ndjsonWriter;
 
     // POST /api/orders - Crear una nueva orden
     @PostMapping
     public ResponseEntity<OrderResponseDTO> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        var userOpt = securityUtil.getCurrentUser();
-        if (userOpt.isEmpty()) {
+        var userId = securityUtil.getCurrentUserId();
+        if (userId.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        OrderResponseDTO orderResponse = orderService.createOrder(userOpt.get(), request);
+        OrderResponseDTO orderResponse = orderService.createOrder(userId.get(), request);
         return ResponseEntity.status(HttpStatus.CREATED).body(orderResponse);
     }
 
@@ -58,6 +62,14 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    // GET /api/orders/status/{status}/export - Pedidos por estado en NDJSON, sin cargarlos todos
+    @GetMapping("/status/{status}/export")
+    public void exportOrdersByStatus(@PathVariable Order.OrderStatus status,
+                                     HttpServletResponse response) throws IOException {
+        ndjsonWriter.<OrderResponseDTO>write(response,
+                sink -> orderService.streamOrdersByStatus(status, sink));
+    }
+
     // GET /api/orders/{orderId}/items - Obtener items de un pedido
     @GetMapping("/{orderId:\\d+}/items")
     public ResponseEntity<List<OrderItemResponseDTO>> getOrderItems(@PathVariable Long orderId) {
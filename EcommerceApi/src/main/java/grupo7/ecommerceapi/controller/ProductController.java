@@ -1,27 +1,39 @@
 package grupo7.ecommerceapi.controller;
 
+import grupo7.ecommerceapi.catalog.ProductJsonCache;
 import grupo7.ecommerceapi.dto.CreateProductRequest;
+import grupo7.ecommerceapi.dto.CursorPageDTO;
+import grupo7.ecommerceapi.dto.FilteredProductsDTO;
 import grupo7.ecommerceapi.dto.ProductResponseDTO;
 import grupo7.ecommerceapi.dto.ProductStockResponseDTO;
 import grupo7.ecommerceapi.dto.ProductSummaryDTO;
+import grupo7.ecommerceapi.dto.ProductSummaryJson;
+import grupo7.ecommerceapi.dto.SuggestionsDTO;
 import grupo7.ecommerceapi.entity.Product;
 import grupo7.ecommerceapi.exception.ResourceNotFoundException;
 import grupo7.ecommerceapi.mapper.ProductMapper;
+import grupo7.ecommerceapi.search.ProductFacetIndex;
 import grupo7.ecommerceapi.service.ProductService;
+import grupo7.ecommerceapi.util.CursorCodec;
+import grupo7.ecommerceapi.util.NdjsonWriter;
 import grupo7.ecommerceapi.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/products")
@@ -31,6 +43,9 @@ public class ProductController {
     private final ProductService productService;
     private final SecurityUtil securityUtil;
     private final ProductMapper productMapper;
+    private final ProductJsonCache productJsonCache;
+    private final CursorCodec cursorCodec;
+    private final NdjsonWriter ndjsonWriter;
 
     // GET /api/products/my-products - Obtener productos del usuario autenticado (debe ir antes de /{id})
     @GetMapping("/my-products")
@@ -40,8 +55,8 @@ public class ProductController {
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir) {
         
-        var userOpt = securityUtil.getCurrentUser();
-        if (userOpt.isEmpty()) {
+        var userId = securityUtil.getCurrentUserId();
+        if (userId.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
@@ -50,14 +65,31 @@ public class ProductController {
                 : Sort.by(sortBy).ascending();
 
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Product> products = productService.getProductsByUserId(userOpt.get().getId(), pageable);
-        Page<ProductSummaryDTO> dtoPage = products.map(productMapper::toSummary);
-        return ResponseEntity.ok(dtoPage);
+        return ResponseEntity.ok(productService.getProductSummariesByUserId(userId.get(), pageable));
+    }
+
+    // GET /api/products/my-products/scroll - Productos del usuario autenticado paginados por cursor
+    @GetMapping("/my-products/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryJson>> scrollMyProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+
+        var userId = securityUtil.getCurrentUserId();
+        if (userId.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        CursorCodec.Cursor position = resolveCursor(cursor, sortBy, sortDir);
+        Window<Product> products = productService.scrollProductsByUserId(
+                userId.get(), position.position(), position.sort(), size);
+        return ResponseEntity.ok(toCursorPage(products, position));
     }
 
     // GET /api/products - Listar todos los productos con paginación
     @GetMapping
-    public ResponseEntity<Page<ProductSummaryDTO>> getAllProducts(
+    public ResponseEntity<Page<ProductSummaryJson>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(defaultValue = "id") String sortBy,
@@ -68,9 +100,20 @@ public class ProductController {
                 : Sort.by(sortBy).ascending();
 
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Product> products = productService.getAllProducts(pageable);
-        Page<ProductSummaryDTO> dtoPage = products.map(productMapper::toSummary);
-        return ResponseEntity.ok(dtoPage);
+        return ResponseEntity.ok(productService.getAllProductSummaries(pageable));
+    }
+
+    // GET /api/products/scroll - Listar productos paginados por cursor (keyset, sin COUNT)
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryJson>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+
+        CursorCodec.Cursor position = resolveCursor(cursor, sortBy, sortDir);
+        Window<Product> products = productService.scrollAllProducts(position.position(), position.sort(), size);
+        return ResponseEntity.ok(toCursorPage(products, position));
     }
 
     // GET /api/products/{id} - Obtener producto por ID
@@ -83,7 +126,7 @@ public class ProductController {
 
     // GET /api/products/category/{categoryName} - Productos por categoría
     @GetMapping("/category/{categoryName}")
-    public ResponseEntity<Page<ProductSummaryDTO>> getProductsByCategory(
+    public ResponseEntity<Page<ProductSummaryJson>> getProductsByCategory(
             @PathVariable String categoryName,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
@@ -95,81 +138,127 @@ public class ProductController {
                 : Sort.by(sortBy).ascending();
 
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Product> products = productService.getProductsByCategory(categoryName, pageable);
-        return ResponseEntity.ok(products.map(productMapper::toSummary));
+        return ResponseEntity.ok(productService.getProductSummariesByCategory(categoryName, pageable));
+    }
+
+    // GET /api/products/category/{categoryName}/scroll - Productos por categoría paginados por cursor
+    @GetMapping("/category/{categoryName}/scroll")
+    public ResponseEntity<CursorPageDTO<ProductSummaryJson>> scrollProductsByCategory(
+            @PathVariable String categoryName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+
+        CursorCodec.Cursor position = resolveCursor(cursor, sortBy, sortDir);
+        Window<Product> products = productService.scrollProductsByCategory(
+                categoryName, position.position(), position.sort(), size);
+        return ResponseEntity.ok(toCursorPage(products, position));
     }
 
     // GET /api/products/search - Buscar productos
+    // (sortBy=relevance ordena por relevancia del índice de búsqueda)
     @GetMapping("/search")
-    public ResponseEntity<Page<ProductSummaryDTO>> searchProducts(
+    public ResponseEntity<Page<ProductSummaryJson>> searchProducts(
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
-            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "relevance") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir) {
 
-        Sort sort = sortDir.equalsIgnoreCase("desc")
-                ? Sort.by(sortBy).descending()
-                : Sort.by(sortBy).ascending();
+        Sort sort = searchSort(sortBy, sortDir);
 
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<Product> products = productService.searchProducts(q, pageable);
-        return ResponseEntity.ok(products.map(productMapper::toSummary));
+        return ResponseEntity.ok(products.map(productJsonCache::fragment));
+    }
+
+    // GET /api/products/suggest - Autocompletado del buscador (categorías y productos más populares)
+    @GetMapping("/suggest")
+    public ResponseEntity<SuggestionsDTO> suggestProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+
+        return productService.suggest(q, limit)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
     }
 
     // GET /api/products/category/{categoryName}/search - Buscar en categoría
     // específica
     @GetMapping("/category/{categoryName}/search")
-    public ResponseEntity<Page<ProductSummaryDTO>> searchProductsInCategory(
+    public ResponseEntity<Page<ProductSummaryJson>> searchProductsInCategory(
             @PathVariable String categoryName,
             @RequestParam String q,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
-            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "relevance") String sortBy,
             @RequestParam(defaultValue = "asc") String sortDir) {
 
-        Sort sort = sortDir.equalsIgnoreCase("desc")
-                ? Sort.by(sortBy).descending()
-                : Sort.by(sortBy).ascending();
+        Sort sort = searchSort(sortBy, sortDir);
 
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<Product> products = productService.getProductsByCategoryAndSearch(categoryName, q, pageable);
-        return ResponseEntity.ok(products.map(productMapper::toSummary));
+        return ResponseEntity.ok(products.map(productJsonCache::fragment));
     }
 
     // GET /api/products/offers - Productos con descuento
     @GetMapping("/offers")
-    public ResponseEntity<Page<ProductSummaryDTO>> getDiscountedProducts(
+    public ResponseEntity<Page<ProductSummaryJson>> getDiscountedProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Product> products = productService.getDiscountedProducts(pageable);
-        return ResponseEntity.ok(products.map(productMapper::toSummary));
+        return ResponseEntity.ok(productService.getDiscountedProductSummaries(pageable));
     }
 
     // GET /api/products/price-range - Productos por rango de precio
     @GetMapping("/price-range")
-    public ResponseEntity<Page<ProductSummaryDTO>> getProductsByPriceRange(
+    public ResponseEntity<Page<ProductSummaryJson>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
             @RequestParam BigDecimal maxPrice,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<Product> products = productService.getProductsByPriceRange(minPrice, maxPrice, pageable);
-        return ResponseEntity.ok(products.map(productMapper::toSummary));
+        return ResponseEntity.ok(productService.getProductSummariesByPriceRange(minPrice, maxPrice, pageable));
+    }
+
+    // GET /api/products/filter - Filtro combinado con conteos por faceta
+    // (category se puede repetir; minPrice/maxPrice inclusivos; q opcional)
+    @GetMapping("/filter")
+    public ResponseEntity<FilteredProductsDTO> filterProducts(
+            @RequestParam(required = false) Set<String> category,
+            @RequestParam(defaultValue = "false") boolean discounted,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+
+        Sort sort = sortDir.equalsIgnoreCase("desc")
+                ? Sort.by(sortBy).descending()
+                : Sort.by(sortBy).ascending();
+
+        Pageable pageable = PageRequest.of(page, size, sort);
+        ProductFacetIndex.Filter filter = new ProductFacetIndex.Filter(category, discounted, inStock, minPrice, maxPrice);
+        return productService.filterProducts(filter, q, pageable)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
     }
 
     // POST /api/products - Crear producto
     @PostMapping
     public ResponseEntity<ProductResponseDTO> createProduct(@Valid @RequestBody CreateProductRequest request) {
-        var userOpt = securityUtil.getCurrentUser();
-        if (userOpt.isEmpty()) {
+        var userId = securityUtil.getCurrentUserId();
+        if (userId.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        Product createdProduct = productService.createProduct(request, userOpt.get());
+        Product createdProduct = productService.createProduct(request, userId.get());
         return ResponseEntity.status(HttpStatus.CREATED).body(productMapper.toResponse(createdProduct));
     }
 
@@ -203,4 +292,39 @@ public class ProductController {
                 .toList();
         return ResponseEntity.ok(dtoList);
     }
+
+    // GET /api/products/low-stock/export - Stock bajo en NDJSON, escrito a medida que se lee
+    @GetMapping("/low-stock/export")
+    public void exportLowStockProducts(@RequestParam(defaultValue = "5") Integer threshold,
+                                       HttpServletResponse response) throws IOException {
+        ndjsonWriter.<ProductSummaryDTO>write(response,
+                sink -> productService.streamLowStockProducts(threshold, sink));
+    }
+
+    // Si viene un cursor, manda el orden guardado en él; si no, se arranca desde la primera página
+    private CursorCodec.Cursor resolveCursor(String cursor, String sortBy, String sortDir) {
+        return cursor != null && !cursor.isBlank()
+                ? cursorCodec.decode(cursor)
+                : cursorCodec.first(sortBy, sortDir);
+    }
+
+    private CursorPageDTO<ProductSummaryJson> toCursorPage(Window<Product> products, CursorCodec.Cursor position) {
+        List<ProductSummaryJson> content = products.getContent().stream()
+                .map(productJsonCache::fragment)
+                .toList();
+        String nextCursor = products.hasNext() && !products.isEmpty()
+                ? cursorCodec.encode(position, products.positionAt(products.size() - 1))
+                : null;
+        return new CursorPageDTO<>(content, content.size(), nextCursor != null, nextCursor);
+    }
+
+    // El orden por relevancia lo resuelve el índice de búsqueda; para la base de datos es "sin orden"
+    private Sort searchSort(String sortBy, String sortDir) {
+        if ("relevance".equalsIgnoreCase(sortBy)) {
+            return Sort.unsorted();
+        }
+        return sortDir.equalsIgnoreCase("desc")
+                ? Sort.by(sortBy).descending()
+                : Sort.by(sortBy).ascending();
+    }
 }
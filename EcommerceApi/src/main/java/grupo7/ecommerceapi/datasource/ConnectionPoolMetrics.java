@@ -0,0 +1,168 @@
+package grupo7.ecommerceapi.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Métricas de los pools de conexiones: conexiones activas, ociosas y threads esperando,
+ * más un histograma del tiempo que tarda en conseguirse una conexión. Se registra en cada
+ * {@link HikariDataSource} y se consulta en /health/db-pool.
+ */
+@Component
+public class ConnectionPoolMetrics implements MetricsTrackerFactory, BeanPostProcessor {
+
+    private static final Logger logger = Logger.getLogger(ConnectionPoolMetrics.class.getName());
+
+    // Límites superiores (en ms) de los buckets del histograma de espera
+    private static final long[] ACQUIRE_BUCKETS_MS = {1, 5, 10, 50, 100, 500, 1000};
+
+    // Como mucho un aviso de espera lenta por pool en este intervalo
+    private static final long WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final long slowAcquireNanos;
+    private final Map<String, PoolTracker> pools = new ConcurrentHashMap<>();
+
+    public ConnectionPoolMetrics(
+            @Value("${datasource.pool.slow-acquire-threshold:100ms}") Duration slowAcquireThreshold) {
+        this.slowAcquireNanos = slowAcquireThreshold.toNanos();
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource) {
+            dataSource.setMetricsTrackerFactory(this);
+        }
+        return bean;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        PoolTracker tracker = new PoolTracker(poolName, poolStats);
+        pools.put(poolName, tracker);
+        return tracker;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        pools.forEach((name, tracker) -> snapshot.put(name, tracker.snapshot()));
+        return snapshot;
+    }
+
+    private final class PoolTracker implements IMetricsTracker {
+
+        private final String poolName;
+        private final PoolStats poolStats;
+        private final LongAdder[] acquireBuckets = new LongAdder[ACQUIRE_BUCKETS_MS.length + 1];
+        private final LongAdder acquireNanos = new LongAdder();
+        private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder usageMillis = new LongAdder();
+        private final LongAdder usages = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder slowSinceWarning = new LongAdder();
+        private final AtomicLong lastWarning = new AtomicLong(System.nanoTime() - WARNING_INTERVAL_NANOS);
+
+        private PoolTracker(String poolName, PoolStats poolStats) {
+            this.poolName = poolName;
+            this.poolStats = poolStats;
+            for (int i = 0; i < acquireBuckets.length; i++) {
+                acquireBuckets[i] = new LongAdder();
+            }
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquireBuckets[bucketFor(elapsedAcquiredNanos)].increment();
+            acquireNanos.add(elapsedAcquiredNanos);
+            maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+            if (elapsedAcquiredNanos >= slowAcquireNanos) {
+                slowSinceWarning.increment();
+                warnIfDue(elapsedAcquiredNanos);
+            }
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usageMillis.add(elapsedBorrowedMillis);
+            usages.increment();
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+            logger.warning(() -> "Pool " + poolName + " agotado: se venció la espera de una conexión ("
+                    + poolStats.getActiveConnections() + " activas, "
+                    + poolStats.getPendingThreads() + " esperando)");
+        }
+
+        private void warnIfDue(long elapsedAcquiredNanos) {
+            long now = System.nanoTime();
+            long last = lastWarning.get();
+            if (now - last < WARNING_INTERVAL_NANOS || !lastWarning.compareAndSet(last, now)) {
+                return;
+            }
+            long slow = slowSinceWarning.sumThenReset();
+            logger.warning(() -> String.format(
+                    "Pool %s: %d esperas de conexión lentas en los últimos %ds (última %.1f ms, %d activas, %d esperando)",
+                    poolName, slow, TimeUnit.NANOSECONDS.toSeconds(now - last),
+                    elapsedAcquiredNanos / 1_000_000.0,
+                    poolStats.getActiveConnections(), poolStats.getPendingThreads()));
+        }
+
+        private Map<String, Object> snapshot() {
+            long acquired = 0;
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < acquireBuckets.length; i++) {
+                long count = acquireBuckets[i].sum();
+                acquired += count;
+                histogram.put(i < ACQUIRE_BUCKETS_MS.length ? "<=" + ACQUIRE_BUCKETS_MS[i] + "ms" : "+Inf", count);
+            }
+
+            Map<String, Object> acquire = new LinkedHashMap<>();
+            acquire.put("count", acquired);
+            acquire.put("meanMs", acquired == 0 ? 0 : round(acquireNanos.sum() / 1_000_000.0 / acquired));
+            acquire.put("maxMs", round(maxAcquireNanos.get() / 1_000_000.0));
+            acquire.put("timeouts", timeouts.sum());
+            acquire.put("histogram", histogram);
+
+            long used = usages.sum();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("active", poolStats.getActiveConnections());
+            snapshot.put("idle", poolStats.getIdleConnections());
+            snapshot.put("pending", poolStats.getPendingThreads());
+            snapshot.put("total", poolStats.getTotalConnections());
+            snapshot.put("max", poolStats.getMaxConnections());
+            snapshot.put("acquire", acquire);
+            snapshot.put("usageMeanMs", used == 0 ? 0 : round((double) usageMillis.sum() / used));
+            return snapshot;
+        }
+    }
+
+    static int bucketFor(long elapsedNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        for (int i = 0; i < ACQUIRE_BUCKETS_MS.length; i++) {
+            if (millis <= ACQUIRE_BUCKETS_MS[i]) {
+                return i;
+            }
+        }
+        return ACQUIRE_BUCKETS_MS.length;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
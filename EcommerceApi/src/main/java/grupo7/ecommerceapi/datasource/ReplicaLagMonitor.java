@@ -0,0 +1,99 @@
+package grupo7.ecommerceapi.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Mide periódicamente el retraso de cada réplica y publica cuáles pueden atender lecturas.
+ * Una réplica atrasada más de {@code maxLag}, con la replicación detenida o que no responde
+ * queda afuera hasta el próximo chequeo que la encuentre bien.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = Logger.getLogger(ReplicaLagMonitor.class.getName());
+
+    /**
+     * Obtiene el retraso de una réplica, o {@code null} si la replicación está detenida
+     */
+    @FunctionalInterface
+    public interface LagProbe {
+        Duration lag(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Retraso según {@code SHOW REPLICA STATUS} (MySQL 8.0.22+). Una base que no es réplica
+     * (por ejemplo una copia local para pruebas) se considera al día.
+     */
+    public static final LagProbe MYSQL = connection -> {
+        try (Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery("SHOW REPLICA STATUS")) {
+            if (!status.next()) {
+                return Duration.ZERO;
+            }
+            long seconds = status.getLong("Seconds_Behind_Source");
+            return status.wasNull() ? null : Duration.ofSeconds(seconds);
+        }
+    };
+
+    private final Map<String, DataSource> replicas;
+    private final LagProbe probe;
+    private final Duration maxLag;
+
+    // Hasta el primer chequeo no se usa ninguna réplica
+    private volatile List<String> healthy = List.of();
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, LagProbe probe, Duration maxLag) {
+        this.replicas = replicas;
+        this.probe = probe;
+        this.maxLag = maxLag;
+    }
+
+    public List<String> healthyReplicas() {
+        return healthy;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.lag-check-interval:5s}")
+    public void checkReplicas() {
+        List<String> available = new ArrayList<>(replicas.size());
+        replicas.forEach((key, dataSource) -> {
+            if (isWithinLag(key, dataSource)) {
+                available.add(key);
+            }
+        });
+
+        List<String> previous = healthy;
+        healthy = List.copyOf(available);
+        if (!previous.equals(healthy)) {
+            logger.info(() -> "Réplicas disponibles para lectura: " + healthy);
+        }
+    }
+
+    private boolean isWithinLag(String key, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            Duration lag = probe.lag(connection);
+            if (lag == null) {
+                logger.warning(() -> "Replicación detenida en " + key);
+                return false;
+            }
+            if (lag.compareTo(maxLag) > 0) {
+                logger.warning(() -> "Réplica " + key + " atrasada " + lag.toSeconds() + "s");
+                return false;
+            }
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            logger.log(Level.WARNING, "No se pudo consultar el estado de la réplica " + key, e);
+            return false;
+        }
+    }
+}
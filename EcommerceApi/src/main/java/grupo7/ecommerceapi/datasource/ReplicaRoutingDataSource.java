@@ -0,0 +1,87 @@
+package grupo7.ecommerceapi.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Elige la base para cada conexión: las transacciones {@code readOnly} van a una réplica
+ * sana (en ronda) y todo lo demás a la primaria. Tiene que usarse detrás de un
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, porque la
+ * conexión debe pedirse recién cuando la transacción ya marcó si es de solo lectura.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    // Momento (nanoTime) de la última transacción de escritura en este hilo
+    private static final ThreadLocal<Long> lastWrite = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final long stickyNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param stickyWindow cuánto tiempo después de escribir se sigue leyendo de la primaria;
+     *                     con el mismo valor que el retraso máximo tolerado, cuando se vuelve
+     *                     a una réplica esta ya tiene lo escrito
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReplicaLagMonitor lagMonitor, Duration stickyWindow) {
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.putAll(replicas);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        this.lagMonitor = lagMonitor;
+        this.stickyNanos = stickyWindow.toNanos();
+        afterPropertiesSet();
+    }
+
+    /**
+     * Olvida la última escritura del hilo; se llama al terminar cada request
+     */
+    public static void clearStickiness() {
+        lastWrite.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            lastWrite.set(System.nanoTime());
+            return PRIMARY;
+        }
+        if (isSticky()) {
+            // Una lectura después de escribir tiene que ver lo que se acaba de escribir
+            return PRIMARY;
+        }
+
+        List<String> healthy = lagMonitor.healthyReplicas();
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    private boolean isSticky() {
+        Long writtenAt = lastWrite.get();
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt < stickyNanos) {
+            return true;
+        }
+        lastWrite.remove();
+        return false;
+    }
+}
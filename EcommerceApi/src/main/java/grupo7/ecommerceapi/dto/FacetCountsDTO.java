@@ -0,0 +1,24 @@
+package grupo7.ecommerceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conteos por faceta de un filtro de productos. Cada faceta se cuenta con todos los filtros
+ * aplicados salvo el suyo, así el cliente puede mostrar cuántos productos suma cada opción.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetCountsDTO {
+    private Map<String, Integer> categories;
+    private List<PriceBandCountDTO> priceBands;
+    private int discounted;
+    private int inStock;
+}
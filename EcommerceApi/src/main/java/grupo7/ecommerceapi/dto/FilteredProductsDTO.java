@@ -0,0 +1,17 @@
+package grupo7.ecommerceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+/**
+ * Resultado de GET /products/filter: la página pedida y los conteos por faceta.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilteredProductsDTO {
+    private Page<ProductSummaryJson> products;
+    private FacetCountsDTO facets;
+}
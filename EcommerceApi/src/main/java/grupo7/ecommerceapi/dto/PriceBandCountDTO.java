@@ -0,0 +1,19 @@
+package grupo7.ecommerceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Cantidad de productos en una franja de precio [from, to). {@code to} es null en la última.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBandCountDTO {
+    private BigDecimal from;
+    private BigDecimal to;
+    private int count;
+}
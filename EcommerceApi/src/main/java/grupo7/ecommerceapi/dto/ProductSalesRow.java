@@ -0,0 +1,7 @@
+package grupo7.ecommerceapi.dto;
+
+/**
+ * Unidades vendidas de un producto, leídas con una proyección JPQL ({@code SELECT new ...}).
+ */
+public record ProductSalesRow(Long productId, Long quantity) {
+}
@@ -0,0 +1,61 @@
+package grupo7.ecommerceapi.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import grupo7.ecommerceapi.util.RawJson;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Elemento de un listado de productos. Se escribe igual que un {@link ProductSummaryDTO}:
+ * si el JSON estaba en caché se copian sus bytes; si no, el DTO se serializa una sola vez con el
+ * mismo ObjectMapper de la respuesta y el resultado se entrega a {@code onSerialized}.
+ */
+public final class ProductSummaryJson extends JsonSerializable.Base {
+
+    private final byte[] json;
+    private final ProductSummaryDTO summary;
+    private final Consumer<byte[]> onSerialized;
+
+    private ProductSummaryJson(byte[] json, ProductSummaryDTO summary, Consumer<byte[]> onSerialized) {
+        this.json = json;
+        this.summary = summary;
+        this.onSerialized = onSerialized;
+    }
+
+    public static ProductSummaryJson cached(byte[] json) {
+        return new ProductSummaryJson(json, null, null);
+    }
+
+    /**
+     * @param onSerialized recibe el JSON generado, o null si no hay que guardarlo
+     */
+    public static ProductSummaryJson of(ProductSummaryDTO summary, Consumer<byte[]> onSerialized) {
+        return new ProductSummaryJson(null, summary, onSerialized);
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (json != null) {
+            gen.writeRawValue(new RawJson(json));
+            return;
+        }
+        if (onSerialized == null || !(gen.getCodec() instanceof ObjectMapper objectMapper)) {
+            serializers.defaultSerializeValue(summary, gen);
+            return;
+        }
+        byte[] serialized = objectMapper.writeValueAsBytes(summary);
+        onSerialized.accept(serialized);
+        gen.writeRawValue(new RawJson(serialized));
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+}
@@ -0,0 +1,27 @@
+package grupo7.ecommerceapi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fila de un listado de productos leída con una proyección JPQL ({@code SELECT new ...}):
+ * solo las columnas que necesita {@link ProductSummaryDTO}, sin entidades administradas.
+ */
+public record ProductSummaryRow(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        BigDecimal discount,
+        String image,
+        Integer stock,
+        Boolean isActive,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long categoryId,
+        String categoryName,
+        String categoryDescription,
+        Boolean categoryIsActive,
+        LocalDateTime categoryCreatedAt,
+        LocalDateTime categoryUpdatedAt) {
+}
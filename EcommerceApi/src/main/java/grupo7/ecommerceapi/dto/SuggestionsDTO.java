@@ -0,0 +1,19 @@
+package grupo7.ecommerceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado de GET /products/suggest: categorías y productos cuyo nombre tiene alguna palabra
+ * que empieza con lo escrito, de más a menos populares.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionsDTO {
+    private List<SuggestionDTO> categories;
+    private List<SuggestionDTO> products;
+}
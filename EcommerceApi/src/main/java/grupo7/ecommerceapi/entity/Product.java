@@ -2,6 +2,7 @@ package grupo7.ecommerceapi.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import grupo7.ecommerceapi.cache.CacheRegions;
 import grupo7.ecommerceapi.entity.User;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
@@ -9,24 +10,43 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_active_discount", columnList = "is_active, has_discount"),
+        @Index(name = "idx_image_digest", columnList = "image_digest")
+})
+// El stock se escribe por JDBC: SecondLevelCache desaloja la entrada con cada ProductChangedEvent
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.PRODUCT)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Product {
 
+    // Último segmento de la URL con nombre direccionado por contenido: <digest>[.ext | _variante]
+    private static final Pattern CONTENT_ADDRESSED_IMAGE =
+            Pattern.compile("(?:^|/)([0-9a-f]{64})(?:[._][A-Za-z0-9._-]*)?(?:[?#].*)?$");
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -61,6 +81,13 @@ public class Product {
     @Column(name = "image", nullable = false, length = 500)
     private String image;
 
+    // Digest de la imagen si es direccionada por contenido (ver db/add_image_digest.sql): saber si
+    // un archivo compartido sigue en uso es una búsqueda por igualdad sobre un índice
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @Column(name = "image_digest", length = 64)
+    private String imageDigest;
+
     @NotNull(message = "El stock es requerido")
     @Min(value = 0, message = "El stock no puede ser negativo")
     @Column(name = "stock", nullable = false)
@@ -73,6 +100,26 @@ public class Product {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
+    // Precios derivados: se calculan al cambiar precio o descuento (y al cargar la entidad)
+    // para que los listados no repitan la aritmética de BigDecimal por cada producto.
+    // actual_price y has_discount se guardan como columnas (ver db/add_price_projections.sql).
+    @Setter(AccessLevel.NONE)
+    @Column(name = "actual_price", precision = 10, scale = 2)
+    private BigDecimal actualPrice;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "has_discount", nullable = false)
+    private boolean hasDiscount;
+
+    @JsonIgnore
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private ProductPricing priceView;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -92,29 +139,72 @@ public class Product {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderItem> orderItems;
 
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+        refreshPricing();
+    }
+
+    public void setDiscount(BigDecimal discount) {
+        this.discount = discount;
+        refreshPricing();
+    }
+
+    public void setImage(String image) {
+        this.image = image;
+        this.imageDigest = digestOf(image);
+    }
+
     // Métodos de utilidad
     public BigDecimal getActualPrice() {
-        return (discount != null && discount.compareTo(price) < 0) ? discount : price;
+        return pricing().actualPrice();
     }
 
     public boolean hasDiscount() {
-        return discount != null && discount.compareTo(price) < 0;
+        return pricing().hasDiscount();
     }
 
     public BigDecimal getDiscountPercentage() {
-        if (!hasDiscount()) {
-            return BigDecimal.ZERO;
-        }
-        return price.subtract(discount)
-                .divide(price, 2, java.math.RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
+        return pricing().discountPercentage();
     }
 
     public String getFormattedPrice() {
-        return "$" + price.setScale(2, java.math.RoundingMode.HALF_UP);
+        return pricing().formattedPrice();
     }
 
     public String getFormattedActualPrice() {
-        return "$" + getActualPrice().setScale(2, java.math.RoundingMode.HALF_UP);
+        return pricing().formattedActualPrice();
+    }
+
+    /**
+     * Recalcula los precios derivados. Hibernate asigna los campos directamente (sin pasar
+     * por los setters), por eso también se invoca al cargar y antes de guardar.
+     */
+    @PostLoad
+    @PrePersist
+    @PreUpdate
+    void refreshPricing() {
+        priceView = ProductPricing.of(price, discount);
+        actualPrice = priceView.actualPrice();
+        hasDiscount = priceView.hasDiscount();
+    }
+
+    /**
+     * Digest (64 caracteres hex) de una imagen direccionada por contenido, o null si la URL
+     * apunta a un archivo con otro nombre.
+     */
+    static String digestOf(String image) {
+        if (image == null) {
+            return null;
+        }
+        Matcher matcher = CONTENT_ADDRESSED_IMAGE.matcher(image);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private ProductPricing pricing() {
+        // Instancias armadas con el constructor completo no pasan por los setters
+        if (priceView == null || priceView.price() != price || priceView.discount() != discount) {
+            refreshPricing();
+        }
+        return priceView;
     }
 }
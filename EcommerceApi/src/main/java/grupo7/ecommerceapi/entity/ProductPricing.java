@@ -0,0 +1,28 @@
+package grupo7.ecommerceapi.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valores de precio derivados de un producto (precio final, descuento, textos con formato).
+ * Se calculan una vez por combinación de precio y descuento.
+ */
+public record ProductPricing(BigDecimal price, BigDecimal discount, BigDecimal actualPrice, boolean hasDiscount,
+                             BigDecimal discountPercentage, String formattedPrice, String formattedActualPrice) {
+
+    public static ProductPricing of(BigDecimal price, BigDecimal discount) {
+        if (price == null) {
+            return new ProductPricing(null, discount, null, false, BigDecimal.ZERO, null, null);
+        }
+        boolean hasDiscount = discount != null && discount.compareTo(price) < 0;
+        BigDecimal actualPrice = hasDiscount ? discount : price;
+        BigDecimal discountPercentage = hasDiscount
+                ? price.subtract(discount)
+                        .divide(price, 2, RoundingMode.HALF_UP)
+                        .multiply(BigDecimal.valueOf(100))
+                : BigDecimal.ZERO;
+        return new ProductPricing(price, discount, actualPrice, hasDiscount, discountPercentage,
+                "$" + price.setScale(2, RoundingMode.HALF_UP),
+                "$" + actualPrice.setScale(2, RoundingMode.HALF_UP));
+    }
+}
@@ -0,0 +1,8 @@
+package grupo7.ecommerceapi.event;
+
+/**
+ * Evento publicado cuando una categoría se crea, modifica o elimina.
+ * Los listeners lo reciben después del commit de la transacción.
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
@@ -0,0 +1,8 @@
+package grupo7.ecommerceapi.event;
+
+/**
+ * Evento publicado cuando un producto se crea, modifica, elimina o cambia su stock.
+ * Los listeners lo reciben después del commit de la transacción.
+ */
+public record ProductChangedEvent(Long productId) {
+}
@@ -0,0 +1,8 @@
+package grupo7.ecommerceapi.event;
+
+/**
+ * Evento publicado cuando un usuario se modifica o se da de baja.
+ * Los listeners lo reciben después del commit de la transacción.
+ */
+public record UserChangedEvent(Long userId) {
+}
@@ -0,0 +1,20 @@
+package grupo7.ecommerceapi.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Upload rechazado antes de terminar de leerse (tamaño excedido, formato no soportado, etc.)
+ */
+public class InvalidUploadException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public InvalidUploadException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
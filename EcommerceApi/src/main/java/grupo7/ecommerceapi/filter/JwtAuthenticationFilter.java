@@ -1,6 +1,8 @@
 package grupo7.ecommerceapi.filter;
 
+import grupo7.ecommerceapi.util.AuthenticatedUser;
 import grupo7.ecommerceapi.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,6 +17,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 import java.util.logging.Logger;
 
 @Component
@@ -33,7 +36,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Si no hay header Authorization o no empieza con "Bearer ", continuar sin
         // autenticación
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            logger.info("No Authorization header found for request: " + request.getRequestURI());
+            logger.fine(() -> "No Authorization header found for request: " + request.getRequestURI());
             filterChain.doFilter(request, response);
             return;
         }
@@ -42,22 +45,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Extraer el token (remover "Bearer " del header)
             final String jwt = authHeader.substring(7);
 
-            // Validar y extraer información del token
-            if (jwtUtil.validateToken(jwt)) {
-                String email = jwtUtil.extractEmail(jwt);
-                Long userId = jwtUtil.extractUserId(jwt);
-                logger.info("JWT validated successfully. Email: " + email + ", UserId: " + userId);
+            // Validar y extraer información del token (se parsea una sola vez por request)
+            Optional<Claims> claims = jwtUtil.parseToken(jwt);
+            if (claims.isPresent()) {
+                String email = claims.get().getSubject();
+                Long userId = jwtUtil.getUserId(claims.get());
+                String role = claims.get().get("role", String.class);
+                logger.fine(() -> "JWT validated successfully. Email: " + email + ", UserId: " + userId);
 
                 if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    // Crear autenticación
+                    // Crear autenticación con el principal completo: los controladores no
+                    // necesitan buscar al usuario en la base para saber quién llama.
+                    // El rol del token no otorga permisos: solo ROLE_USER
+                    AuthenticatedUser principal = new AuthenticatedUser(userId, email,
+                            role != null ? role : AuthenticatedUser.DEFAULT_ROLE);
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            email,
+                            principal,
                             null,
                             Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
 
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                    logger.info("Authentication set for user: " + email);
+                    logger.fine(() -> "Authentication set for user: " + email);
                 }
             } else {
                 logger.warning("JWT validation failed for request: " + request.getRequestURI());
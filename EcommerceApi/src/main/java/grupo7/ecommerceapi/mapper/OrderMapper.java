@@ -27,6 +27,16 @@ public class OrderMapper {
         if (order == null) {
             return null;
         }
+        return toResponse(order, order.getOrderItems(), order.getBillingAddresses(), order.getShippingAddresses());
+    }
+
+    /**
+     * Arma la respuesta con las colecciones recibidas en lugar de las del pedido,
+     * para pedidos recién creados cuyo grafo ya está en memoria.
+     */
+    public OrderResponseDTO toResponse(Order order, List<OrderItem> orderItems,
+                                       List<BillingAddress> billingAddresses,
+                                       List<ShippingAddress> shippingAddresses) {
 
         OrderResponseDTO dto = new OrderResponseDTO();
         dto.setId(order.getId());
@@ -35,9 +45,9 @@ public class OrderMapper {
         dto.setTotalAmount(order.getTotalAmount());
         dto.setCreatedAt(order.getCreatedAt());
         dto.setUpdatedAt(order.getUpdatedAt());
-        dto.setOrderItems(mapOrderItems(order.getOrderItems()));
-        dto.setBillingAddresses(mapBillingAddresses(order.getBillingAddresses()));
-        dto.setShippingAddresses(mapShippingAddresses(order.getShippingAddresses()));
+        dto.setOrderItems(mapOrderItems(orderItems));
+        dto.setBillingAddresses(mapBillingAddresses(billingAddresses));
+        dto.setShippingAddresses(mapShippingAddresses(shippingAddresses));
         return dto;
     }
 
@@ -4,8 +4,10 @@ import grupo7.ecommerceapi.dto.CategorySummaryDTO;
 import grupo7.ecommerceapi.dto.ProductResponseDTO;
 import grupo7.ecommerceapi.dto.ProductStockResponseDTO;
 import grupo7.ecommerceapi.dto.ProductSummaryDTO;
+import grupo7.ecommerceapi.dto.ProductSummaryRow;
 import grupo7.ecommerceapi.entity.Category;
 import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.entity.ProductPricing;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -59,6 +61,41 @@ public class ProductMapper {
                 .build();
     }
 
+    /**
+     * Resumen desde una fila proyectada; los precios derivados se calculan igual que en Product.
+     */
+    public ProductSummaryDTO toSummary(ProductSummaryRow row) {
+        if (row == null) {
+            return null;
+        }
+        ProductPricing pricing = ProductPricing.of(row.price(), row.discount());
+        return ProductSummaryDTO.builder()
+                .id(row.id())
+                .name(row.name())
+                .description(row.description())
+                .price(row.price())
+                .discount(row.discount())
+                .actualPrice(pricing.actualPrice())
+                .image(row.image())
+                .stock(row.stock())
+                .hasActiveDiscount(pricing.hasDiscount())
+                .isActive(row.isActive())
+                .category(row.categoryId() == null ? null : CategorySummaryDTO.builder()
+                        .id(row.categoryId())
+                        .name(row.categoryName())
+                        .description(row.categoryDescription())
+                        .isActive(row.categoryIsActive())
+                        .createdAt(row.categoryCreatedAt())
+                        .updatedAt(row.categoryUpdatedAt())
+                        .build())
+                .discountPercentage(pricing.discountPercentage())
+                .formattedPrice(pricing.formattedPrice())
+                .formattedActualPrice(pricing.formattedActualPrice())
+                .createdAt(row.createdAt())
+                .updatedAt(row.updatedAt())
+                .build();
+    }
+
     public ProductStockResponseDTO toStock(Product product) {
         if (product == null) {
             return null;
@@ -0,0 +1,40 @@
+package grupo7.ecommerceapi.outbox;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Tipos de agregado y de evento que se escriben en el outbox, con el contenido de cada uno
+ */
+public final class DomainEvents {
+
+    public static final String ORDER = "ORDER";
+    public static final String PRODUCT = "PRODUCT";
+
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+    public static final String PRODUCT_CHANGED = "PRODUCT_CHANGED";
+
+    private DomainEvents() {
+    }
+
+    /**
+     * @param quantities id de producto -> cantidad comprada
+     */
+    public record OrderPlaced(Long orderId, String orderNumber, Long userId, BigDecimal totalAmount,
+                              Map<Long, Integer> quantities) {
+    }
+
+    public record OrderStatusChanged(Long orderId, String orderNumber, String status) {
+    }
+
+    public record ProductChanged(Long productId, Change change) {
+    }
+
+    public enum Change {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK_ADJUSTED
+    }
+}
@@ -0,0 +1,16 @@
+package grupo7.ecommerceapi.outbox;
+
+import grupo7.ecommerceapi.entity.OutboxEvent;
+
+/**
+ * Destino de los eventos del outbox (notificaciones, analítica, reindexado, ...). Cada bean
+ * que implemente esta interfaz recibe los eventos que soporta, en orden por agregado.
+ * La entrega es "al menos una vez": si un handler falla, el evento se reintenta para todos
+ * los handlers que lo soportan, así que tienen que tolerar recibirlo de nuevo.
+ */
+public interface OutboxEventHandler {
+
+    boolean supports(String eventType);
+
+    void handle(OutboxEvent event) throws Exception;
+}
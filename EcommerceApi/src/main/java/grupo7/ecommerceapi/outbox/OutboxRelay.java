@@ -0,0 +1,214 @@
+package grupo7.ecommerceapi.outbox;
+
+import grupo7.ecommerceapi.entity.OutboxEvent;
+import grupo7.ecommerceapi.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Entrega en segundo plano los eventos pendientes del outbox a los {@link OutboxEventHandler}.
+ * Lee de a lotes y respeta el orden dentro de cada agregado: si un evento falla o espera su
+ * reintento, los siguientes del mismo agregado no se entregan antes que él. Los reintentos se
+ * espacian con backoff exponencial y, agotados, el evento queda como FAILED.
+ * Cada entrega corre en un hilo propio con un tiempo máximo ({@code outbox.relay.delivery-timeout}):
+ * un destino colgado cuenta como un intento fallido y no frena al scheduler, que comparte sus
+ * hilos con el resto de las tareas periódicas ({@code spring.task.scheduling.pool.size}).
+ * Con varias instancias de la API conviene que el relay corra solo en una.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = Logger.getLogger(OutboxRelay.class.getName());
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    // Entregas en curso como mucho: un handler que ignora la interrupción retiene su hilo
+    private static final int MAX_DELIVERY_THREADS = 4;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxEventHandler> handlers;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+    private final Duration deliveryTimeout;
+    private final ExecutorService deliveryExecutor;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       List<OutboxEventHandler> handlers,
+                       @Value("${outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${outbox.relay.initial-backoff:1s}") Duration initialBackoff,
+                       @Value("${outbox.relay.max-backoff:5m}") Duration maxBackoff,
+                       @Value("${outbox.retention:7d}") Duration retention,
+                       @Value("${outbox.relay.delivery-timeout:10s}") Duration deliveryTimeout) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.handlers = handlers;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+        this.deliveryTimeout = deliveryTimeout;
+        AtomicInteger threads = new AtomicInteger();
+        this.deliveryExecutor = new ThreadPoolExecutor(0, MAX_DELIVERY_THREADS, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), task -> {
+                    Thread thread = new Thread(task, "outbox-delivery-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:500ms}")
+    public void relayPending() {
+        if (!enabled) {
+            return;
+        }
+        // Si el lote vino lleno y se avanzó, hay más atrasados: se siguen drenando sin esperar
+        while (relayBatch()) {
+            // siguiente lote
+        }
+    }
+
+    /**
+     * Procesa un lote de pendientes
+     *
+     * @return true si conviene leer otro lote enseguida
+     */
+    boolean relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.findDue(OutboxEvent.Status.PENDING, now, Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        Set<String> blockedAggregates = new HashSet<>();
+        List<Long> delivered = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            if (blockedAggregates.contains(event.aggregateKey())) {
+                continue;
+            }
+            if (event.getNextAttemptAt() != null && event.getNextAttemptAt().isAfter(now)) {
+                blockedAggregates.add(event.aggregateKey());
+                continue;
+            }
+            if (deliver(event)) {
+                delivered.add(event.getId());
+            } else if (!recordFailure(event, now)) {
+                blockedAggregates.add(event.aggregateKey());
+            }
+        }
+
+        if (!delivered.isEmpty()) {
+            outboxEventRepository.markProcessed(delivered, OutboxEvent.Status.PROCESSED, now);
+        }
+        return batch.size() == batchSize && !delivered.isEmpty();
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval:1h}")
+    public void deleteProcessed() {
+        int deleted = outboxEventRepository.deleteProcessedBefore(
+                OutboxEvent.Status.PROCESSED, LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            logger.fine(() -> "Eventos de outbox procesados eliminados: " + deleted);
+        }
+    }
+
+    private boolean deliver(OutboxEvent event) {
+        Future<?> delivery;
+        try {
+            delivery = deliveryExecutor.submit(() -> {
+                for (OutboxEventHandler handler : handlers) {
+                    if (handler.supports(event.getEventType())) {
+                        handler.handle(event);
+                    }
+                }
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            // Todos los hilos siguen ocupados con entregas colgadas: se reintenta más tarde
+            return deliveryFailed(event, new IllegalStateException("No hay hilos libres para la entrega"));
+        }
+
+        try {
+            delivery.get(deliveryTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            delivery.cancel(true);
+            return deliveryFailed(event, new TimeoutException("La entrega superó " + deliveryTimeout));
+        } catch (ExecutionException e) {
+            return deliveryFailed(event, e.getCause());
+        } catch (InterruptedException e) {
+            delivery.cancel(true);
+            Thread.currentThread().interrupt();
+            return deliveryFailed(event, e);
+        }
+    }
+
+    private boolean deliveryFailed(OutboxEvent event, Throwable cause) {
+        event.setLastError(truncate(cause.toString()));
+        logger.log(Level.WARNING, "Falló la entrega del evento " + event.getId() + " ("
+                + event.getEventType() + " " + event.aggregateKey() + ")", cause);
+        return false;
+    }
+
+    /**
+     * Agenda el próximo intento, o da el evento por perdido si agotó los reintentos
+     *
+     * @return true si el evento quedó como FAILED (ya no bloquea a su agregado)
+     */
+    private boolean recordFailure(OutboxEvent event, LocalDateTime now) {
+        int attempts = event.getAttempts() + 1;
+        boolean exhausted = attempts >= maxAttempts;
+        OutboxEvent.Status status = exhausted ? OutboxEvent.Status.FAILED : OutboxEvent.Status.PENDING;
+        outboxEventRepository.recordFailure(event.getId(), status, attempts,
+                now.plus(backoff(attempts)), event.getLastError());
+        if (exhausted) {
+            logger.severe(() -> "Evento " + event.getId() + " descartado tras " + attempts + " intentos: "
+                    + event.getLastError());
+        }
+        return exhausted;
+    }
+
+    /**
+     * initialBackoff, el doble, el cuádruple... hasta maxBackoff
+     */
+    Duration backoff(int attempts) {
+        int doublings = Math.min(attempts - 1, 30);
+        Duration delay = initialBackoff.multipliedBy(1L << doublings);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
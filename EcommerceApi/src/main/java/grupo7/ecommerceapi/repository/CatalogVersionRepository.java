@@ -0,0 +1,34 @@
+package grupo7.ecommerceapi.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Versión del catálogo compartida por todas las instancias de la API: una única fila en
+ * {@code catalog_version} (ver db/add_catalog_version.sql). Fuera de una transacción, o en
+ * una que no es de solo lectura, se lee y escribe siempre en la primaria.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogVersionRepository {
+
+    // Crea la fila si todavía no existe
+    private static final String INCREMENT_SQL =
+            "INSERT INTO catalog_version (id, version) VALUES (1, 1) " +
+            "ON DUPLICATE KEY UPDATE version = version + 1";
+
+    private static final String SELECT_SQL = "SELECT version FROM catalog_version WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void increment() {
+        jdbcTemplate.update(INCREMENT_SQL);
+    }
+
+    public Optional<Long> current() {
+        return jdbcTemplate.query(SELECT_SQL, (row, index) -> row.getLong(1)).stream().findFirst();
+    }
+}
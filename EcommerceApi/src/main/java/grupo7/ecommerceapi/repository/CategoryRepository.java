@@ -1,8 +1,12 @@
 package grupo7.ecommerceapi.repository;
 
+import grupo7.ecommerceapi.cache.CacheRegions;
 import grupo7.ecommerceapi.entity.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -16,10 +20,20 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     boolean existsByName(String name);
 
+    // Se leen en cada carga de página y en cada alta/edición de producto: van a la caché de
+    // consultas, que Hibernate invalida sola cuando cambia la tabla categories
     @Query("SELECT c FROM Category c WHERE c.isActive = true")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATEGORY_QUERIES)
+    })
     List<Category> findAllActive();
 
     @Query("SELECT c FROM Category c WHERE c.name = :name AND c.isActive = true")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATEGORY_QUERIES)
+    })
     Optional<Category> findActiveByName(@Param("name") String name);
 
     @Query("SELECT c FROM Category c WHERE c.name LIKE %:name% AND c.isActive = true")
@@ -0,0 +1,158 @@
+package grupo7.ecommerceapi.repository;
+
+import grupo7.ecommerceapi.entity.BillingAddress;
+import grupo7.ecommerceapi.entity.OrderItem;
+import grupo7.ecommerceapi.entity.PaymentInfo;
+import grupo7.ecommerceapi.entity.ShippingAddress;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inserciones del checkout por JDBC. Con {@code GenerationType.IDENTITY} Hibernate no puede
+ * agrupar inserts, así que los ítems del pedido se envían acá en un solo lote y los ids
+ * generados se copian de vuelta a las entidades para poder armar la respuesta en memoria.
+ *
+ * <p>Como estos inserts no pasan por Hibernate, acá se hace lo que él haría al persistir:
+ * cada entidad se valida con Bean Validation antes de enviarse (y un error lanza la misma
+ * {@link ConstraintViolationException}) y {@code created_at} se completa explícitamente en
+ * lugar de con {@code @CreationTimestamp}.</p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderBatchRepository {
+
+    private static final String[] KEY_COLUMNS = {"id"};
+
+    private static final String INSERT_ORDER_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, quantity, unit_price, total_price, created_at) " +
+            "VALUES (:orderId, :productId, :quantity, :unitPrice, :totalPrice, :createdAt)";
+
+    private static final String INSERT_BILLING_ADDRESS_SQL =
+            "INSERT INTO billing_addresses (user_id, order_id, first_name, last_name, dni, address, city, " +
+            "postal_code, is_default, created_at, updated_at) VALUES (:userId, :orderId, :firstName, :lastName, " +
+            ":dni, :address, :city, :postalCode, :isDefault, :createdAt, :createdAt)";
+
+    private static final String INSERT_SHIPPING_ADDRESS_SQL =
+            "INSERT INTO shipping_addresses (user_id, order_id, first_name, last_name, address, city, " +
+            "postal_code, is_default, created_at, updated_at) VALUES (:userId, :orderId, :firstName, :lastName, " +
+            ":address, :city, :postalCode, :isDefault, :createdAt, :createdAt)";
+
+    private static final String INSERT_PAYMENT_INFO_SQL =
+            "INSERT INTO payment_info (order_id, card_number_encrypted, expiry_date, cvv_encrypted, " +
+            "cardholder_name, payment_method, created_at) VALUES (:orderId, :cardNumberEncrypted, :expiryDate, " +
+            ":cvvEncrypted, :cardholderName, :paymentMethod, :createdAt)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Validator validator;
+
+    /**
+     * Inserta todos los ítems en un único lote y les asigna el id generado.
+     */
+    public void insertOrderItems(List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        // Se valida todo antes de enviar el lote, para no dejar ítems a medio insertar
+        items.forEach(this::validate);
+        LocalDateTime now = LocalDateTime.now();
+        SqlParameterSource[] batch = new SqlParameterSource[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            item.setCreatedAt(now);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("orderId", item.getOrder().getId())
+                    .addValue("productId", item.getProduct().getId())
+                    .addValue("quantity", item.getQuantity())
+                    .addValue("unitPrice", item.getUnitPrice())
+                    .addValue("totalPrice", item.getTotalPrice())
+                    .addValue("createdAt", now);
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM_SQL, batch, keyHolder, KEY_COLUMNS);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < items.size() && i < keys.size(); i++) {
+            items.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    public void insertBillingAddress(BillingAddress address) {
+        validate(address);
+        LocalDateTime now = LocalDateTime.now();
+        address.setCreatedAt(now);
+        address.setUpdatedAt(now);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", address.getUser().getId())
+                .addValue("orderId", address.getOrder().getId())
+                .addValue("firstName", address.getFirstName())
+                .addValue("lastName", address.getLastName())
+                .addValue("dni", address.getDni())
+                .addValue("address", address.getAddress())
+                .addValue("city", address.getCity())
+                .addValue("postalCode", address.getPostalCode())
+                .addValue("isDefault", address.getIsDefault())
+                .addValue("createdAt", now);
+        address.setId(insert(INSERT_BILLING_ADDRESS_SQL, params));
+    }
+
+    public void insertShippingAddress(ShippingAddress address) {
+        validate(address);
+        LocalDateTime now = LocalDateTime.now();
+        address.setCreatedAt(now);
+        address.setUpdatedAt(now);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", address.getUser().getId())
+                .addValue("orderId", address.getOrder().getId())
+                .addValue("firstName", address.getFirstName())
+                .addValue("lastName", address.getLastName())
+                .addValue("address", address.getAddress())
+                .addValue("city", address.getCity())
+                .addValue("postalCode", address.getPostalCode())
+                .addValue("isDefault", address.getIsDefault())
+                .addValue("createdAt", now);
+        address.setId(insert(INSERT_SHIPPING_ADDRESS_SQL, params));
+    }
+
+    public void insertPaymentInfo(PaymentInfo paymentInfo) {
+        validate(paymentInfo);
+        LocalDateTime now = LocalDateTime.now();
+        paymentInfo.setCreatedAt(now);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("orderId", paymentInfo.getOrder().getId())
+                .addValue("cardNumberEncrypted", paymentInfo.getCardNumberEncrypted())
+                .addValue("expiryDate", paymentInfo.getExpiryDate())
+                .addValue("cvvEncrypted", paymentInfo.getCvvEncrypted())
+                .addValue("cardholderName", paymentInfo.getCardholderName())
+                .addValue("paymentMethod", paymentInfo.getPaymentMethod())
+                .addValue("createdAt", now);
+        paymentInfo.setId(insert(INSERT_PAYMENT_INFO_SQL, params));
+    }
+
+    private void validate(Object entity) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(entity);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+    }
+
+    private Long insert(String sql, SqlParameterSource params) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(sql, params, keyHolder, KEY_COLUMNS);
+        Number key = keyHolder.getKey();
+        return key != null ? key.longValue() : null;
+    }
+}
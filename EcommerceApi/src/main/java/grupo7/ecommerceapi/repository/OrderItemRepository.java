@@ -1,6 +1,8 @@
 package grupo7.ecommerceapi.repository;
 
+import grupo7.ecommerceapi.dto.ProductSalesRow;
 import grupo7.ecommerceapi.entity.OrderItem;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,6 +13,7 @@ import java.util.List;
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
+    @EntityGraph(attributePaths = {"product", "product.category"})
     List<OrderItem> findByOrderId(Long orderId);
 
     @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id = :orderId")
@@ -22,6 +25,11 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @Query("SELECT SUM(oi.quantity) FROM OrderItem oi WHERE oi.product.id = :productId")
     Integer sumQuantityByProduct(@Param("productId") Long productId);
 
+    // Unidades vendidas de cada producto (popularidad del autocompletado)
+    @Query("SELECT new grupo7.ecommerceapi.dto.ProductSalesRow(oi.product.id, SUM(oi.quantity)) " +
+           "FROM OrderItem oi GROUP BY oi.product.id")
+    List<ProductSalesRow> sumQuantityGroupedByProduct();
+
     @Query("SELECT SUM(oi.totalPrice) FROM OrderItem oi WHERE oi.order.id = :orderId")
     Double sumTotalPriceByOrder(@Param("orderId") Long orderId);
 }
@@ -1,16 +1,22 @@
 package grupo7.ecommerceapi.repository;
 
 import grupo7.ecommerceapi.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -27,6 +33,13 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.status = :status")
     List<Order> findByStatus(@Param("status") Order.OrderStatus status);
 
+    // Exportación: se recorre por páginas de clave (id > último id leído) en lugar de con un
+    // cursor, porque entre página y página se cargan los grafos con otras consultas
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    @Query("SELECT o FROM Order o WHERE o.status = :status AND o.id > :afterId ORDER BY o.id")
+    List<Order> findByStatusAfterId(@Param("status") Order.OrderStatus status, @Param("afterId") long afterId,
+                                    Limit limit);
+
     @Query("SELECT o FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate")
     List<Order> findByDateRange(@Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
@@ -44,4 +57,16 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND o.orderNumber = :orderNumber")
     Optional<Order> findByUserAndOrderNumber(@Param("userId") Long userId,
             @Param("orderNumber") String orderNumber);
+
+    // Carga del grafo de pedidos por lotes de ids: una consulta por colección,
+    // sin importar cuántos pedidos haya (evita N+1 y el producto cartesiano de varios JOIN FETCH)
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product p " +
+            "LEFT JOIN FETCH p.category WHERE o.id IN :ids")
+    List<Order> fetchOrderItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.billingAddresses WHERE o.id IN :ids")
+    List<Order> fetchBillingAddressesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.shippingAddresses WHERE o.id IN :ids")
+    List<Order> fetchShippingAddressesByIdIn(@Param("ids") Collection<Long> ids);
 }
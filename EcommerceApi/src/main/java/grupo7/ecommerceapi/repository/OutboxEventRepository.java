@@ -0,0 +1,52 @@
+package grupo7.ecommerceapi.repository;
+
+import grupo7.ecommerceapi.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Pendientes cuyo intento ya venció, en orden de inserción. Se saltean los de un agregado
+    // con un evento anterior esperando su reintento (el relay respeta el orden por agregado),
+    // así los que esperan no ocupan el lote ni frenan a los demás agregados
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now " +
+            "AND NOT EXISTS (SELECT b.id FROM OutboxEvent b WHERE b.aggregateType = e.aggregateType " +
+            "AND b.aggregateId = e.aggregateId AND b.id < e.id AND b.status = :status " +
+            "AND b.nextAttemptAt > :now) " +
+            "ORDER BY e.id")
+    List<OutboxEvent> findDue(@Param("status") OutboxEvent.Status status,
+                              @Param("now") LocalDateTime now,
+                              Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids,
+                      @Param("status") OutboxEvent.Status status,
+                      @Param("processedAt") LocalDateTime processedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.attempts = :attempts, " +
+            "e.nextAttemptAt = :nextAttemptAt, e.lastError = :lastError WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id,
+                      @Param("status") OutboxEvent.Status status,
+                      @Param("attempts") int attempts,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                      @Param("lastError") String lastError);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") OutboxEvent.Status status, @Param("before") LocalDateTime before);
+}
@@ -1,20 +1,40 @@
 package grupo7.ecommerceapi.repository;
 
+import grupo7.ecommerceapi.dto.ProductSummaryRow;
 import grupo7.ecommerceapi.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Proyección para listados: columnas del resumen directo a un record, sin hidratar
+    // entidades (ni contexto de persistencia, ni dirty checking, ni proxies)
+    String SUMMARY_SELECT = "SELECT new grupo7.ecommerceapi.dto.ProductSummaryRow(" +
+            "p.id, p.name, p.description, p.price, p.discount, p.image, p.stock, p.isActive, " +
+            "p.createdAt, p.updatedAt, c.id, c.name, c.description, c.isActive, c.createdAt, c.updatedAt) " +
+            "FROM Product p JOIN p.category c ";
     
+
     // Búsqueda por categoría
     @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.isActive = true")
     Page<Product> findByCategoryIdAndActiveTrue(@Param("categoryId") Long categoryId, Pageable pageable);
@@ -29,7 +49,8 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<Product> findBySearchTermAndActiveTrue(@Param("searchTerm") String searchTerm, Pageable pageable);
     
     // Productos con descuento
-    @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.discount IS NOT NULL AND p.discount < p.price")
+    // has_discount se mantiene desde la entidad y está indexado junto con is_active
+    @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.hasDiscount = true")
     Page<Product> findDiscountedProducts(Pageable pageable);
     
     // Filtros por precio
@@ -55,9 +76,17 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.isActive = true")
     Page<Product> findAllActive(Pageable pageable);
     
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.isActive = true")
+    List<Product> findAllActiveWithCategory();
+    
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id = :id AND p.isActive = true")
     Optional<Product> findActiveById(@Param("id") Long id);
     
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id IN :ids AND p.isActive = true")
+    List<Product> findActiveByIdIn(@Param("ids") Collection<Long> ids);
+
+    boolean existsByImageDigest(String imageDigest);
+    
     // Búsqueda combinada (categoría + texto)
     @Query("SELECT p FROM Product p WHERE p.isActive = true AND " +
            "p.category.name = :categoryName AND " +
@@ -75,7 +104,46 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.stock <= :threshold")
     List<Product> findLowStockProducts(@Param("threshold") Integer threshold);
     
+    // Exportación de stock bajo: proyección recorrida fila por fila, sin entidades en el contexto.
+    // Con fetch size Integer.MIN_VALUE el driver de MySQL transmite el resultado solo para esta
+    // sentencia; mientras tanto la conexión no puede ejecutar otras consultas
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(SUMMARY_SELECT + "WHERE p.isActive = true AND p.stock <= :threshold ORDER BY p.id")
+    Stream<ProductSummaryRow> streamLowStockSummaries(@Param("threshold") Integer threshold);
+    
     // Productos por usuario (creador)
     @Query("SELECT p FROM Product p WHERE p.createdBy.id = :userId AND p.isActive = true")
     Page<Product> findByCreatedByIdAndActiveTrue(@Param("userId") Long userId, Pageable pageable);
+    
+    // Listados proyectados (ver SUMMARY_SELECT)
+    @Query(value = SUMMARY_SELECT + "WHERE p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true")
+    Page<ProductSummaryRow> findActiveSummaries(Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE c.name = :categoryName AND p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.name = :categoryName AND p.isActive = true")
+    Page<ProductSummaryRow> findActiveSummariesByCategoryName(@Param("categoryName") String categoryName,
+                                                              Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE p.isActive = true AND p.hasDiscount = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.hasDiscount = true")
+    Page<ProductSummaryRow> findDiscountedSummaries(Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE p.isActive = true AND p.price BETWEEN :minPrice AND :maxPrice",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true " +
+                   "AND p.price BETWEEN :minPrice AND :maxPrice")
+    Page<ProductSummaryRow> findActiveSummariesByPriceRange(@Param("minPrice") BigDecimal minPrice,
+                                                            @Param("maxPrice") BigDecimal maxPrice,
+                                                            Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE p.createdBy.id = :userId AND p.isActive = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.createdBy.id = :userId AND p.isActive = true")
+    Page<ProductSummaryRow> findActiveSummariesByCreatedById(@Param("userId") Long userId, Pageable pageable);
+    
+    // Paginación por keyset (sin OFFSET ni COUNT)
+    Window<Product> findByIsActiveTrue(ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Product> findByCategoryNameAndIsActiveTrue(String categoryName, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Product> findByCreatedByIdAndIsActiveTrue(Long userId, ScrollPosition position, Sort sort, Limit limit);
 }
@@ -0,0 +1,117 @@
+package grupo7.ecommerceapi.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Operaciones de stock por JDBC. Cada descuento es un UPDATE condicional (solo se aplica
+ * si alcanza el stock), así que no hace falta leer ni guardar el producto antes.
+ * updated_at se escribe con microsegundos porque es la versión de la fila para ProductJsonCache.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductStockRepository {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock = stock - ?, updated_at = CURRENT_TIMESTAMP(6) " +
+            "WHERE id = ? AND is_active = true AND stock >= ?";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE products SET stock = stock + ?, updated_at = CURRENT_TIMESTAMP(6) WHERE id = ?";
+
+    // Conciliación del contador en memoria: ventas ya confirmadas, aunque el producto se haya desactivado
+    private static final String DECREMENT_CONFIRMED_SQL =
+            "UPDATE products SET stock = stock - ?, updated_at = CURRENT_TIMESTAMP(6) WHERE id = ? AND stock >= ?";
+
+    private static final String ADJUST_SQL =
+            "UPDATE products SET stock = stock + ?, updated_at = CURRENT_TIMESTAMP(6) " +
+            "WHERE id = ? AND is_active = true AND stock + ? >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Descuenta las cantidades pedidas en un único lote. Las filas se actualizan ordenadas
+     * por id para que dos checkouts concurrentes tomen los bloqueos en el mismo orden.
+     *
+     * @param quantities id de producto -> cantidad a descontar
+     * @return ids de los productos que no pudieron descontarse (inexistentes, inactivos o sin stock)
+     */
+    public List<Long> decrementAll(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+
+        return rejected(lines, batch(DECREMENT_SQL, lines, true));
+    }
+
+    /**
+     * Devuelve al stock las cantidades indicadas (reservas liberadas).
+     */
+    public void incrementAll(Map<Long, Integer> quantities) {
+        if (!quantities.isEmpty()) {
+            batch(INCREMENT_SQL, new ArrayList<>(new TreeMap<>(quantities).entrySet()), false);
+        }
+    }
+
+    /**
+     * Descuenta ventas ya confirmadas. Una fila que quedaría con stock negativo no se toca:
+     * significa que se vendió más de lo que había en MySQL y quien llama debe reportarlo.
+     *
+     * @return ids de los productos que no pudieron descontarse
+     */
+    public List<Long> decrementConfirmed(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        return rejected(lines, batch(DECREMENT_CONFIRMED_SQL, lines, true));
+    }
+
+    /**
+     * Suma {@code delta} al stock en una sola sentencia, solo si el resultado no queda negativo.
+     *
+     * @return true si se actualizó la fila
+     */
+    public boolean adjust(Long productId, int delta) {
+        return jdbcTemplate.update(ADJUST_SQL, delta, productId, delta) > 0;
+    }
+
+    private static List<Long> rejected(List<Map.Entry<Long, Integer>> lines, int[] updated) {
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                rejected.add(lines.get(i).getKey());
+            }
+        }
+        return rejected;
+    }
+
+    private int[] batch(String sql, List<Map.Entry<Long, Integer>> lines, boolean repeatQuantity) {
+        return jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                ps.setLong(2, line.getKey());
+                if (repeatQuantity) {
+                    ps.setInt(3, line.getValue());
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+    }
+}
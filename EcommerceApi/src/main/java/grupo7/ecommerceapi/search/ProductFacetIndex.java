@@ -0,0 +1,470 @@
+package grupo7.ecommerceapi.search;
+
+import grupo7.ecommerceapi.catalog.CatalogVersion;
+import grupo7.ecommerceapi.catalog.RefreshTickets;
+import grupo7.ecommerceapi.dto.FacetCountsDTO;
+import grupo7.ecommerceapi.dto.PriceBandCountDTO;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Índice de facetas en memoria sobre los productos activos: un bitmap por categoría, por
+ * "tiene descuento", por "tiene stock" y por franja de precio. Cada producto recibe un ordinal
+ * denso (su bit), así que cualquier combinación de filtros se resuelve intersecando bitmaps y los
+ * conteos por faceta salen de la misma consulta con {@link Bitmap#andCardinality}.
+ * Se mantiene de forma incremental a partir de los {@link ProductChangedEvent}; la base se lee
+ * sin bloqueo y solo se publica la lectura más nueva de cada producto ({@link RefreshTickets}).
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductFacetIndex.class.getName());
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    // Límites entre franjas, ascendentes: [0, b0), [b0, b1), ..., [bn, ∞)
+    private final BigDecimal[] bandBounds;
+    private final RefreshTickets tickets = new RefreshTickets();
+
+    private volatile State state;
+    private volatile boolean loaded;
+
+    /**
+     * Filtros de una consulta. Las categorías se combinan con OR entre sí y con AND con el resto;
+     * los precios son inclusivos, como en /products/price-range.
+     */
+    public record Filter(Set<String> categories, boolean discountedOnly, boolean inStockOnly,
+                         BigDecimal minPrice, BigDecimal maxPrice) {
+    }
+
+    public record Result(Page<Long> ids, FacetCountsDTO facets) {
+    }
+
+    private record Entry(Long id, String name, BigDecimal price, String category,
+                         boolean discounted, boolean inStock, int band) {
+    }
+
+    /**
+     * Foto inmutable del índice; las actualizaciones arman una nueva y la publican de una vez.
+     * Los ordinales de productos eliminados quedan libres hasta la próxima reconstrucción.
+     */
+    private record State(Map<Long, Integer> ordinals, Entry[] entries, Bitmap active, Bitmap discounted,
+                         Bitmap inStock, Map<String, Bitmap> categories, Map<String, String> categoryNames,
+                         Bitmap[] bands) {
+    }
+
+    public ProductFacetIndex(ProductRepository productRepository,
+                             @Value("${search.facets.enabled:true}") boolean enabled,
+                             @Value("${search.facets.price-bands:25,50,100,250}") String[] priceBands) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        this.bandBounds = Arrays.stream(priceBands)
+                .map(String::trim)
+                .map(BigDecimal::new)
+                .sorted()
+                .distinct()
+                .toArray(BigDecimal[]::new);
+        this.state = build(List.of());
+    }
+
+    /**
+     * Indica si el índice está habilitado, cargado y puede resolver el orden pedido.
+     */
+    public boolean canServe(Pageable pageable) {
+        return enabled && loaded && supports(pageable.getSort());
+    }
+
+    public int size() {
+        return state.active().cardinality();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            reindex();
+        }
+    }
+
+    /**
+     * Reconstruye el índice completo (y compacta los ordinales) y lo publica de una sola vez.
+     */
+    public void rebuild(List<Product> products) {
+        applyRebuild(tickets.next(), products);
+    }
+
+    /**
+     * Reindexa un producto. Si {@code product} es null o está inactivo, se quita del índice.
+     */
+    public void update(Long productId, Product product) {
+        applyUpdate(tickets.next(), productId, product);
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        long ticket = tickets.next();
+        applyUpdate(ticket, event.productId(), productRepository.findActiveById(event.productId()).orElse(null));
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        reindex();
+    }
+
+    private void reindex() {
+        long ticket = tickets.next();
+        applyRebuild(ticket, productRepository.findAllActiveWithCategory());
+    }
+
+    private synchronized void applyRebuild(long ticket, List<Product> products) {
+        if (!tickets.acceptReload(ticket)) {
+            return;
+        }
+        State current = state;
+        State rebuilt = build(products);
+        // Los productos leídos después que la reconstrucción se conservan como estaban
+        for (Long productId : tickets.newerThanReload()) {
+            Integer ordinal = current.ordinals().get(productId);
+            Entry kept = ordinal != null ? current.entries()[ordinal] : null;
+            String categoryName = kept != null ? current.categoryNames().get(kept.category()) : null;
+            rebuilt = withEntry(rebuilt, productId, kept, categoryName);
+        }
+        state = rebuilt;
+        loaded = true;
+        logger.info("Índice de facetas construido con " + rebuilt.active().cardinality() + " productos y "
+                + rebuilt.categories().size() + " categorías");
+    }
+
+    private synchronized void applyUpdate(long ticket, Long productId, Product product) {
+        if (tickets.acceptProduct(productId, ticket)) {
+            Entry next = entry(product);
+            state = withEntry(state, productId, next, next != null && next.category() != null
+                    ? product.getCategory().getName() : null);
+        }
+    }
+
+    /**
+     * Estado con la entrada del producto reemplazada (null la quita).
+     *
+     * @param categoryName nombre para mostrar de la categoría de {@code next}
+     */
+    private State withEntry(State current, Long productId, Entry next, String categoryName) {
+        Integer ordinal = current.ordinals().get(productId);
+        Entry previous = ordinal != null ? current.entries()[ordinal] : null;
+        // La mayoría de los eventos (ventas, ediciones de descripción) no cambian ninguna faceta
+        if (Objects.equals(previous, next)) {
+            return current;
+        }
+
+        Map<Long, Integer> ordinals = current.ordinals();
+        int bit = ordinal != null ? ordinal : current.entries().length;
+        if (ordinal == null) {
+            ordinals = new HashMap<>(ordinals);
+            ordinals.put(productId, bit);
+        }
+        Entry[] entries = Arrays.copyOf(current.entries(), Math.max(current.entries().length, bit + 1));
+        entries[bit] = next;
+
+        Map<String, Bitmap> categories = new TreeMap<>(current.categories());
+        Map<String, String> categoryNames = current.categoryNames();
+        Bitmap[] bands = current.bands().clone();
+        if (previous != null) {
+            if (previous.category() != null) {
+                categories.computeIfPresent(previous.category(), (key, bitmap) -> bitmap.without(bit));
+            }
+            bands[previous.band()] = bands[previous.band()].without(bit);
+        }
+        if (next != null) {
+            if (next.category() != null) {
+                categories.merge(next.category(), Bitmap.EMPTY.with(bit), (bitmap, ignored) -> bitmap.with(bit));
+                if (categoryName != null && !categoryName.equals(categoryNames.get(next.category()))) {
+                    categoryNames = new HashMap<>(categoryNames);
+                    categoryNames.put(next.category(), categoryName);
+                }
+            }
+            bands[next.band()] = bands[next.band()].with(bit);
+        }
+
+        return new State(ordinals, entries,
+                set(current.active(), bit, next != null),
+                set(current.discounted(), bit, next != null && next.discounted()),
+                set(current.inStock(), bit, next != null && next.inStock()),
+                categories, categoryNames, bands);
+    }
+
+    /**
+     * Aplica los filtros y devuelve la página de ids pedida junto con los conteos por faceta.
+     *
+     * @param textMatches ids que coinciden con la búsqueda de texto, o null si no hay búsqueda
+     */
+    public Result filter(Filter filter, Collection<Long> textMatches, Pageable pageable) {
+        State current = state;
+
+        Bitmap base = current.active();
+        if (textMatches != null) {
+            BitSet matches = new BitSet(current.entries().length);
+            for (Long id : textMatches) {
+                Integer ordinal = current.ordinals().get(id);
+                if (ordinal != null) {
+                    matches.set(ordinal);
+                }
+            }
+            base = base.and(Bitmap.of(matches));
+        }
+
+        Bitmap category = categoryConstraint(current, filter.categories());
+        Bitmap price = priceConstraint(current, filter.minPrice(), filter.maxPrice());
+        Bitmap discounted = filter.discountedOnly() ? current.discounted() : null;
+        Bitmap inStock = filter.inStockOnly() ? current.inStock() : null;
+
+        Bitmap result = and(base, category, price, discounted, inStock);
+
+        // Cada faceta se cuenta sin su propio filtro; si ese filtro no se pidió, es el resultado
+        Bitmap withoutCategory = category == null ? result : and(base, price, discounted, inStock);
+        Bitmap withoutPrice = price == null ? result : and(base, category, discounted, inStock);
+        Bitmap withoutDiscounted = discounted == null ? result : and(base, category, price, inStock);
+        Bitmap withoutInStock = inStock == null ? result : and(base, category, price, discounted);
+
+        Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+        current.categories().forEach((key, bitmap) -> {
+            int count = withoutCategory.andCardinality(bitmap);
+            if (count > 0) {
+                categoryCounts.put(current.categoryNames().get(key), count);
+            }
+        });
+        List<PriceBandCountDTO> bandCounts = new ArrayList<>(current.bands().length);
+        for (int band = 0; band < current.bands().length; band++) {
+            bandCounts.add(new PriceBandCountDTO(lowerBound(band), upperBound(band),
+                    withoutPrice.andCardinality(current.bands()[band])));
+        }
+
+        FacetCountsDTO facets = FacetCountsDTO.builder()
+                .categories(categoryCounts)
+                .priceBands(bandCounts)
+                .discounted(withoutDiscounted.andCardinality(current.discounted()))
+                .inStock(withoutInStock.andCardinality(current.inStock()))
+                .build();
+        return new Result(page(current, result, pageable), facets);
+    }
+
+    private State build(List<Product> products) {
+        List<Entry> entries = new ArrayList<>(products.size());
+        Map<Long, Integer> ordinals = new HashMap<>();
+        BitSet active = new BitSet();
+        BitSet discounted = new BitSet();
+        BitSet inStock = new BitSet();
+        Map<String, BitSet> categories = new TreeMap<>();
+        Map<String, String> categoryNames = new HashMap<>();
+        BitSet[] bands = new BitSet[bandBounds.length + 1];
+        Arrays.setAll(bands, band -> new BitSet());
+
+        for (Product product : products) {
+            Entry entry = entry(product);
+            if (entry == null || ordinals.containsKey(entry.id())) {
+                continue;
+            }
+            int bit = entries.size();
+            entries.add(entry);
+            ordinals.put(entry.id(), bit);
+            active.set(bit);
+            discounted.set(bit, entry.discounted());
+            inStock.set(bit, entry.inStock());
+            bands[entry.band()].set(bit);
+            if (entry.category() != null) {
+                categories.computeIfAbsent(entry.category(), key -> new BitSet()).set(bit);
+                categoryNames.putIfAbsent(entry.category(), product.getCategory().getName());
+            }
+        }
+
+        Map<String, Bitmap> categoryBitmaps = new TreeMap<>();
+        categories.forEach((key, bits) -> categoryBitmaps.put(key, Bitmap.of(bits)));
+        return new State(ordinals, entries.toArray(Entry[]::new), Bitmap.of(active), Bitmap.of(discounted),
+                Bitmap.of(inStock), categoryBitmaps, categoryNames,
+                Arrays.stream(bands).map(Bitmap::of).toArray(Bitmap[]::new));
+    }
+
+    private Entry entry(Product product) {
+        if (product == null || product.getId() == null || !Boolean.TRUE.equals(product.getIsActive())) {
+            return null;
+        }
+        String category = product.getCategory() != null ? TextNormalizer.fold(product.getCategory().getName()) : null;
+        BigDecimal price = product.getPrice() != null ? product.getPrice() : BigDecimal.ZERO;
+        return new Entry(product.getId(), TextNormalizer.fold(product.getName()), price, category,
+                product.hasDiscount(), product.getStock() != null && product.getStock() > 0, band(price));
+    }
+
+    private int band(BigDecimal price) {
+        int band = 0;
+        while (band < bandBounds.length && price.compareTo(bandBounds[band]) >= 0) {
+            band++;
+        }
+        return band;
+    }
+
+    private BigDecimal lowerBound(int band) {
+        return band == 0 ? BigDecimal.ZERO : bandBounds[band - 1];
+    }
+
+    private BigDecimal upperBound(int band) {
+        return band < bandBounds.length ? bandBounds[band] : null;
+    }
+
+    private static Bitmap categoryConstraint(State current, Set<String> names) {
+        if (names == null || names.isEmpty()) {
+            return null;
+        }
+        Bitmap constraint = Bitmap.EMPTY;
+        for (String name : names) {
+            Bitmap bitmap = current.categories().get(TextNormalizer.fold(name.trim()));
+            if (bitmap != null) {
+                constraint = constraint.or(bitmap);
+            }
+        }
+        return constraint;
+    }
+
+    /**
+     * Une las franjas que caen enteras dentro de [min, max] y, de las franjas de los extremos,
+     * solo los productos cuyo precio está en el rango.
+     */
+    private Bitmap priceConstraint(State current, BigDecimal min, BigDecimal max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        Bitmap constraint = Bitmap.EMPTY;
+        BitSet partial = new BitSet();
+        for (int band = 0; band < current.bands().length; band++) {
+            BigDecimal lower = lowerBound(band);
+            BigDecimal upper = upperBound(band);
+            boolean disjoint = (min != null && upper != null && upper.compareTo(min) <= 0)
+                    || (max != null && lower.compareTo(max) > 0);
+            if (disjoint) {
+                continue;
+            }
+            boolean contained = (min == null || lower.compareTo(min) >= 0)
+                    && (max == null || (upper != null && upper.compareTo(max) <= 0));
+            if (contained) {
+                constraint = constraint.or(current.bands()[band]);
+            } else {
+                current.bands()[band].forEach(bit -> {
+                    BigDecimal price = current.entries()[bit].price();
+                    if ((min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0)) {
+                        partial.set(bit);
+                    }
+                });
+            }
+        }
+        return constraint.or(Bitmap.of(partial));
+    }
+
+    private static Bitmap and(Bitmap base, Bitmap... constraints) {
+        Bitmap result = base;
+        for (Bitmap constraint : constraints) {
+            if (constraint != null) {
+                result = result.and(constraint);
+            }
+        }
+        return result;
+    }
+
+    private static Bitmap set(Bitmap bitmap, int bit, boolean value) {
+        return value ? bitmap.with(bit) : bitmap.without(bit);
+    }
+
+    /**
+     * Ordena solo lo necesario para la página pedida: mantiene los {@code offset + size}
+     * primeros en un heap acotado en lugar de ordenar todo el resultado.
+     */
+    private static Page<Long> page(State current, Bitmap result, Pageable pageable) {
+        int total = result.cardinality();
+        if (pageable.isPaged() && pageable.getOffset() >= total) {
+            return new PageImpl<>(List.of(), pageable, total);
+        }
+        int limit = pageable.isPaged() ? (int) Math.min(pageable.getOffset() + pageable.getPageSize(), total) : total;
+        Comparator<Entry> comparator = comparator(pageable.getSort());
+
+        PriorityQueue<Entry> top = new PriorityQueue<>(Math.max(1, limit), comparator.reversed());
+        result.forEach(bit -> {
+            Entry entry = current.entries()[bit];
+            if (top.size() < limit) {
+                top.add(entry);
+            } else if (comparator.compare(entry, top.peek()) < 0) {
+                top.poll();
+                top.add(entry);
+            }
+        });
+
+        List<Entry> sorted = new ArrayList<>(top);
+        sorted.sort(comparator);
+        int from = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+        List<Long> ids = sorted.subList(from, sorted.size()).stream()
+                .map(Entry::id)
+                .toList();
+        return new PageImpl<>(ids, pageable, total);
+    }
+
+    /**
+     * Órdenes que puede resolver el índice: sin orden o por un único campo entre id, name y price
+     */
+    public static boolean supports(Sort sort) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != 1) {
+            return false;
+        }
+        String property = orders.get(0).getProperty();
+        return "id".equals(property) || "name".equals(property) || "price".equals(property);
+    }
+
+    private static Comparator<Entry> comparator(Sort sort) {
+        Comparator<Entry> byId = Comparator.comparing(Entry::id);
+        Sort.Order order = sort.isSorted() ? sort.iterator().next() : null;
+        if (order == null) {
+            return byId;
+        }
+        Comparator<Entry> comparator = switch (order.getProperty()) {
+            case "name" -> Comparator.comparing(Entry::name).thenComparing(byId);
+            case "price" -> Comparator.comparing(Entry::price).thenComparing(byId);
+            default -> byId;
+        };
+        return order.isDescending() ? comparator.reversed() : comparator;
+    }
+}
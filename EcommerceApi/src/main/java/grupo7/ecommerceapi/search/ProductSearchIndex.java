@@ -0,0 +1,332 @@
+package grupo7.ecommerceapi.search;
+
+import grupo7.ecommerceapi.catalog.CatalogVersion;
+import grupo7.ecommerceapi.catalog.RefreshTickets;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Logger;
+
+/**
+ * Índice invertido en memoria sobre el nombre y la descripción de los productos activos.
+ * Reemplaza las búsquedas {@code LIKE '%término%'} (que recorren toda la tabla) por
+ * búsquedas por término con plegado de acentos y ranking por relevancia. Todos los términos de
+ * la consulta tienen que coincidir completos salvo el último, que puede estar incompleto (se
+ * busca por prefijo, con todos los términos que empiezan así).
+ * Se mantiene de forma incremental a partir de los {@link ProductChangedEvent}; la base se lee
+ * sin bloqueo y solo se publica la lectura más nueva de cada producto ({@link RefreshTickets}).
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductSearchIndex.class.getName());
+
+    static final String RELEVANCE = "relevance";
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final RefreshTickets tickets = new RefreshTickets();
+
+    // término -> (id de producto -> peso del término en el producto)
+    private volatile ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    private volatile Map<Long, IndexedProduct> documents = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    private record IndexedProduct(Long id, String name, BigDecimal price, String category, Set<String> terms) {
+    }
+
+    private record Hit(IndexedProduct product, float score) {
+    }
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              @Value("${search.index.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Indica si el índice está habilitado, cargado y puede resolver el orden pedido.
+     */
+    public boolean canServe(Pageable pageable) {
+        return isAvailable() && supports(pageable.getSort());
+    }
+
+    /**
+     * Indica si el índice está habilitado y cargado (sin importar el orden pedido).
+     */
+    public boolean isAvailable() {
+        return enabled && loaded;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            reindex();
+        }
+    }
+
+    /**
+     * Reconstruye el índice completo y lo publica de una sola vez,
+     * sin dejar a los lectores viendo un índice a medio construir.
+     */
+    public void rebuild(List<Product> products) {
+        applyRebuild(tickets.next(), products);
+    }
+
+    /**
+     * Reindexa un producto. Si {@code product} es null o está inactivo, se quita del índice.
+     */
+    public void update(Long productId, Product product) {
+        applyUpdate(tickets.next(), productId, product);
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        long ticket = tickets.next();
+        applyUpdate(ticket, event.productId(), productRepository.findActiveById(event.productId()).orElse(null));
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        reindex();
+    }
+
+    private void reindex() {
+        long ticket = tickets.next();
+        applyRebuild(ticket, productRepository.findAllActiveWithCategory());
+    }
+
+    private synchronized void applyRebuild(long ticket, List<Product> products) {
+        if (!tickets.acceptReload(ticket)) {
+            return;
+        }
+        ConcurrentSkipListMap<String, Map<Long, Float>> newPostings = new ConcurrentSkipListMap<>();
+        Map<Long, IndexedProduct> newDocuments = new ConcurrentHashMap<>();
+        products.forEach(product -> addDocument(newPostings, newDocuments, product));
+        // Los productos leídos después que la reconstrucción se conservan como estaban
+        for (Long productId : tickets.newerThanReload()) {
+            removeDocument(newPostings, newDocuments, productId);
+            copyDocument(newPostings, newDocuments, productId);
+        }
+        postings = newPostings;
+        documents = newDocuments;
+        loaded = true;
+        logger.info("Índice de búsqueda construido con " + newDocuments.size() + " productos y "
+                + newPostings.size() + " términos");
+    }
+
+    private synchronized void applyUpdate(long ticket, Long productId, Product product) {
+        if (tickets.acceptProduct(productId, ticket)) {
+            removeDocument(postings, documents, productId);
+            addDocument(postings, documents, product);
+        }
+    }
+
+    /**
+     * Busca productos que contengan todos los términos de la consulta (el último
+     * puede estar incompleto) y devuelve la página de ids pedida.
+     *
+     * @param categoryName categoría por la que filtrar, o null para buscar en todas
+     */
+    public Page<Long> search(String query, String categoryName, Pageable pageable) {
+        Map<Long, IndexedProduct> docs = documents;
+        Map<Long, Float> scores = score(query, docs.size());
+        if (scores.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        String category = categoryName != null ? TextNormalizer.fold(categoryName.trim()) : null;
+        List<Hit> hits = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> {
+            IndexedProduct product = docs.get(id);
+            if (product != null && (category == null || category.equals(product.category()))) {
+                hits.add(new Hit(product, score));
+            }
+        });
+        hits.sort(comparator(pageable.getSort()));
+
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), hits.size()) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), hits.size()) : hits.size();
+        List<Long> ids = hits.subList(from, to).stream()
+                .map(hit -> hit.product().id())
+                .toList();
+        return new PageImpl<>(ids, pageable, hits.size());
+    }
+
+    /**
+     * Ids de los productos que contienen todos los términos de la consulta, sin ordenar.
+     * Lo usa el filtro por facetas para cruzar la búsqueda de texto con sus bitmaps.
+     */
+    public Set<Long> matchingIds(String query) {
+        return score(query, documents.size()).keySet();
+    }
+
+    /**
+     * Puntaje de cada producto que contiene todos los términos de la consulta (el último
+     * puede estar incompleto); vacío si no hay términos o ningún producto los tiene todos.
+     */
+    private Map<Long, Float> score(String query, int totalDocuments) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty()) {
+            return new HashMap<>();
+        }
+        ConcurrentSkipListMap<String, Map<Long, Float>> index = postings;
+
+        Map<Long, Float> scores = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean last = i == tokens.size() - 1;
+            Map<Long, Float> tokenScores = scoreToken(index, tokens.get(i), last, totalDocuments);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Puntaje de cada producto que contiene el término. Con {@code prefix} se suman todos los
+     * términos que empiezan con él (sin tope, para no perder coincidencias), con menos peso
+     * que el término exacto.
+     */
+    private Map<Long, Float> scoreToken(ConcurrentSkipListMap<String, Map<Long, Float>> index,
+                                        String token, boolean prefix, int totalDocuments) {
+        Map<Long, Float> result = new HashMap<>();
+        Map<String, Map<Long, Float>> terms = prefix
+                ? index.subMap(token, true, token + Character.MAX_VALUE, false)
+                : index.subMap(token, true, token, true);
+        for (Map.Entry<String, Map<Long, Float>> entry : terms.entrySet()) {
+            Map<Long, Float> matches = entry.getValue();
+            float idf = (float) Math.log(1 + (double) totalDocuments / Math.max(1, matches.size()));
+            float factor = entry.getKey().equals(token) ? 1f : PREFIX_FACTOR;
+            matches.forEach((id, weight) -> result.merge(id, idf * weight * factor, Math::max));
+        }
+        return result;
+    }
+
+    private void addDocument(ConcurrentSkipListMap<String, Map<Long, Float>> index,
+                             Map<Long, IndexedProduct> docs, Product product) {
+        if (product == null || product.getId() == null || !Boolean.TRUE.equals(product.getIsActive())) {
+            return;
+        }
+        Map<String, Float> weights = new HashMap<>();
+        accumulate(weights, TextNormalizer.tokenize(product.getName()), NAME_WEIGHT);
+        accumulate(weights, TextNormalizer.tokenize(product.getDescription()), 1f);
+
+        String category = product.getCategory() != null ? TextNormalizer.fold(product.getCategory().getName()) : null;
+        docs.put(product.getId(), new IndexedProduct(product.getId(), TextNormalizer.fold(product.getName()),
+                product.getPrice(), category, new HashSet<>(weights.keySet())));
+        weights.forEach((term, weight) ->
+                index.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(product.getId(), weight));
+    }
+
+    /**
+     * Copia al índice nuevo lo que el índice publicado tiene de un producto.
+     */
+    private void copyDocument(ConcurrentSkipListMap<String, Map<Long, Float>> index,
+                              Map<Long, IndexedProduct> docs, Long productId) {
+        IndexedProduct current = documents.get(productId);
+        if (current == null) {
+            return;
+        }
+        docs.put(productId, current);
+        for (String term : current.terms()) {
+            Map<Long, Float> matches = postings.get(term);
+            Float weight = matches != null ? matches.get(productId) : null;
+            if (weight != null) {
+                index.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(productId, weight);
+            }
+        }
+    }
+
+    private void removeDocument(ConcurrentSkipListMap<String, Map<Long, Float>> index,
+                                Map<Long, IndexedProduct> docs, Long productId) {
+        IndexedProduct previous = docs.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms()) {
+            index.computeIfPresent(term, (key, matches) -> {
+                matches.remove(productId);
+                return matches.isEmpty() ? null : matches;
+            });
+        }
+    }
+
+    private static void accumulate(Map<String, Float> weights, List<String> tokens, float fieldWeight) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        frequencies.forEach((term, frequency) ->
+                weights.merge(term, fieldWeight * (1f + (float) Math.log(frequency)), Float::sum));
+    }
+
+    private static boolean supports(Sort sort) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        if (orders.size() != 1) {
+            return false;
+        }
+        String property = orders.get(0).getProperty();
+        return RELEVANCE.equals(property) || "id".equals(property)
+                || "name".equals(property) || "price".equals(property);
+    }
+
+    private static Comparator<Hit> comparator(Sort sort) {
+        Comparator<Hit> byId = Comparator.comparing(hit -> hit.product().id());
+        Sort.Order order = sort.isSorted() ? sort.iterator().next() : null;
+        if (order == null || RELEVANCE.equals(order.getProperty())) {
+            return Comparator.comparing(Hit::score).reversed().thenComparing(byId);
+        }
+        Comparator<Hit> comparator = switch (order.getProperty()) {
+            case "name" -> Comparator.<Hit, String>comparing(hit -> hit.product().name()).thenComparing(byId);
+            case "price" -> Comparator.<Hit, BigDecimal>comparing(hit -> hit.product().price()).thenComparing(byId);
+            default -> byId;
+        };
+        return order.isDescending() ? comparator.reversed() : comparator;
+    }
+}
@@ -0,0 +1,343 @@
+package grupo7.ecommerceapi.search;
+
+import grupo7.ecommerceapi.catalog.CatalogVersion;
+import grupo7.ecommerceapi.catalog.RefreshTickets;
+import grupo7.ecommerceapi.dto.ProductSalesRow;
+import grupo7.ecommerceapi.dto.SuggestionDTO;
+import grupo7.ecommerceapi.dto.SuggestionsDTO;
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.repository.CategoryRepository;
+import grupo7.ecommerceapi.repository.OrderItemRepository;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Autocompletado del buscador: tries de prefijos en memoria sobre los nombres de los productos
+ * activos y de las categorías, con plegado de acentos y sin consultar MySQL por cada tecla.
+ * Un nombre coincide si alguna de sus palabras empieza con lo escrito ("inal" sugiere
+ * "Auriculares inalámbricos"). Los productos se ordenan por unidades vendidas y las categorías
+ * por cantidad de productos activos. Los nombres se mantienen de forma incremental a partir de
+ * los {@link ProductChangedEvent}; las unidades vendidas no, porque ese evento llega con cada
+ * cambio de stock (incluso antes de que el pedido haga commit): se recalculan todas juntas cada
+ * {@code search.suggest.popularity-refresh-interval} con una sola consulta agrupada.
+ * La base se lee sin bloqueo y solo se publica la lectura más nueva ({@link RefreshTickets}),
+ * tanto de cada producto como de las unidades vendidas.
+ */
+@Component
+public class ProductSuggester {
+
+    private static final Logger logger = Logger.getLogger(ProductSuggester.class.getName());
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingLong(Suggestion::popularity).reversed()
+            .thenComparingInt(suggestion -> suggestion.name().length())
+            .thenComparing(Suggestion::key)
+            .thenComparing(Suggestion::id);
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final boolean enabled;
+    private final int maxResults;
+    private final RefreshTickets tickets = new RefreshTickets();
+    // Turno de las últimas unidades vendidas publicadas; se lee y escribe bajo el bloqueo
+    private long appliedPopularity;
+
+    private volatile Index index;
+    private volatile boolean loaded;
+
+    /**
+     * @param key nombre normalizado ({@link TextNormalizer#normalize})
+     * @param popularity unidades vendidas (productos) o productos activos (categorías)
+     */
+    private record Suggestion(Long id, String name, String key, long popularity) {
+    }
+
+    private record Index(SuggestionTrie<Suggestion> products, SuggestionTrie<Suggestion> categories,
+                         Map<Long, Suggestion> productsById, Map<Long, String> productCategories,
+                         Map<String, Suggestion> categoriesByKey) {
+    }
+
+    public ProductSuggester(ProductRepository productRepository,
+                            CategoryRepository categoryRepository,
+                            OrderItemRepository orderItemRepository,
+                            @Value("${search.suggest.enabled:true}") boolean enabled,
+                            @Value("${search.suggest.max-results:8}") int maxResults) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.enabled = enabled;
+        this.maxResults = maxResults;
+        this.index = emptyIndex();
+    }
+
+    public boolean isAvailable() {
+        return enabled && loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            reindex();
+        }
+    }
+
+    /**
+     * Reconstruye los tries completos y los publica de una sola vez.
+     */
+    public void rebuild(List<Product> products, List<Category> categories, List<ProductSalesRow> sales) {
+        applyRebuild(tickets.next(), products, categories, sales);
+    }
+
+    /**
+     * Reemplaza las unidades vendidas de todos los productos. Solo se tocan los tries de los
+     * productos cuya popularidad cambió.
+     */
+    public void updatePopularity(List<ProductSalesRow> sales) {
+        applyPopularity(tickets.next(), sales);
+    }
+
+    @Scheduled(initialDelayString = "${search.suggest.popularity-refresh-interval:5m}",
+            fixedDelayString = "${search.suggest.popularity-refresh-interval:5m}")
+    public void refreshPopularity() {
+        if (enabled && loaded) {
+            long ticket = tickets.next();
+            applyPopularity(ticket, orderItemRepository.sumQuantityGroupedByProduct());
+        }
+    }
+
+    /**
+     * Actualiza un producto. Si {@code product} es null o está inactivo, se quita de las sugerencias.
+     */
+    public synchronized void update(Long productId, Product product, long unitsSold) {
+        if (tickets.acceptProduct(productId, tickets.next())) {
+            replaceProduct(index, productId, product, unitsSold);
+        }
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        long ticket = tickets.next();
+        applyProduct(ticket, event.productId(), productRepository.findActiveById(event.productId()).orElse(null));
+    }
+
+    @Order(CatalogVersion.REFRESH_ORDER)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (!enabled || !loaded) {
+            return;
+        }
+        reindex();
+    }
+
+    private void reindex() {
+        long ticket = tickets.next();
+        applyRebuild(ticket, productRepository.findAllActiveWithCategory(), categoryRepository.findAllActive(),
+                orderItemRepository.sumQuantityGroupedByProduct());
+    }
+
+    private synchronized void applyRebuild(long ticket, List<Product> products, List<Category> categories,
+                                           List<ProductSalesRow> sales) {
+        if (!tickets.acceptReload(ticket)) {
+            return;
+        }
+        Index current = index;
+        Map<Long, Long> unitsSold = unitsSold(sales);
+        if (ticket > appliedPopularity) {
+            appliedPopularity = ticket;
+        } else {
+            // Ya se publicaron unidades vendidas leídas después que esta reconstrucción
+            current.productsById().forEach((id, suggestion) -> unitsSold.put(id, suggestion.popularity()));
+        }
+
+        Index built = emptyIndex();
+        products.forEach(product ->
+                addProduct(built, product, unitsSold.getOrDefault(product.getId(), 0L)));
+        // Los productos leídos después que la reconstrucción se conservan como estaban
+        for (Long productId : tickets.newerThanReload()) {
+            removeProduct(built, productId);
+            Suggestion kept = current.productsById().get(productId);
+            if (kept != null) {
+                Suggestion updated = new Suggestion(kept.id(), kept.name(), kept.key(),
+                        unitsSold.getOrDefault(productId, 0L));
+                built.productsById().put(productId, updated);
+                addKeys(built.products(), updated);
+                String category = current.productCategories().get(productId);
+                if (category != null) {
+                    built.productCategories().put(productId, category);
+                }
+            }
+        }
+
+        Map<String, Long> productCounts = new HashMap<>();
+        built.productCategories().values().forEach(category -> productCounts.merge(category, 1L, Long::sum));
+        for (Category category : categories) {
+            String key = TextNormalizer.normalize(category.getName());
+            Suggestion suggestion = new Suggestion(category.getId(), category.getName(), key,
+                    productCounts.getOrDefault(key, 0L));
+            built.categoriesByKey().put(key, suggestion);
+            addKeys(built.categories(), suggestion);
+        }
+
+        index = built;
+        loaded = true;
+        logger.info("Autocompletado construido con " + built.productsById().size() + " productos y "
+                + built.categoriesByKey().size() + " categorías");
+    }
+
+    private synchronized void applyPopularity(long ticket, List<ProductSalesRow> sales) {
+        if (ticket <= appliedPopularity) {
+            return;
+        }
+        appliedPopularity = ticket;
+        Map<Long, Long> unitsSold = unitsSold(sales);
+
+        Index current = index;
+        int changed = 0;
+        for (Suggestion previous : List.copyOf(current.productsById().values())) {
+            long popularity = unitsSold.getOrDefault(previous.id(), 0L);
+            if (popularity != previous.popularity()) {
+                Suggestion updated = new Suggestion(previous.id(), previous.name(), previous.key(), popularity);
+                removeKeys(current.products(), previous);
+                current.productsById().put(previous.id(), updated);
+                addKeys(current.products(), updated);
+                changed++;
+            }
+        }
+        int updatedProducts = changed;
+        logger.fine(() -> "Popularidad del autocompletado actualizada en " + updatedProducts + " productos");
+    }
+
+    private synchronized void applyProduct(long ticket, Long productId, Product product) {
+        if (!tickets.acceptProduct(productId, ticket)) {
+            return;
+        }
+        // La popularidad se conserva hasta el próximo refreshPopularity(); se toma bajo el
+        // bloqueo para no pisar la que haya publicado una actualización concurrente
+        Suggestion known = index.productsById().get(productId);
+        replaceProduct(index, productId, product, known != null ? known.popularity() : 0L);
+    }
+
+    private void replaceProduct(Index current, Long productId, Product product, long unitsSold) {
+        String previousCategory = current.productCategories().get(productId);
+        removeProduct(current, productId);
+        addProduct(current, product, unitsSold);
+
+        String category = current.productCategories().get(productId);
+        if (!Objects.equals(previousCategory, category)) {
+            adjustCategory(current, previousCategory, -1);
+            adjustCategory(current, category, 1);
+        }
+    }
+
+    /**
+     * Categorías y productos que empiezan con {@code query}, como mucho {@code limit} de cada uno
+     * (acotado por search.suggest.max-results).
+     */
+    public SuggestionsDTO suggest(String query, int limit) {
+        String prefix = TextNormalizer.normalize(query);
+        if (prefix.isEmpty()) {
+            return new SuggestionsDTO(List.of(), List.of());
+        }
+        Index current = index;
+        int size = Math.min(limit, maxResults);
+        return new SuggestionsDTO(toDtos(current.categories().top(prefix, size)),
+                toDtos(current.products().top(prefix, size)));
+    }
+
+    private Index emptyIndex() {
+        return new Index(new SuggestionTrie<>(RANKING, maxResults), new SuggestionTrie<>(RANKING, maxResults),
+                new HashMap<>(), new HashMap<>(), new HashMap<>());
+    }
+
+    private void addProduct(Index target, Product product, long unitsSold) {
+        if (product == null || product.getId() == null || !Boolean.TRUE.equals(product.getIsActive())) {
+            return;
+        }
+        String key = TextNormalizer.normalize(product.getName());
+        Suggestion suggestion = new Suggestion(product.getId(), product.getName(), key, unitsSold);
+        target.productsById().put(product.getId(), suggestion);
+        addKeys(target.products(), suggestion);
+
+        if (product.getCategory() != null) {
+            target.productCategories().put(product.getId(), TextNormalizer.normalize(product.getCategory().getName()));
+        }
+    }
+
+    private void removeProduct(Index target, Long productId) {
+        Suggestion previous = target.productsById().remove(productId);
+        target.productCategories().remove(productId);
+        if (previous != null) {
+            removeKeys(target.products(), previous);
+        }
+    }
+
+    private void adjustCategory(Index target, String category, int delta) {
+        Suggestion current = category != null ? target.categoriesByKey().get(category) : null;
+        if (current == null) {
+            return;
+        }
+        Suggestion adjusted = new Suggestion(current.id(), current.name(), current.key(),
+                Math.max(0, current.popularity() + delta));
+        removeKeys(target.categories(), current);
+        target.categoriesByKey().put(category, adjusted);
+        addKeys(target.categories(), adjusted);
+    }
+
+    private static Map<Long, Long> unitsSold(List<ProductSalesRow> sales) {
+        Map<Long, Long> unitsSold = new HashMap<>();
+        sales.forEach(row -> unitsSold.put(row.productId(), row.quantity() != null ? row.quantity() : 0L));
+        return unitsSold;
+    }
+
+    private static void addKeys(SuggestionTrie<Suggestion> trie, Suggestion suggestion) {
+        wordSuffixes(suggestion.key()).forEach(key -> trie.add(key, suggestion));
+    }
+
+    private static void removeKeys(SuggestionTrie<Suggestion> trie, Suggestion suggestion) {
+        wordSuffixes(suggestion.key()).forEach(key -> trie.remove(key, suggestion));
+    }
+
+    /**
+     * "auriculares bluetooth negros" -> el texto completo, "bluetooth negros" y "negros"
+     */
+    private static Set<String> wordSuffixes(String key) {
+        Set<String> suffixes = new LinkedHashSet<>();
+        if (!key.isEmpty()) {
+            suffixes.add(key);
+        }
+        for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+            suffixes.add(key.substring(i + 1));
+        }
+        return suffixes;
+    }
+
+    private static List<SuggestionDTO> toDtos(List<Suggestion> suggestions) {
+        return suggestions.stream()
+                .map(suggestion -> new SuggestionDTO(suggestion.id(), suggestion.name()))
+                .toList();
+    }
+}
@@ -0,0 +1,57 @@
+package grupo7.ecommerceapi.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto para búsquedas: minúsculas, sin acentos (plegado de
+ * diacríticos, "camión" == "camion", "niño" == "nino") y separado en tokens.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "se", "sin", "su", "sus", "un", "una", "y");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Pasa el texto a minúsculas y elimina los acentos.
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Pliega el texto y deja las palabras separadas por un único espacio, sin descartar
+     * ninguna (sirve para comparar prefijos de frases, como en el autocompletado).
+     */
+    public static String normalize(String text) {
+        return SEPARATORS.matcher(fold(text)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Separa el texto normalizado en tokens, descartando palabras vacías.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
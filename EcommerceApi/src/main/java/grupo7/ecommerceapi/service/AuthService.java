@@ -31,7 +31,8 @@ public class AuthService {
         newUser.setPassword(request.getPassword());
 
         User createdUser = userService.createUser(newUser);
-        String token = jwtUtil.generateToken(createdUser.getId(), createdUser.getEmail());
+        String token = jwtUtil.generateToken(createdUser.getId(), createdUser.getEmail(),
+                createdUser.getRole().name());
         return buildAuthResponse(createdUser, token, "Usuario registrado exitosamente");
     }
 
@@ -41,7 +42,7 @@ public class AuthService {
         User user = userService.login(normalizedEmail, request.getPassword())
                 .orElseThrow(() -> new InvalidCredentialsException("Credenciales inválidas"));
 
-        String token = jwtUtil.generateToken(user.getId(), user.getEmail());
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole().name());
         return buildAuthResponse(user, token, "Login exitoso");
     }
 
@@ -1,8 +1,10 @@
 package grupo7.ecommerceapi.service;
 
 import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
 import grupo7.ecommerceapi.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +17,7 @@ import java.util.Optional;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Category> getAllCategories() {
         return categoryRepository.findAllActive();
@@ -35,7 +38,9 @@ public class CategoryService {
 
     @Transactional
     public Category createCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Transactional
@@ -45,7 +50,9 @@ public class CategoryService {
                 .map(existingCategory -> {
                     existingCategory.setName(categoryDetails.getName());
                     existingCategory.setDescription(categoryDetails.getDescription());
-                    return categoryRepository.save(existingCategory);
+                    Category saved = categoryRepository.save(existingCategory);
+                    eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
+                    return saved;
                 });
     }
 
@@ -56,6 +63,7 @@ public class CategoryService {
                 .map(category -> {
                     category.setIsActive(false);
                     categoryRepository.save(category);
+                    eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
                     return true;
                 })
                 .orElse(false);
@@ -1,27 +1,79 @@
 package grupo7.ecommerceapi.service;
 
+import grupo7.ecommerceapi.exception.InvalidUploadException;
+import grupo7.ecommerceapi.storage.FileMetadata;
+import grupo7.ecommerceapi.storage.ImageSniffer;
+import grupo7.ecommerceapi.storage.ImageVariant;
+import grupo7.ecommerceapi.storage.StoredUpload;
+import grupo7.ecommerceapi.util.ExpiringCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 @Service
 public class FileStorageService {
 
+  // Nombres de archivos direccionados por contenido: SHA-256 en hex + extensión
+  // (las variantes agregan un sufijo, por ejemplo <digest>_thumb.jpg)
+  private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("^[0-9a-f]{64}([._][A-Za-z0-9._-]*)?$");
+  private static final Pattern DIGEST_NAME = Pattern.compile("^[0-9a-f]{64}(\\.[a-z0-9]+)?$");
+
+  private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+  private static final int DIGEST_LOCK_STRIPES = 64;
+
   private final Path fileStorageLocation;
+  private final boolean contentAddressed;
+  private final Duration metadataTtl;
+  private final Duration deleteGrace;
+
+  // Serializan, por digest, la deduplicación de una subida con el borrado del mismo contenido.
+  // Son ReentrantLock y no synchronized porque adentro se espera al disco y a MySQL
+  private final ReentrantLock[] digestLocks = new ReentrantLock[DIGEST_LOCK_STRIPES];
 
-  public FileStorageService(@Value("${file.upload-dir:uploads/images}") String uploadDir) {
+  // nombre de archivo -> metadatos para servirlo (tamaño, fecha, tipo)
+  private final ExpiringCache<String, FileMetadata> metadataCache;
+
+  public FileStorageService(@Value("${file.upload-dir:uploads/images}") String uploadDir,
+      @Value("${file.storage.content-addressed:false}") boolean contentAddressed,
+      @Value("${file.metadata-cache.max-size:5000}") int metadataCacheMaxSize,
+      @Value("${file.metadata-cache.ttl:10m}") Duration metadataTtl,
+      @Value("${file.storage.delete-grace:10m}") Duration deleteGrace) {
     this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+    this.contentAddressed = contentAddressed;
+    this.metadataTtl = metadataTtl;
+    this.deleteGrace = deleteGrace;
+    this.metadataCache = new ExpiringCache<>(metadataCacheMaxSize);
+    Arrays.setAll(digestLocks, stripe -> new ReentrantLock());
 
     try {
       Files.createDirectories(this.fileStorageLocation);
@@ -31,7 +83,8 @@ public class FileStorageService {
   }
 
   /**
-   * Guarda un archivo con un nombre único (UUID)
+   * Guarda un archivo con un nombre único: UUID o, en modo direccionado por contenido,
+   * el SHA-256 de sus bytes (si ya existe, se devuelve el mismo nombre sin duplicarlo)
    */
   public String storeFile(MultipartFile file) {
     // Validar que el archivo no esté vacío
@@ -58,6 +111,10 @@ public class FileStorageService {
       fileExtension = originalFileName.substring(lastDotIndex);
     }
 
+    if (contentAddressed) {
+      return storeByContent(file, fileExtension.toLowerCase(Locale.ROOT));
+    }
+
     String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
 
     try {
@@ -72,12 +129,147 @@ public class FileStorageService {
     }
   }
 
+  /**
+   * Calcula el digest mientras copia a un temporal y después lo mueve (rename atómico)
+   * a {@code ab/cd/<digest><ext>}. Subir dos veces la misma foto ocupa un solo archivo.
+   */
+  private String storeByContent(MultipartFile file, String fileExtension) {
+    Path temp = null;
+    try {
+      temp = Files.createTempFile(this.fileStorageLocation, ".upload-", ".tmp");
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      try (InputStream input = new DigestInputStream(file.getInputStream(), sha256)) {
+        Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+      String fileName = HexFormat.of().formatHex(sha256.digest()) + fileExtension;
+      moveIntoPlace(temp, fileName);
+      return fileName;
+    } catch (IOException ex) {
+      throw new RuntimeException("No se pudo guardar el archivo. Por favor, inténtalo de nuevo.", ex);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 no disponible", ex);
+    } finally {
+      deleteTemp(temp);
+    }
+  }
+
+  /**
+   * Guarda una imagen leyendo directamente del cuerpo del request, sin buffer en memoria
+   * ni copia intermedia: el formato se valida con los primeros bytes y la escritura se
+   * corta apenas se supera {@code maxBytes}. La extensión sale del contenido, no del cliente.
+   */
+  public StoredUpload storeStream(InputStream input, long maxBytes) {
+    Path temp = null;
+    try {
+      byte[] header = input.readNBytes(ImageSniffer.HEADER_LENGTH);
+      if (header.length == 0) {
+        throw new InvalidUploadException(HttpStatus.BAD_REQUEST, "No se puede guardar un archivo vacío");
+      }
+      String fileExtension = ImageSniffer.detectExtension(header)
+          .orElseThrow(() -> new InvalidUploadException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+              "Solo se permiten imágenes JPEG, PNG, GIF o WebP"));
+
+      MessageDigest sha256 = contentAddressed ? MessageDigest.getInstance("SHA-256") : null;
+      temp = Files.createTempFile(this.fileStorageLocation, ".upload-", ".tmp");
+      long size;
+      try (OutputStream output = Files.newOutputStream(temp)) {
+        size = copyBounded(header, input, output, sha256, maxBytes);
+      }
+
+      String fileName = (sha256 != null ? HexFormat.of().formatHex(sha256.digest()) : UUID.randomUUID().toString())
+          + fileExtension;
+      moveIntoPlace(temp, fileName);
+      return new StoredUpload(fileName, size);
+    } catch (IOException ex) {
+      throw new RuntimeException("No se pudo guardar el archivo. Por favor, inténtalo de nuevo.", ex);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 no disponible", ex);
+    } finally {
+      deleteTemp(temp);
+    }
+  }
+
+  private static long copyBounded(byte[] header, InputStream input, OutputStream output, MessageDigest digest,
+      long maxBytes) throws IOException {
+    byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+    long total = 0;
+    byte[] chunk = header;
+    int length = header.length;
+    while (length >= 0) {
+      total += length;
+      if (total > maxBytes) {
+        throw new InvalidUploadException(HttpStatus.PAYLOAD_TOO_LARGE,
+            "El archivo no debe superar los " + (maxBytes / (1024 * 1024)) + "MB");
+      }
+      output.write(chunk, 0, length);
+      if (digest != null) {
+        digest.update(chunk, 0, length);
+      }
+      chunk = buffer;
+      length = input.read(buffer);
+    }
+    return total;
+  }
+
+  /**
+   * Mueve el temporal a su ubicación final con un rename atómico. Si el contenido ya
+   * estaba guardado (modo por contenido) el temporal simplemente se descarta y se renueva
+   * la fecha del archivo existente, para que {@link #deleteIfUnused} no lo borre antes de
+   * que quien lo subió lo asigne a un producto.
+   */
+  private void moveIntoPlace(Path temp, String fileName) throws IOException {
+    Path targetLocation = resolveStoredFile(fileName)
+        .orElseThrow(() -> new IllegalStateException("Nombre de archivo inválido: " + fileName));
+    if (!contentAddressed) {
+      move(temp, targetLocation);
+      return;
+    }
+    ReentrantLock lock = digestLock(fileName);
+    lock.lock();
+    try {
+      if (Files.exists(targetLocation)) {
+        Files.setLastModifiedTime(targetLocation, FileTime.from(Instant.now()));
+        metadataCache.invalidate(fileName);
+        return;
+      }
+      // Si otra instancia guardó el mismo contenido en paralelo, el rename lo reemplaza por bytes idénticos
+      move(temp, targetLocation);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static void move(Path temp, Path targetLocation) throws IOException {
+    Files.createDirectories(targetLocation.getParent());
+    Files.move(temp, targetLocation, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void deleteTemp(Path temp) {
+    if (temp != null) {
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException ignored) {
+        // el temporal queda huérfano; no afecta al archivo guardado
+      }
+    }
+  }
+
+  /**
+   * Indica si el nombre corresponde a un archivo direccionado por contenido (o una de sus
+   * variantes). Estos archivos pueden estar compartidos entre productos.
+   */
+  public static boolean isContentAddressed(String fileName) {
+    return CONTENT_ADDRESSED_NAME.matcher(fileName).matches();
+  }
+
   /**
    * Carga un archivo como Resource
    */
   public Resource loadFileAsResource(String fileName) {
     try {
-      Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+      Path filePath = resolveStoredFile(fileName)
+          .orElseThrow(() -> new RuntimeException("Archivo no encontrado: " + fileName));
       Resource resource = new UrlResource(filePath.toUri());
 
       if (resource.exists() && resource.isReadable()) {
@@ -91,28 +283,139 @@ public class FileStorageService {
   }
 
   /**
-   * Elimina un archivo
+   * Devuelve los metadatos necesarios para servir un archivo. Se cachean: los archivos
+   * no se modifican una vez guardados, así que un hit repetido no hace stat del disco.
+   */
+  public Optional<FileMetadata> getMetadata(String fileName) {
+    FileMetadata cached = metadataCache.get(fileName);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+
+    Optional<Path> resolved = resolveStoredFile(fileName);
+    if (resolved.isEmpty()) {
+      return Optional.empty();
+    }
+    Path filePath = resolved.get();
+
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+      if (!attributes.isRegularFile()) {
+        return Optional.empty();
+      }
+      MediaType contentType = MediaTypeFactory.getMediaType(fileName)
+          .orElse(MediaType.APPLICATION_OCTET_STREAM);
+      // El nombre de un original direccionado por contenido ya es su hash: sirve como ETag
+      String digest = DIGEST_NAME.matcher(fileName).matches() ? fileName.substring(0, 64) : null;
+      FileMetadata metadata = new FileMetadata(filePath.getFileName().toString(), filePath,
+          attributes.size(), attributes.lastModifiedTime().toMillis(), contentType, digest);
+      metadataCache.put(fileName, metadata, metadataTtl);
+      return Optional.of(metadata);
+    } catch (IOException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Ruta de un archivo dentro del directorio de almacenamiento; vacío si el nombre
+   * intenta salir de él
+   */
+  public Optional<Path> resolveStoredFile(String fileName) {
+    Path filePath = isContentAddressed(fileName)
+        ? shardedPath(fileName)
+        : this.fileStorageLocation.resolve(fileName).normalize();
+    if (!filePath.startsWith(this.fileStorageLocation) || filePath.equals(this.fileStorageLocation)) {
+      return Optional.empty();
+    }
+    return Optional.of(filePath);
+  }
+
+  /**
+   * Elimina un archivo junto con sus variantes de imagen
    */
   public boolean deleteFile(String fileName) {
+    metadataCache.invalidate(fileName);
     try {
-      Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-      return Files.deleteIfExists(filePath);
+      Optional<Path> filePath = resolveStoredFile(fileName);
+      if (filePath.isEmpty()) {
+        return false;
+      }
+      for (ImageVariant variant : ImageVariant.values()) {
+        String variantFileName = variant.fileNameFor(fileName);
+        metadataCache.invalidate(variantFileName);
+        Optional<Path> variantPath = resolveStoredFile(variantFileName);
+        if (variantPath.isPresent()) {
+          Files.deleteIfExists(variantPath.get());
+        }
+      }
+      return Files.deleteIfExists(filePath.get());
     } catch (IOException ex) {
       throw new RuntimeException("No se pudo eliminar el archivo: " + fileName, ex);
     }
   }
 
   /**
-   * Verifica si un archivo existe
+   * Elimina un archivo junto con sus variantes. Si es direccionado por contenido (un original o
+   * una de sus variantes) antes comprueba, bajo el bloqueo de su digest, que ningún producto use
+   * ese contenido y que no se haya subido en los últimos {@code file.storage.delete-grace}: una
+   * subida deduplicada devuelve el archivo existente y el producto recién lo referencia en un
+   * request posterior.
+   *
+   * @param inUse recibe el digest (los primeros 64 caracteres del nombre) e indica si algún
+   *              producto referencia ese contenido
    */
-  public boolean fileExists(String fileName) {
-    Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-    return Files.exists(filePath);
+  public Deletion deleteIfUnused(String fileName, Predicate<String> inUse) {
+    if (!isContentAddressed(fileName)) {
+      return deleteFile(fileName) ? Deletion.DELETED : Deletion.NOT_FOUND;
+    }
+    ReentrantLock lock = digestLock(fileName);
+    lock.lock();
+    try {
+      Optional<Path> filePath = resolveStoredFile(fileName);
+      if (filePath.isEmpty() || !Files.isRegularFile(filePath.get())) {
+        return Deletion.NOT_FOUND;
+      }
+      if (storedWithin(filePath.get(), deleteGrace) || inUse.test(fileName.substring(0, 64))) {
+        return Deletion.IN_USE;
+      }
+      return deleteFile(fileName) ? Deletion.DELETED : Deletion.NOT_FOUND;
+    } finally {
+      lock.unlock();
+    }
   }
-}
-
 
+  public enum Deletion {
+    DELETED, NOT_FOUND, IN_USE
+  }
 
+  private static boolean storedWithin(Path filePath, Duration window) {
+    try {
+      return Files.getLastModifiedTime(filePath).toInstant().isAfter(Instant.now().minus(window));
+    } catch (IOException ex) {
+      throw new RuntimeException("No se pudo leer la fecha del archivo: " + filePath.getFileName(), ex);
+    }
+  }
 
+  private ReentrantLock digestLock(String fileName) {
+    return digestLocks[Math.floorMod(fileName.substring(0, 64).hashCode(), DIGEST_LOCK_STRIPES)];
+  }
 
+  /**
+   * Verifica si un archivo existe
+   */
+  public boolean fileExists(String fileName) {
+    return getMetadata(fileName).isPresent();
+  }
 
+  /**
+   * Directorio en dos niveles según el digest ({@code ab/cd/abcd...}) para no juntar
+   * decenas de miles de archivos en una sola carpeta
+   */
+  private Path shardedPath(String fileName) {
+    return this.fileStorageLocation
+        .resolve(fileName.substring(0, 2))
+        .resolve(fileName.substring(2, 4))
+        .resolve(fileName)
+        .normalize();
+  }
+}
@@ -13,23 +13,30 @@ import grupo7.ecommerceapi.entity.PaymentInfo;
 import grupo7.ecommerceapi.entity.Product;
 import grupo7.ecommerceapi.entity.ShippingAddress;
 import grupo7.ecommerceapi.entity.User;
-import grupo7.ecommerceapi.exception.InsufficientStockException;
 import grupo7.ecommerceapi.exception.ResourceNotFoundException;
 import grupo7.ecommerceapi.mapper.OrderMapper;
-import grupo7.ecommerceapi.repository.BillingAddressRepository;
+import grupo7.ecommerceapi.outbox.DomainEvents;
+import grupo7.ecommerceapi.outbox.OutboxService;
+import grupo7.ecommerceapi.repository.OrderBatchRepository;
 import grupo7.ecommerceapi.repository.OrderItemRepository;
 import grupo7.ecommerceapi.repository.OrderRepository;
-import grupo7.ecommerceapi.repository.PaymentInfoRepository;
-import grupo7.ecommerceapi.repository.ShippingAddressRepository;
+import grupo7.ecommerceapi.stock.StockReservationService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,18 +44,24 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderService {
 
+    // Cantidad máxima de ids por consulta al cargar el grafo de pedidos
+    private static final int GRAPH_BATCH_SIZE = 500;
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
-    private final BillingAddressRepository billingAddressRepository;
-    private final ShippingAddressRepository shippingAddressRepository;
-    private final PaymentInfoRepository paymentInfoRepository;
+    private final OrderBatchRepository orderBatchRepository;
     private final ProductService productService;
+    private final StockReservationService stockReservationService;
     private final OrderMapper orderMapper;
+    private final OutboxService outboxService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Transactional(readOnly = true)
     public List<OrderResponseDTO> getOrdersByUserId(Long userId) {
         List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        orders.forEach(this::initializeOrderRelations);
+        loadOrderGraphs(orders);
         return orderMapper.toResponseList(orders);
     }
 
@@ -56,7 +69,7 @@ public class OrderService {
     public OrderResponseDTO getOrderById(Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado con id: " + orderId));
-        initializeOrderRelations(order);
+        loadOrderGraphs(List.of(order));
         return orderMapper.toResponse(order);
     }
 
@@ -64,33 +77,41 @@ public class OrderService {
     public OrderResponseDTO getOrderByOrderNumber(String orderNumber) {
         Order order = orderRepository.findByOrderNumber(orderNumber)
                 .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado con número: " + orderNumber));
-        initializeOrderRelations(order);
+        loadOrderGraphs(List.of(order));
         return orderMapper.toResponse(order);
     }
 
     @Transactional(readOnly = true)
     public List<OrderResponseDTO> getOrdersByStatus(Order.OrderStatus status) {
         List<Order> orders = orderRepository.findByStatus(status);
-        orders.forEach(this::initializeOrderRelations);
+        loadOrderGraphs(orders);
         return orderMapper.toResponseList(orders);
     }
 
+    /**
+     * Recorre los pedidos de un estado por páginas de id y entrega cada uno ya mapeado a
+     * {@code sink}. Por cada página se carga su grafo, se escribe y se vacía el contexto de
+     * persistencia, así la memoria no crece con el tamaño del resultado.
+     */
+    @Transactional(readOnly = true)
+    public void streamOrdersByStatus(Order.OrderStatus status, Consumer<OrderResponseDTO> sink) {
+        long afterId = 0;
+        List<Order> chunk;
+        do {
+            chunk = orderRepository.findByStatusAfterId(status, afterId, Limit.of(GRAPH_BATCH_SIZE));
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+                writeChunk(chunk, sink);
+            }
+        } while (chunk.size() == GRAPH_BATCH_SIZE);
+    }
+
     @Transactional(readOnly = true)
     public List<OrderItemResponseDTO> getOrderItems(Long orderId) {
         if (!orderRepository.existsById(orderId)) {
             throw new ResourceNotFoundException("Pedido no encontrado con id: " + orderId);
         }
         List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-        orderItems.forEach(item -> {
-            Product product = item.getProduct();
-            if (product != null) {
-                product.getId();
-                product.getName();
-                product.getImage();
-                product.getPrice();
-                product.getDiscount();
-            }
-        });
         return orderItems.stream()
                 .map(orderMapper::toOrderItem)
                 .collect(Collectors.toList());
@@ -101,28 +122,48 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado con id: " + orderId));
         order.setStatus(status);
         Order saved = orderRepository.save(order);
-        initializeOrderRelations(saved);
+        outboxService.append(DomainEvents.ORDER, saved.getId(), DomainEvents.ORDER_STATUS_CHANGED,
+                new DomainEvents.OrderStatusChanged(saved.getId(), saved.getOrderNumber(), status.getValue()));
+        loadOrderGraphs(List.of(saved));
         return orderMapper.toResponse(saved);
     }
 
-    public OrderResponseDTO createOrder(User user, CreateOrderRequest request) {
+    /**
+     * Crea el pedido con una cantidad fija de sentencias, sin importar cuántas líneas tenga:
+     * una reserva de stock (un lote de descuentos), una consulta de productos, el insert del pedido,
+     * un lote con los ítems y un insert por dirección y pago. La respuesta se arma con
+     * el grafo que ya está en memoria.
+     */
+    public OrderResponseDTO createOrder(Long userId, CreateOrderRequest request) {
         validateOrderRequest(request);
 
-        Map<Long, Product> products = loadAndValidateProducts(request.getItems());
+        Map<Long, Integer> quantities = aggregateQuantities(request.getItems());
+        // La reserva va primero: los productos se leen después, ya con el stock actualizado.
+        // Si esta transacción hace rollback la reserva se libera sola.
+        stockReservationService.reserveForCurrentTransaction(quantities);
+        Map<Long, Product> products = loadProducts(quantities.keySet());
+        // Solo hace falta la clave foránea: una referencia no consulta la tabla users
+        User user = entityManager.getReference(User.class, userId);
 
         Order order = new Order();
         order.setUser(user);
         order.setOrderNumber(generateOrderNumber());
         order.setStatus(Order.OrderStatus.PENDING);
-        order.setTotalAmount(calculateTotalAmount(request.getItems(), products));
+        order.setTotalAmount(calculateTotalAmount(quantities, products));
 
         Order savedOrder = orderRepository.save(order);
 
-        persistOrderItems(savedOrder, request.getItems(), products);
-        persistAddresses(savedOrder, user, request.getBilling(), request.getShipping());
+        List<OrderItem> orderItems = buildOrderItems(savedOrder, quantities, products);
+        orderBatchRepository.insertOrderItems(orderItems);
+        List<BillingAddress> billingAddresses = persistBillingAddress(savedOrder, user, request.getBilling());
+        List<ShippingAddress> shippingAddresses = persistShippingAddress(savedOrder, user, request.getShipping());
         persistPaymentInfo(savedOrder, request.getPayment());
+        // Notificaciones, analítica, etc. se enteran por el outbox, fuera del checkout
+        outboxService.append(DomainEvents.ORDER, savedOrder.getId(), DomainEvents.ORDER_PLACED,
+                new DomainEvents.OrderPlaced(savedOrder.getId(), savedOrder.getOrderNumber(), user.getId(),
+                        savedOrder.getTotalAmount(), quantities));
 
-        return getOrderById(savedOrder.getId());
+        return orderMapper.toResponse(savedOrder, orderItems, billingAddresses, shippingAddresses);
     }
 
     private void validateOrderRequest(CreateOrderRequest request) {
@@ -131,74 +172,84 @@ public class OrderService {
         }
     }
 
-    private Map<Long, Product> loadAndValidateProducts(List<OrderItemRequestDTO> items) {
-        Map<Long, Product> products = new HashMap<>();
+    /**
+     * Agrupa las líneas por producto, respetando el orden del pedido.
+     */
+    private Map<Long, Integer> aggregateQuantities(List<OrderItemRequestDTO> items) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (OrderItemRequestDTO item : items) {
-            Product product = productService.getProductById(item.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Producto no encontrado con id: " + item.getProductId()));
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
 
-            if (product.getStock() < item.getQuantity()) {
-                throw new InsufficientStockException(
-                        "Stock insuficiente para el producto: " + product.getName());
+    private Map<Long, Product> loadProducts(Set<Long> productIds) {
+        Map<Long, Product> products = productService.getProductsByIds(productIds);
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Producto no encontrado con id: " + productId);
             }
-            products.put(product.getId(), product);
         }
         return products;
     }
 
-    private BigDecimal calculateTotalAmount(List<OrderItemRequestDTO> items, Map<Long, Product> products) {
+    private BigDecimal calculateTotalAmount(Map<Long, Integer> quantities, Map<Long, Product> products) {
         BigDecimal totalAmount = BigDecimal.ZERO;
-        for (OrderItemRequestDTO item : items) {
-            Product product = products.get(item.getProductId());
-            BigDecimal actualPrice = product.getActualPrice();
-            totalAmount = totalAmount.add(actualPrice.multiply(BigDecimal.valueOf(item.getQuantity())));
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            BigDecimal actualPrice = products.get(line.getKey()).getActualPrice();
+            totalAmount = totalAmount.add(actualPrice.multiply(BigDecimal.valueOf(line.getValue())));
         }
         return totalAmount;
     }
 
-    private void persistOrderItems(Order order, List<OrderItemRequestDTO> items, Map<Long, Product> products) {
-        for (OrderItemRequestDTO item : items) {
-            Product product = products.get(item.getProductId());
+    private List<OrderItem> buildOrderItems(Order order, Map<Long, Integer> quantities, Map<Long, Product> products) {
+        List<OrderItem> orderItems = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
             BigDecimal actualPrice = product.getActualPrice();
 
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
             orderItem.setProduct(product);
-            orderItem.setQuantity(item.getQuantity());
+            orderItem.setQuantity(line.getValue());
             orderItem.setUnitPrice(actualPrice);
-            orderItem.setTotalPrice(actualPrice.multiply(BigDecimal.valueOf(item.getQuantity())));
-
-            orderItemRepository.save(orderItem);
-            productService.adjustStock(product.getId(), -item.getQuantity());
+            orderItem.setTotalPrice(actualPrice.multiply(BigDecimal.valueOf(line.getValue())));
+            orderItems.add(orderItem);
         }
+        return orderItems;
     }
 
-    private void persistAddresses(Order order, User user, OrderAddressDTO billingDto, OrderAddressDTO shippingDto) {
-        if (billingDto != null) {
-            BillingAddress billingAddress = new BillingAddress();
-            billingAddress.setUser(user);
-            billingAddress.setOrder(order);
-            billingAddress.setFirstName(billingDto.getFirstName());
-            billingAddress.setLastName(billingDto.getLastName());
-            billingAddress.setDni(billingDto.getDni());
-            billingAddress.setAddress(billingDto.getAddress());
-            billingAddress.setCity(billingDto.getCity());
-            billingAddress.setPostalCode(billingDto.getPostalCode());
-            billingAddressRepository.save(billingAddress);
+    private List<BillingAddress> persistBillingAddress(Order order, User user, OrderAddressDTO billingDto) {
+        if (billingDto == null) {
+            return List.of();
         }
+        BillingAddress billingAddress = new BillingAddress();
+        billingAddress.setUser(user);
+        billingAddress.setOrder(order);
+        billingAddress.setFirstName(billingDto.getFirstName());
+        billingAddress.setLastName(billingDto.getLastName());
+        billingAddress.setDni(billingDto.getDni());
+        billingAddress.setAddress(billingDto.getAddress());
+        billingAddress.setCity(billingDto.getCity());
+        billingAddress.setPostalCode(billingDto.getPostalCode());
+        orderBatchRepository.insertBillingAddress(billingAddress);
+        return List.of(billingAddress);
+    }
 
-        if (shippingDto != null) {
-            ShippingAddress shippingAddress = new ShippingAddress();
-            shippingAddress.setUser(user);
-            shippingAddress.setOrder(order);
-            shippingAddress.setFirstName(shippingDto.getFirstName());
-            shippingAddress.setLastName(shippingDto.getLastName());
-            shippingAddress.setAddress(shippingDto.getAddress());
-            shippingAddress.setCity(shippingDto.getCity());
-            shippingAddress.setPostalCode(shippingDto.getPostalCode());
-            shippingAddressRepository.save(shippingAddress);
+    private List<ShippingAddress> persistShippingAddress(Order order, User user, OrderAddressDTO shippingDto) {
+        if (shippingDto == null) {
+            return List.of();
         }
+        ShippingAddress shippingAddress = new ShippingAddress();
+        shippingAddress.setUser(user);
+        shippingAddress.setOrder(order);
+        shippingAddress.setFirstName(shippingDto.getFirstName());
+        shippingAddress.setLastName(shippingDto.getLastName());
+        shippingAddress.setAddress(shippingDto.getAddress());
+        shippingAddress.setCity(shippingDto.getCity());
+        shippingAddress.setPostalCode(shippingDto.getPostalCode());
+        orderBatchRepository.insertShippingAddress(shippingAddress);
+        return List.of(shippingAddress);
     }
 
     private void persistPaymentInfo(Order order, OrderPaymentDTO paymentDto) {
@@ -211,38 +262,36 @@ public class OrderService {
         paymentInfo.setExpiryDate(paymentDto.getExpiryDate());
         paymentInfo.setCvvEncrypted(paymentDto.getCvv());
         paymentInfo.setCardholderName(paymentDto.getCardholderName());
-        paymentInfoRepository.save(paymentInfo);
-    }
-
-    private void initializeOrderRelations(Order order) {
-        if (order.getOrderItems() != null) {
-            order.getOrderItems().forEach(item -> {
-                if (item.getProduct() != null) {
-                    item.getProduct().getId();
-                    item.getProduct().getName();
-                    item.getProduct().getImage();
-                    item.getProduct().getPrice();
-                    item.getProduct().getDiscount();
-                }
-            });
-        }
-        if (order.getBillingAddresses() != null) {
-            order.getBillingAddresses().forEach(address -> {
-                address.getId();
-                address.getFirstName();
-                address.getLastName();
-                address.getDni();
-            });
-        }
-        if (order.getShippingAddresses() != null) {
-            order.getShippingAddresses().forEach(address -> {
-                address.getId();
-                address.getFirstName();
-                address.getLastName();
-            });
+        orderBatchRepository.insertPaymentInfo(paymentInfo);
+    }
+
+    /**
+     * Inicializa ítems (con su producto), direcciones de facturación y de envío de
+     * todos los pedidos con tres consultas por lote de ids. Las entidades ya cargadas
+     * en el contexto de persistencia quedan con sus colecciones inicializadas, así que
+     * el mapper no vuelve a tocar la base de datos.
+     */
+    private void loadOrderGraphs(List<Order> orders) {
+        List<Long> ids = orders.stream()
+                .map(Order::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        for (int from = 0; from < ids.size(); from += GRAPH_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + GRAPH_BATCH_SIZE, ids.size()));
+            orderRepository.fetchOrderItemsByIdIn(batch);
+            orderRepository.fetchBillingAddressesByIdIn(batch);
+            orderRepository.fetchShippingAddressesByIdIn(batch);
         }
     }
 
+    private void writeChunk(List<Order> chunk, Consumer<OrderResponseDTO> sink) {
+        loadOrderGraphs(chunk);
+        chunk.forEach(order -> sink.accept(orderMapper.toResponse(order)));
+        // Los pedidos ya escritos no se vuelven a usar: se sueltan junto con sus colecciones
+        entityManager.clear();
+    }
+
     private String generateOrderNumber() {
         return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase() + "-" + System.currentTimeMillis();
     }
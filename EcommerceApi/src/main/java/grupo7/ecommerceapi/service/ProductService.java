@@ -1,20 +1,48 @@
 package grupo7.ecommerceapi.service;
 
+import grupo7.ecommerceapi.catalog.ProductCatalog;
+import grupo7.ecommerceapi.catalog.ProductJsonCache;
 import grupo7.ecommerceapi.dto.CreateProductRequest;
+import grupo7.ecommerceapi.dto.FilteredProductsDTO;
+import grupo7.ecommerceapi.dto.ProductSummaryDTO;
+import grupo7.ecommerceapi.dto.ProductSummaryJson;
+import grupo7.ecommerceapi.dto.ProductSummaryRow;
+import grupo7.ecommerceapi.dto.SuggestionsDTO;
 import grupo7.ecommerceapi.entity.Category;
 import grupo7.ecommerceapi.entity.Product;
-import grupo7.ecommerceapi.entity.User;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
 import grupo7.ecommerceapi.exception.ResourceNotFoundException;
+import grupo7.ecommerceapi.mapper.ProductMapper;
+import grupo7.ecommerceapi.outbox.DomainEvents;
+import grupo7.ecommerceapi.outbox.OutboxService;
 import grupo7.ecommerceapi.repository.ProductRepository;
+import grupo7.ecommerceapi.repository.ProductStockRepository;
+import grupo7.ecommerceapi.repository.UserRepository;
+import grupo7.ecommerceapi.search.ProductFacetIndex;
+import grupo7.ecommerceapi.search.ProductSearchIndex;
+import grupo7.ecommerceapi.search.ProductSuggester;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -22,10 +50,23 @@ import java.util.Optional;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductStockRepository productStockRepository;
     private final CategoryService categoryService;
+    private final ProductCatalog productCatalog;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductSuggester productSuggester;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductMapper productMapper;
+    private final ProductJsonCache productJsonCache;
+    private final OutboxService outboxService;
+    private final UserRepository userRepository;
 
     @Transactional(readOnly = true)
     public Page<Product> getAllProducts(Pageable pageable) {
+        if (productCatalog.canServe(pageable)) {
+            return productCatalog.snapshot().findAll(pageable);
+        }
         Page<Product> products = productRepository.findAllActive(pageable);
         // Forzar carga de categorías para evitar problemas de serialización
         products.getContent().forEach(this::ensureCategoryLoaded);
@@ -37,8 +78,32 @@ public class ProductService {
         return productRepository.findActiveById(id);
     }
 
+    /**
+     * Carga varios productos activos (con su categoría) en una sola consulta.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Product> getProductsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return productRepository.findActiveByIdIn(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    /**
+     * Indica si algún producto usa el contenido con ese digest (las imágenes deduplicadas se
+     * comparten), ya sea el original o una de sus variantes.
+     */
+    @Transactional(readOnly = true)
+    public boolean isImageInUse(String digest) {
+        return productRepository.existsByImageDigest(digest);
+    }
+
     @Transactional(readOnly = true)
     public Page<Product> getProductsByCategory(String categoryName, Pageable pageable) {
+        if (productCatalog.canServe(pageable)) {
+            return productCatalog.snapshot().findByCategoryName(categoryName, pageable);
+        }
         Page<Product> products = productRepository.findByCategoryNameAndActiveTrue(categoryName, pageable);
         products.getContent().forEach(this::ensureCategoryLoaded);
         return products;
@@ -46,6 +111,9 @@ public class ProductService {
 
     @Transactional(readOnly = true)
     public Page<Product> searchProducts(String searchTerm, Pageable pageable) {
+        if (productSearchIndex.canServe(pageable)) {
+            return loadSearchResults(productSearchIndex.search(searchTerm, null, pageable));
+        }
         Page<Product> products = productRepository.findBySearchTermAndActiveTrue(searchTerm, pageable);
         products.getContent().forEach(this::ensureCategoryLoaded);
         return products;
@@ -53,6 +121,9 @@ public class ProductService {
 
     @Transactional(readOnly = true)
     public Page<Product> getProductsByCategoryAndSearch(String categoryName, String searchTerm, Pageable pageable) {
+        if (productSearchIndex.canServe(pageable)) {
+            return loadSearchResults(productSearchIndex.search(searchTerm, categoryName, pageable));
+        }
         Page<Product> products = productRepository.findByCategoryAndSearchTerm(categoryName, searchTerm, pageable);
         products.getContent().forEach(this::ensureCategoryLoaded);
         return products;
@@ -60,6 +131,9 @@ public class ProductService {
 
     @Transactional(readOnly = true)
     public Page<Product> getDiscountedProducts(Pageable pageable) {
+        if (productCatalog.canServe(pageable)) {
+            return productCatalog.snapshot().findDiscounted(pageable);
+        }
         Page<Product> products = productRepository.findDiscountedProducts(pageable);
         products.getContent().forEach(this::ensureCategoryLoaded);
         return products;
@@ -67,6 +141,9 @@ public class ProductService {
 
     @Transactional(readOnly = true)
     public Page<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        if (productCatalog.canServe(pageable)) {
+            return productCatalog.snapshot().findByPriceRange(minPrice, maxPrice, pageable);
+        }
         Page<Product> products = productRepository.findByPriceRangeAndActiveTrue(minPrice, maxPrice, pageable);
         products.getContent().forEach(this::ensureCategoryLoaded);
         return products;
@@ -81,6 +158,9 @@ public class ProductService {
 
     @Transactional(readOnly = true)
     public Page<Product> getProductsSortedByName(String direction, Pageable pageable) {
+        if (productCatalog.isAvailable()) {
+            return productCatalog.snapshot().findAllOrderedBy("name", toDirection(direction), pageable);
+        }
         Page<Product> products = "desc".equalsIgnoreCase(direction)
                 ? productRepository.findAllActiveOrderByNameDesc(pageable)
                 : productRepository.findAllActiveOrderByNameAsc(pageable);
@@ -90,6 +170,9 @@ public class ProductService {
 
     @Transactional(readOnly = true)
     public Page<Product> getProductsSortedByPrice(String direction, Pageable pageable) {
+        if (productCatalog.isAvailable()) {
+            return productCatalog.snapshot().findAllOrderedBy("price", toDirection(direction), pageable);
+        }
         Page<Product> products = "desc".equalsIgnoreCase(direction)
                 ? productRepository.findAllActiveOrderByPriceDesc(pageable)
                 : productRepository.findAllActiveOrderByPriceAsc(pageable);
@@ -97,8 +180,111 @@ public class ProductService {
         return products;
     }
 
+    // Listados resumidos para la API: desde el catálogo en memoria si puede servirlos; si no,
+    // con proyecciones a ProductSummaryRow que no cargan entidades. Cada producto sale de la
+    // caché de JSON ya serializado (ProductJsonCache)
+
+    @Transactional(readOnly = true)
+    public Page<ProductSummaryJson> getAllProductSummaries(Pageable pageable) {
+        if (productCatalog.canServe(pageable)) {
+            return productCatalog.snapshot().findAll(pageable).map(productJsonCache::fragment);
+        }
+        return productRepository.findActiveSummaries(pageable).map(productJsonCache::fragment);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ProductSummaryJson> getProductSummariesByCategory(String categoryName, Pageable pageable) {
+        if (productCatalog.canServe(pageable)) {
+            return productCatalog.snapshot().findByCategoryName(categoryName, pageable).map(productJsonCache::fragment);
+        }
+        return productRepository.findActiveSummariesByCategoryName(categoryName, pageable)
+                .map(productJsonCache::fragment);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ProductSummaryJson> getDiscountedProductSummaries(Pageable pageable) {
+        if (productCatalog.canServe(pageable)) {
+            return productCatalog.snapshot().findDiscounted(pageable).map(productJsonCache::fragment);
+        }
+        return productRepository.findDiscountedSummaries(pageable).map(productJsonCache::fragment);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ProductSummaryJson> getProductSummariesByPriceRange(BigDecimal minPrice, BigDecimal maxPrice,
+                                                                    Pageable pageable) {
+        if (productCatalog.canServe(pageable)) {
+            return productCatalog.snapshot().findByPriceRange(minPrice, maxPrice, pageable)
+                    .map(productJsonCache::fragment);
+        }
+        return productRepository.findActiveSummariesByPriceRange(minPrice, maxPrice, pageable)
+                .map(productJsonCache::fragment);
+    }
+
+    /**
+     * Filtro combinado por facetas (categorías, descuento, stock, rango de precio y texto)
+     * resuelto con los bitmaps de {@link ProductFacetIndex}; no tiene alternativa por SQL.
+     *
+     * @return vacío si el índice de facetas (o el de búsqueda, cuando hay texto) no está disponible
+     * @throws IllegalArgumentException si el orden pedido no es por id, name o price
+     */
+    @Transactional(readOnly = true)
+    public Optional<FilteredProductsDTO> filterProducts(ProductFacetIndex.Filter filter, String searchTerm,
+                                                        Pageable pageable) {
+        if (!ProductFacetIndex.supports(pageable.getSort())) {
+            throw new IllegalArgumentException("Orden no soportado para el filtro de productos: " + pageable.getSort());
+        }
+        boolean hasText = searchTerm != null && !searchTerm.isBlank();
+        if (!productFacetIndex.canServe(pageable) || (hasText && !productSearchIndex.isAvailable())) {
+            return Optional.empty();
+        }
+        ProductFacetIndex.Result result = productFacetIndex.filter(filter,
+                hasText ? productSearchIndex.matchingIds(searchTerm) : null, pageable);
+        Page<ProductSummaryJson> products = loadSearchResults(result.ids()).map(productJsonCache::fragment);
+        return Optional.of(new FilteredProductsDTO(products, result.facets()));
+    }
+
+    /**
+     * Sugerencias de autocompletado desde {@link ProductSuggester}, sin consultar la base.
+     *
+     * @return vacío si el autocompletado no está disponible
+     */
+    public Optional<SuggestionsDTO> suggest(String query, int limit) {
+        if (!productSuggester.isAvailable()) {
+            return Optional.empty();
+        }
+        return Optional.of(productSuggester.suggest(query, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ProductSummaryDTO> getProductSummariesByUserId(Long userId, Pageable pageable) {
+        return productRepository.findActiveSummariesByCreatedById(userId, pageable).map(productMapper::toSummary);
+    }
+
+    @Transactional(readOnly = true)
+    public Window<Product> scrollAllProducts(ScrollPosition position, Sort sort, int size) {
+        Window<Product> products = productRepository.findByIsActiveTrue(position, sort, Limit.of(size));
+        products.forEach(this::ensureCategoryLoaded);
+        return products;
+    }
+
+    @Transactional(readOnly = true)
+    public Window<Product> scrollProductsByCategory(String categoryName, ScrollPosition position, Sort sort, int size) {
+        Window<Product> products = productRepository.findByCategoryNameAndIsActiveTrue(
+                categoryName, position, sort, Limit.of(size));
+        products.forEach(this::ensureCategoryLoaded);
+        return products;
+    }
+
+    @Transactional(readOnly = true)
+    public Window<Product> scrollProductsByUserId(Long userId, ScrollPosition position, Sort sort, int size) {
+        Window<Product> products = productRepository.findByCreatedByIdAndIsActiveTrue(
+                userId, position, sort, Limit.of(size));
+        products.forEach(this::ensureCategoryLoaded);
+        return products;
+    }
+
     @Transactional
-    public Product createProduct(CreateProductRequest request, User user) {
+    public Product createProduct(CreateProductRequest request, Long userId) {
         Category category = categoryService.getCategoryByName(request.getCategory())
                 .orElseThrow(() -> new ResourceNotFoundException("Categoría no encontrada: " + request.getCategory()));
 
@@ -110,10 +296,13 @@ public class ProductService {
         product.setImage(request.getImage());
         product.setStock(request.getStock());
         product.setDiscount(request.getDiscount());
-        product.setCreatedBy(user);
+        // Solo hace falta la clave foránea: una referencia no consulta la tabla users
+        product.setCreatedBy(userRepository.getReferenceById(userId));
         product.setIsActive(true);
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productChanged(saved.getId(), DomainEvents.Change.CREATED);
+        return saved;
     }
 
     @Transactional
@@ -132,7 +321,9 @@ public class ProductService {
         product.setStock(request.getStock());
         product.setDiscount(request.getDiscount());
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productChanged(saved.getId(), DomainEvents.Change.UPDATED);
+        return saved;
     }
 
     @Transactional
@@ -142,6 +333,7 @@ public class ProductService {
 
         product.setIsActive(false);
         productRepository.save(product);
+        productChanged(id, DomainEvents.Change.DELETED);
     }
 
     @Transactional(readOnly = true)
@@ -157,17 +349,68 @@ public class ProductService {
         return products;
     }
 
+    /**
+     * Igual que {@link #getLowStockProducts} pero entrega cada producto a {@code sink} a medida
+     * que llega del cursor. Usa la proyección, así que no quedan entidades en el contexto.
+     */
+    @Transactional(readOnly = true)
+    public void streamLowStockProducts(Integer threshold, Consumer<ProductSummaryDTO> sink) {
+        try (Stream<ProductSummaryRow> rows = productRepository.streamLowStockSummaries(threshold)) {
+            rows.map(productMapper::toSummary).forEach(sink);
+        }
+    }
+
+    /**
+     * Suma {@code delta} al stock con un único UPDATE condicional, sin leer y volver a guardar
+     * el producto: dos ajustes concurrentes no pueden pisarse entre sí.
+     */
     @Transactional
     public void adjustStock(Long productId, int delta) {
-        Product product = productRepository.findActiveById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + productId));
-
-        int newStock = product.getStock() + delta;
-        if (newStock < 0) {
+        if (!productStockRepository.adjust(productId, delta)) {
+            productRepository.findActiveById(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + productId));
             throw new IllegalArgumentException("La operación de stock dejaría el producto con stock negativo");
         }
-        product.setStock(newStock);
-        productRepository.save(product);
+        productChanged(productId, DomainEvents.Change.STOCK_ADJUSTED);
+    }
+
+    /**
+     * Avisa del cambio a los listeners en memoria (catálogo, búsqueda) y lo deja en el outbox
+     * para los consumidores asíncronos
+     */
+    private void productChanged(Long productId, DomainEvents.Change change) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        outboxService.append(DomainEvents.PRODUCT, productId, DomainEvents.PRODUCT_CHANGED,
+                new DomainEvents.ProductChanged(productId, change));
+    }
+
+    /**
+     * Convierte la página de ids devuelta por el índice de búsqueda en productos,
+     * respetando el orden de relevancia.
+     */
+    private Page<Product> loadSearchResults(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<Long, Product> productsById;
+        if (productCatalog.isAvailable()) {
+            productsById = ids.getContent().stream()
+                    .map(productCatalog.snapshot()::getProduct)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+        } else {
+            productsById = productRepository.findActiveByIdIn(ids.getContent()).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+        }
+        List<Product> content = ids.getContent().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+
+    private Sort.Direction toDirection(String direction) {
+        return "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
     }
 
     private void ensureCategoryLoaded(Product product) {
@@ -1,9 +1,11 @@
 package grupo7.ecommerceapi.service;
 
 import grupo7.ecommerceapi.entity.User;
+import grupo7.ecommerceapi.event.UserChangedEvent;
 import grupo7.ecommerceapi.exception.EmailAlreadyExistsException;
 import grupo7.ecommerceapi.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +20,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<User> getAllUsers() {
         return userRepository.findAllActive();
@@ -66,9 +69,14 @@ public class UserService {
                 .map(existingUser -> {
                     existingUser.setName(userDetails.getName());
                     existingUser.setSurname(userDetails.getSurname());
-                    existingUser.setEmail(userDetails.getEmail());
+                    existingUser.setEmail(userDetails.getEmail() != null
+                            ? userDetails.getEmail().trim().toLowerCase()
+                            : null);
                     // No actualizar la contraseña aquí por seguridad
-                    return userRepository.save(existingUser);
+                    User saved = userRepository.save(existingUser);
+                    // La caché de SecurityUtil se invalida después del commit
+                    eventPublisher.publishEvent(new UserChangedEvent(id));
+                    return saved;
                 });
     }
 
@@ -78,6 +86,7 @@ public class UserService {
                 .map(user -> {
                     user.setIsActive(false);
                     userRepository.save(user);
+                    eventPublisher.publishEvent(new UserChangedEvent(id));
                     return true;
                 })
                 .orElse(false);
@@ -0,0 +1,53 @@
+package grupo7.ecommerceapi.stock;
+
+/**
+ * Contador de stock en memoria de un producto. No es thread-safe por sí mismo:
+ * {@link StockReservationService} solo lo modifica dentro de
+ * {@code ConcurrentHashMap.compute*}, que serializa el acceso por producto.
+ */
+class StockCounter {
+
+    // Unidades que todavía se pueden reservar
+    private int available;
+    // Unidades reservadas por checkouts que aún no terminaron
+    private int held;
+    // Unidades vendidas que todavía no se descontaron en MySQL
+    private int unflushed;
+
+    StockCounter(int available) {
+        this.available = available;
+    }
+
+    boolean tryReserve(int quantity) {
+        if (available < quantity) {
+            return false;
+        }
+        available -= quantity;
+        held += quantity;
+        return true;
+    }
+
+    void commit(int quantity) {
+        held -= quantity;
+        unflushed += quantity;
+    }
+
+    void release(int quantity) {
+        held -= quantity;
+        available += quantity;
+    }
+
+    int drainUnflushed() {
+        int drained = unflushed;
+        unflushed = 0;
+        return drained;
+    }
+
+    boolean isIdle() {
+        return held == 0 && unflushed == 0;
+    }
+
+    int getAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,25 @@
+package grupo7.ecommerceapi.stock;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Stock retenido para un checkout en curso.
+ *
+ * @param id         identificador de la reserva
+ * @param quantities id de producto -> cantidad retenida
+ * @param expiresAt  momento a partir del cual la reserva se libera sola
+ */
+public record StockReservation(String id, Map<Long, Integer> quantities, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return now.isAfter(expiresAt);
+    }
+
+    /**
+     * La misma reserva, ya vencida (para que la próxima pasada del barrido la libere)
+     */
+    public StockReservation expired() {
+        return new StockReservation(id, quantities, Instant.EPOCH);
+    }
+}
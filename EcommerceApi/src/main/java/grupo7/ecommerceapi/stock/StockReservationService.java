@@ -0,0 +1,369 @@
+package grupo7.ecommerceapi.stock;
+
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.exception.InsufficientStockException;
+import grupo7.ecommerceapi.exception.ResourceNotFoundException;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import grupo7.ecommerceapi.repository.ProductStockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Reservas de stock para el checkout: {@link #reserve} retiene el stock, {@link #commit}
+ * lo da por vendido y {@link #release} lo devuelve. Nunca se hace lectura-cálculo-escritura,
+ * así que dos checkouts concurrentes no pueden sobrevender.
+ * <p>
+ * Hay dos modos:
+ * <ul>
+ *   <li>base de datos (por defecto): la reserva es un lote de {@code UPDATE} condicionales
+ *   ({@code stock >= cantidad}). En el checkout corre dentro de la transacción del pedido, con
+ *   su misma conexión: si el pedido hace rollback MySQL devuelve el stock solo. Fuera de una
+ *   transacción (barrido, conciliación, reservas sueltas) usa una transacción propia y corta.</li>
+ *   <li>memoria ({@code stock.reservation.in-memory=true}, para ventas flash): cada producto
+ *   tiene un contador en memoria y las ventas confirmadas se descuentan en MySQL en segundo
+ *   plano, agrupadas. Solo sirve con una única instancia de la API.</li>
+ * </ul>
+ * Las reservas que no se confirman ni se liberan vencen a los {@code stock.reservation.ttl}, salvo
+ * las atadas a una transacción todavía abierta (las resuelve esa transacción al terminar).
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = Logger.getLogger(StockReservationService.class.getName());
+
+    private final ProductStockRepository productStockRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate requiresNew;
+    private final boolean inMemory;
+    private final Duration ttl;
+
+    private final Map<String, StockReservation> reservations = new ConcurrentHashMap<>();
+    // Reservas atadas a una transacción abierta: las resuelve esa transacción, nunca el barrido
+    private final Set<String> bound = ConcurrentHashMap.newKeySet();
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    // Ventas ya retiradas de los contadores que todavía no se descontaron en MySQL: las de la
+    // pasada en curso y las que fallaron en pasadas anteriores. Mientras un producto figure acá,
+    // su contador no se descarta (recargarlo desde MySQL volvería a ofrecer esas unidades)
+    private final Map<Long, Integer> pendingFlush = new ConcurrentHashMap<>();
+    // Una pasada de reconcile() a la vez; no es synchronized porque espera a MySQL
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    public StockReservationService(ProductStockRepository productStockRepository,
+                                   ProductRepository productRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${stock.reservation.in-memory:false}") boolean inMemory,
+                                   @Value("${stock.reservation.ttl:10m}") Duration ttl) {
+        this.productStockRepository = productStockRepository;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.inMemory = inMemory;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Retiene stock para todas las líneas, o para ninguna.
+     *
+     * @param quantities id de producto -> cantidad
+     * @throws InsufficientStockException si alguna línea no tiene stock suficiente
+     * @throws ResourceNotFoundException  si algún producto no existe o está inactivo
+     */
+    public StockReservation reserve(Map<Long, Integer> quantities) {
+        return reserve(quantities, false);
+    }
+
+    /**
+     * Reserva y ata el resultado a la transacción en curso: si hace commit la reserva se
+     * confirma y si hace rollback se libera. Sin transacción activa se confirma en el acto.
+     * En modo base de datos el descuento es parte de la transacción en curso, así un checkout
+     * nunca necesita una segunda conexión del pool.
+     */
+    public StockReservation reserveForCurrentTransaction(Map<Long, Integer> quantities) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            StockReservation reservation = reserve(quantities, false);
+            commit(reservation.id());
+            return reservation;
+        }
+        if (!inMemory && TransactionSynchronizationManager.isActualTransactionActive()) {
+            // No queda nada que confirmar ni liberar: el commit o el rollback del pedido lo resuelven
+            Map<Long, Integer> lines = new TreeMap<>(quantities);
+            decrementOrReject(lines);
+            return new StockReservation(UUID.randomUUID().toString(), Map.copyOf(lines), Instant.now().plus(ttl));
+        }
+        StockReservation reservation = reserve(quantities, true);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Sin la reserva el stock pudo haberse vendido a otro: el pedido no puede confirmarse
+                if (!reservations.containsKey(reservation.id())) {
+                    throw new InsufficientStockException(
+                            "La reserva de stock del pedido ya no existe; vuelva a intentar la compra");
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        commit(reservation.id());
+                    } else {
+                        release(reservation.id());
+                    }
+                } finally {
+                    bound.remove(reservation.id());
+                }
+            }
+        });
+        return reservation;
+    }
+
+    /**
+     * Da por vendido el stock reservado.
+     *
+     * @return false si la reserva no existe (ya confirmada, liberada o vencida)
+     */
+    public boolean commit(String reservationId) {
+        StockReservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            logger.warning("Se intentó confirmar una reserva inexistente o vencida: " + reservationId);
+            return false;
+        }
+        if (inMemory) {
+            reservation.quantities().forEach((productId, quantity) ->
+                    counters.computeIfPresent(productId, (id, counter) -> {
+                        counter.commit(quantity);
+                        return counter;
+                    }));
+        }
+        // En modo base de datos el stock ya se descontó al reservar
+        return true;
+    }
+
+    /**
+     * Devuelve al stock lo reservado. Si MySQL falla, la reserva vuelve a la lista ya vencida
+     * y el barrido reintenta la devolución, así las unidades no se pierden.
+     *
+     * @return false si la reserva no existe (ya confirmada, liberada o vencida)
+     */
+    public boolean release(String reservationId) {
+        StockReservation reservation = reservations.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        if (inMemory) {
+            reservation.quantities().forEach(this::giveBack);
+            return true;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                productStockRepository.incrementAll(reservation.quantities());
+                publishChanges(reservation.quantities());
+            });
+        } catch (RuntimeException e) {
+            reservations.put(reservationId, reservation.expired());
+            logger.warning("No se pudo liberar la reserva " + reservationId + ", se reintenta: " + e.getMessage());
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Libera las reservas de checkouts que nunca terminaron. Las atadas a una transacción
+     * abierta no se tocan: el pedido todavía puede confirmarse.
+     */
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval:30s}")
+    public void expireReservations() {
+        Instant now = Instant.now();
+        for (StockReservation reservation : reservations.values()) {
+            if (!reservation.isExpired(now) || bound.contains(reservation.id())) {
+                continue;
+            }
+            try {
+                if (release(reservation.id())) {
+                    logger.warning("Reserva de stock vencida y liberada: " + reservation.id());
+                }
+            } catch (RuntimeException e) {
+                // release() ya la dejó para la próxima pasada
+            }
+        }
+    }
+
+    /**
+     * Descuenta en MySQL, en un solo lote, las ventas confirmadas desde la última pasada.
+     */
+    @Scheduled(fixedDelayString = "${stock.reservation.reconcile-interval:1s}")
+    public void reconcile() {
+        if (!inMemory) {
+            return;
+        }
+        reconcileLock.lock();
+        try {
+            flushConfirmed();
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void flushConfirmed() {
+        for (Long productId : counters.keySet()) {
+            counters.computeIfPresent(productId, (id, counter) -> {
+                // Dentro del compute: onProductChanged no puede ver el contador ya vaciado
+                // sin que las unidades estén en pendingFlush
+                int drained = counter.drainUnflushed();
+                if (drained > 0) {
+                    pendingFlush.merge(id, drained, Integer::sum);
+                }
+                return counter;
+            });
+        }
+        Map<Long, Integer> deltas = new HashMap<>(pendingFlush);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Long> rejected;
+        try {
+            rejected = requiresNew.execute(status -> {
+                List<Long> notApplied = productStockRepository.decrementConfirmed(deltas);
+                Map<Long, Integer> applied = new HashMap<>(deltas);
+                notApplied.forEach(applied::remove);
+                publishChanges(applied);
+                return notApplied;
+            });
+        } catch (RuntimeException e) {
+            logger.warning("No se pudo conciliar el stock en memoria, se reintenta: " + e.getMessage());
+            return;
+        }
+        deltas.keySet().stream()
+                .filter(productId -> !rejected.contains(productId))
+                .forEach(pendingFlush::remove);
+        if (!rejected.isEmpty()) {
+            logger.severe("Sobreventa: el stock en MySQL no alcanza para las ventas confirmadas de los productos "
+                    + rejected + "; quedan pendientes hasta que se corrija el stock");
+        }
+    }
+
+    /**
+     * Un cambio de producto hecho por otro camino (alta de stock, edición, baja) invalida el
+     * contador en memoria. Solo se descarta si está ocioso: con reservas o ventas pendientes
+     * (en el contador o en pendingFlush) sigue mandando el contador y el cambio se ve cuando
+     * la venta termina.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (inMemory) {
+            // pendingFlush se consulta dentro del compute, serializado con el vaciado de reconcile()
+            counters.computeIfPresent(event.productId(), (id, counter) ->
+                    counter.isIdle() && !pendingFlush.containsKey(id) ? null : counter);
+        }
+    }
+
+    /**
+     * Unidades disponibles según el contador en memoria, o null si el producto no tiene contador.
+     */
+    public Integer getAvailableInMemory(Long productId) {
+        StockCounter counter = counters.get(productId);
+        return counter != null ? counter.getAvailable() : null;
+    }
+
+    private StockReservation reserve(Map<Long, Integer> quantities, boolean boundToTransaction) {
+        Map<Long, Integer> lines = new TreeMap<>(quantities);
+        if (inMemory) {
+            reserveInMemory(lines);
+        } else {
+            reserveInDatabase(lines);
+        }
+        StockReservation reservation = new StockReservation(UUID.randomUUID().toString(),
+                Map.copyOf(lines), Instant.now().plus(ttl));
+        // Se marca antes de publicarla, así el barrido nunca la ve suelta
+        if (boundToTransaction) {
+            bound.add(reservation.id());
+        }
+        reservations.put(reservation.id(), reservation);
+        return reservation;
+    }
+
+    private void reserveInDatabase(Map<Long, Integer> lines) {
+        requiresNew.executeWithoutResult(status -> decrementOrReject(lines));
+    }
+
+    private void decrementOrReject(Map<Long, Integer> lines) {
+        List<Long> rejected = productStockRepository.decrementAll(lines);
+        if (!rejected.isEmpty()) {
+            throw rejection(rejected.get(0));
+        }
+        publishChanges(lines);
+    }
+
+    private void reserveInMemory(Map<Long, Integer> lines) {
+        List<Map.Entry<Long, Integer>> taken = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            if (!tryTake(line.getKey(), line.getValue())) {
+                taken.forEach(previous -> giveBack(previous.getKey(), previous.getValue()));
+                throw rejection(line.getKey());
+            }
+            taken.add(line);
+        }
+    }
+
+    private boolean tryTake(Long productId, int quantity) {
+        while (true) {
+            if (!counters.containsKey(productId)) {
+                int stock = productRepository.findStockById(productId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + productId));
+                counters.putIfAbsent(productId, new StockCounter(stock));
+            }
+            boolean[] reserved = {false};
+            StockCounter counter = counters.computeIfPresent(productId, (id, current) -> {
+                reserved[0] = current.tryReserve(quantity);
+                return current;
+            });
+            // Si el contador se descartó entre la carga y la reserva, se vuelve a cargar
+            if (counter != null) {
+                return reserved[0];
+            }
+        }
+    }
+
+    private void giveBack(Long productId, int quantity) {
+        counters.computeIfPresent(productId, (id, counter) -> {
+            counter.release(quantity);
+            return counter;
+        });
+    }
+
+    private RuntimeException rejection(Long productId) {
+        return productRepository.findActiveById(productId)
+                .<RuntimeException>map(product -> new InsufficientStockException(
+                        "Stock insuficiente para el producto: " + product.getName()))
+                .orElseGet(() -> new ResourceNotFoundException("Producto no encontrado con id: " + productId));
+    }
+
+    private void publishChanges(Map<Long, Integer> quantities) {
+        quantities.keySet().forEach(productId -> eventPublisher.publishEvent(new ProductChangedEvent(productId)));
+    }
+}
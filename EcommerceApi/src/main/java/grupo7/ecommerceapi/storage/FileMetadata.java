@@ -0,0 +1,28 @@
+package grupo7.ecommerceapi.storage;
+
+import org.springframework.http.MediaType;
+
+import java.nio.file.Path;
+
+/**
+ * Datos de un archivo guardado que hacen falta para servirlo: se calculan una vez y se
+ * reutilizan, así los requests repetidos no vuelven a consultar el filesystem.
+ */
+public record FileMetadata(String fileName, Path path, long size, long lastModified, MediaType contentType,
+                           String digest) {
+
+    public FileMetadata(String fileName, Path path, long size, long lastModified, MediaType contentType) {
+        this(fileName, path, size, lastModified, contentType, null);
+    }
+
+    /**
+     * ETag fuerte: si el archivo está direccionado por contenido es su SHA-256; si no,
+     * como los nombres son UUID y el contenido no cambia nunca, alcanzan fecha y tamaño.
+     */
+    public String eTag() {
+        if (digest != null) {
+            return "\"" + digest + "\"";
+        }
+        return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+    }
+}
@@ -0,0 +1,50 @@
+package grupo7.ecommerceapi.storage;
+
+import java.util.Optional;
+
+/**
+ * Reconoce el formato de una imagen por sus primeros bytes (magic numbers), sin confiar
+ * en el Content-Type ni en la extensión que manda el cliente.
+ */
+public final class ImageSniffer {
+
+    /**
+     * Bytes necesarios para reconocer cualquiera de los formatos soportados
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    private ImageSniffer() {
+    }
+
+    /**
+     * Devuelve la extensión canónica (".jpg", ".png", ".gif", ".webp") o vacío si los
+     * bytes no corresponden a una imagen soportada
+     */
+    public static Optional<String> detectExtension(byte[] header) {
+        if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of(".jpg");
+        }
+        if (startsWith(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return Optional.of(".png");
+        }
+        if (startsWith(header, 0, 'G', 'I', 'F', '8')) {
+            return Optional.of(".gif");
+        }
+        if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) {
+            return Optional.of(".webp");
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int... expected) {
+        if (data.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((data[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
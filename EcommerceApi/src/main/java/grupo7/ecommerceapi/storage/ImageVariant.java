@@ -0,0 +1,48 @@
+package grupo7.ecommerceapi.storage;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Tamaños derivados que se generan para cada imagen subida. Se piden con
+ * {@code /files/{nombre}?size=thumb|medium}.
+ */
+public enum ImageVariant {
+
+    THUMBNAIL("thumb", 200),
+    MEDIUM("medium", 600);
+
+    private final String qualifier;
+    private final int maxDimension;
+
+    ImageVariant(String qualifier, int maxDimension) {
+        this.qualifier = qualifier;
+        this.maxDimension = maxDimension;
+    }
+
+    public String getQualifier() {
+        return qualifier;
+    }
+
+    /**
+     * Lado mayor (ancho o alto) de la imagen derivada, en píxeles
+     */
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Nombre del archivo derivado: {@code <uuid>.png} -> {@code <uuid>_thumb.jpg}
+     */
+    public String fileNameFor(String originalFileName) {
+        int lastDotIndex = originalFileName.lastIndexOf('.');
+        String baseName = lastDotIndex > 0 ? originalFileName.substring(0, lastDotIndex) : originalFileName;
+        return baseName + "_" + qualifier + ".jpg";
+    }
+
+    public static Optional<ImageVariant> fromQualifier(String qualifier) {
+        return Arrays.stream(values())
+                .filter(variant -> variant.qualifier.equalsIgnoreCase(qualifier))
+                .findFirst();
+    }
+}
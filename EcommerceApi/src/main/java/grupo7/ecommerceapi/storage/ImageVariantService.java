@@ -0,0 +1,187 @@
+package grupo7.ecommerceapi.storage;
+
+import grupo7.ecommerceapi.service.FileStorageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Genera versiones reducidas (miniatura y mediana) de cada imagen subida, en JPEG.
+ * Corre en un pool propio para no demorar la respuesta del upload; mientras una variante
+ * no existe, {@code /files/{nombre}?size=...} sirve el original.
+ *
+ * <p>Antes de decodificar se leen las dimensiones del encabezado: un PNG de pocos KB puede
+ * declarar 50.000 x 50.000 píxeles y ocupar 10GB al descomprimirse. Las imágenes por encima de
+ * {@code image.variants.max-pixels} se dejan sin variantes, y las grandes pero aceptadas se
+ * decodifican submuestreadas, sin superar el doble de la variante más grande.</p>
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = Logger.getLogger(ImageVariantService.class.getName());
+
+    private final FileStorageService fileStorageService;
+    private final boolean enabled;
+    // Lado mayor a partir del cual se decodifica submuestreado (el doble de la variante más grande,
+    // para que el escalado bicúbico tenga detalle de sobra)
+    private static final int DECODE_DIMENSION = 2 * Arrays.stream(ImageVariant.values())
+            .mapToInt(ImageVariant::getMaxDimension).max().orElse(0);
+
+    private final float jpegQuality;
+    private final long maxPixels;
+
+    public ImageVariantService(FileStorageService fileStorageService,
+                               @Value("${image.variants.enabled:true}") boolean enabled,
+                               @Value("${image.variants.jpeg-quality:0.8}") float jpegQuality,
+                               @Value("${image.variants.max-pixels:40000000}") long maxPixels) {
+        this.fileStorageService = fileStorageService;
+        this.enabled = enabled;
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+    }
+
+    @Async("imageProcessingExecutor")
+    public void generateVariantsAsync(String fileName) {
+        generateVariants(fileName);
+    }
+
+    /**
+     * Genera todas las variantes de una imagen ya guardada. Los formatos que ImageIO no
+     * sabe leer (por ejemplo WebP o SVG) se dejan sin variantes.
+     */
+    public void generateVariants(String fileName) {
+        if (!enabled) {
+            return;
+        }
+
+        Optional<Path> original = fileStorageService.resolveStoredFile(fileName);
+        if (original.isEmpty()) {
+            return;
+        }
+
+        try {
+            BufferedImage source = readBounded(original.get(), fileName);
+            if (source == null) {
+                return;
+            }
+            for (ImageVariant variant : ImageVariant.values()) {
+                Optional<Path> target = fileStorageService.resolveStoredFile(variant.fileNameFor(fileName));
+                // Con almacenamiento por contenido, una foto repetida ya tiene sus variantes
+                if (target.isPresent() && !Files.exists(target.get())) {
+                    writeJpeg(resize(source, variant.getMaxDimension()), target.get());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "No se pudieron generar las variantes de " + fileName, e);
+        }
+    }
+
+    /**
+     * Decodifica la imagen solo si sus dimensiones declaradas están dentro del límite
+     *
+     * @return null si el formato no está soportado o la imagen es demasiado grande
+     */
+    private BufferedImage readBounded(Path file, String fileName) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                logger.fine(() -> "Formato de imagen no soportado para variantes: " + fileName);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > maxPixels) {
+                    logger.warning(() -> "Imagen de " + width + "x" + height + " píxeles excede el límite de "
+                            + maxPixels + ": se omiten las variantes de " + fileName);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = subsampling(width, height);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Mayor factor que deja el lado mayor en al menos DECODE_DIMENSION píxeles
+     */
+    static int subsampling(int width, int height) {
+        return Math.max(1, Math.max(width, height) / DECODE_DIMENSION);
+    }
+
+    /**
+     * Escala manteniendo la proporción (nunca agranda) y aplana la transparencia sobre blanco
+     */
+    static BufferedImage resize(BufferedImage source, int maxDimension) {
+        double scale = Math.min(1.0,
+                (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Escribe a un temporal y lo mueve al final, así nunca se sirve un archivo a medio escribir
+     */
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package grupo7.ecommerceapi.storage;
+
+/**
+ * Resultado de guardar un upload: el nombre con el que se sirve y los bytes escritos.
+ */
+public record StoredUpload(String fileName, long size) {
+}
@@ -0,0 +1,53 @@
+package grupo7.ecommerceapi.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Contadores de uploads (aceptados, rechazados, bytes y tiempo de escritura) para medir
+ * el throughput real de subida. Se consultan en /health/uploads.
+ */
+@Component
+public class UploadMetrics {
+
+    private static final Logger logger = Logger.getLogger(UploadMetrics.class.getName());
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    public void recordAccepted(StoredUpload upload, long elapsedNanos) {
+        accepted.increment();
+        bytes.add(upload.size());
+        nanos.add(elapsedNanos);
+        logger.fine(() -> String.format("Upload %s: %d bytes en %.1f ms (%.2f MB/s)",
+                upload.fileName(), upload.size(), elapsedNanos / 1_000_000.0,
+                megabytesPerSecond(upload.size(), elapsedNanos)));
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    public Map<String, Object> snapshot() {
+        long totalBytes = bytes.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("accepted", accepted.sum());
+        snapshot.put("rejected", rejected.sum());
+        snapshot.put("bytes", totalBytes);
+        snapshot.put("throughputMBps", Math.round(megabytesPerSecond(totalBytes, nanos.sum()) * 100) / 100.0);
+        return snapshot;
+    }
+
+    private static double megabytesPerSecond(long size, long elapsedNanos) {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return (size / (1024.0 * 1024.0)) / (elapsedNanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,18 @@
+package grupo7.ecommerceapi.util;
+
+import java.security.Principal;
+
+/**
+ * Principal liviano que el filtro JWT guarda en el SecurityContext. Alcanza para
+ * identificar a quien llama sin ir a la base de datos. El rol es el que figura en el token y
+ * puede estar desactualizado: no se usa para autorizar.
+ */
+public record AuthenticatedUser(Long userId, String email, String role) implements Principal {
+
+    public static final String DEFAULT_ROLE = "USER";
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
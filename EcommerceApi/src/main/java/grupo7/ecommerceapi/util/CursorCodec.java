@@ -0,0 +1,103 @@
+package grupo7.ecommerceapi.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Codifica y decodifica los cursores opacos de la paginación por keyset de productos.
+ * El cursor guarda el criterio de orden y los valores de la última fila devuelta.
+ */
+@Component
+public class CursorCodec {
+
+    private static final Set<String> SORT_KEYS = Set.of("id", "name", "price");
+    private static final TypeReference<Map<String, Object>> TOKEN_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    public CursorCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Posición de scroll y orden a usar en una consulta.
+     */
+    public record Cursor(String sortBy, Sort.Direction direction, ScrollPosition position) {
+
+        public Sort sort() {
+            return Sort.by(direction, sortBy);
+        }
+    }
+
+    /**
+     * Cursor inicial (primera página) para el orden pedido.
+     */
+    public Cursor first(String sortBy, String sortDir) {
+        if (!SORT_KEYS.contains(sortBy)) {
+            throw new IllegalArgumentException("Orden no soportado para paginación por cursor: " + sortBy);
+        }
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return new Cursor(sortBy, direction, ScrollPosition.keyset());
+    }
+
+    public String encode(Cursor cursor, ScrollPosition next) {
+        if (!(next instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalStateException("Se esperaba una posición de tipo keyset");
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keyset.getKeys().forEach((key, value) -> keys.put(key, value != null ? value.toString() : null));
+
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("s", cursor.sortBy());
+        token.put("d", cursor.direction().name());
+        token.put("k", keys);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(token));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo generar el cursor", ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Cursor decode(String value) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(value.getBytes(StandardCharsets.US_ASCII));
+            Map<String, Object> token = objectMapper.readValue(json, TOKEN_TYPE);
+
+            String sortBy = (String) token.get("s");
+            Cursor first = first(sortBy, (String) token.get("d"));
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            ((Map<String, Object>) token.get("k")).forEach((key, raw) -> keys.put(key, toKeyValue(key, raw)));
+            return new Cursor(sortBy, first.direction(), ScrollPosition.forward(keys));
+        } catch (IllegalArgumentException | ClassCastException | NullPointerException | IOException ex) {
+            throw new IllegalArgumentException("Cursor inválido", ex);
+        }
+    }
+
+    private static Object toKeyValue(String key, Object raw) {
+        if (raw == null) {
+            return null;
+        }
+        return switch (key) {
+            case "id" -> Long.valueOf(raw.toString());
+            case "price" -> new BigDecimal(raw.toString());
+            case "name" -> raw.toString();
+            default -> throw new IllegalArgumentException("Clave de cursor desconocida: " + key);
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package grupo7.ecommerceapi.util;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Caché en memoria acotada, con vencimiento por entrada. Las lecturas no bloquean;
+ * al llenarse se descartan primero las entradas vencidas y después las que vencen antes.
+ */
+public class ExpiringCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    public ExpiringCache(int maxSize) {
+        this(maxSize, System::currentTimeMillis);
+    }
+
+    ExpiringCache(int maxSize, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de la caché debe ser mayor a 0");
+        }
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Devuelve el valor guardado, o null si no existe o ya venció.
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= clock.getAsLong()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public void put(K key, V value, Duration ttl) {
+        put(key, value, clock.getAsLong() + ttl.toMillis());
+    }
+
+    /**
+     * Guarda el valor hasta {@code expiresAtMillis} (epoch en milisegundos).
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private synchronized void evict() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        long now = clock.getAsLong();
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+
+        // Se deja un 10% libre para no volver a recorrer la caché en cada inserción
+        int excess = entries.size() - maxSize * 9 / 10;
+        if (excess > 0) {
+            List<K> oldest = entries.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().expiresAt()))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            oldest.forEach(entries::remove);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package grupo7.ecommerceapi.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,35 +10,59 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    private final Long expiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Duration cacheTtl;
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    // digest SHA-256 del token -> claims ya verificados
+    private final ExpiringCache<String, Claims> verifiedTokens;
 
     /**
-     * Genera la clave secreta a partir de la cadena de configuración
+     * La clave y el parser se construyen una sola vez: derivar la clave HMAC y armar
+     * el parser en cada request era una parte medible del costo de autenticación.
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JwtUtil(@Value("${jwt.secret}") String secretKey,
+                   @Value("${jwt.expiration}") Long expiration,
+                   @Value("${jwt.cache.max-size:10000}") int cacheMaxSize,
+                   @Value("${jwt.cache.ttl:5m}") Duration cacheTtl) {
+        this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.cacheTtl = cacheTtl;
+        this.verifiedTokens = new ExpiringCache<>(cacheMaxSize);
     }
 
     /**
      * Genera un token JWT para un usuario
      */
     public String generateToken(Long userId, String email) {
+        return generateToken(userId, email, null);
+    }
+
+    /**
+     * Genera un token JWT para un usuario incluyendo su rol
+     */
+    public String generateToken(Long userId, String email, String role) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("email", email);
+        if (role != null) {
+            claims.put("role", role);
+        }
         return createToken(claims, email);
     }
 
@@ -44,15 +70,29 @@ public class JwtUtil {
      * Crea el token JWT
      */
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .claims(claims)
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Verifica firma y vencimiento y devuelve los claims, o vacío si el token no es válido.
+     * Los tokens ya verificados se recuerdan (por su digest) hasta que vencen, así que los
+     * requests siguientes de la misma sesión no repiten el HMAC ni la decodificación del JSON.
+     */
+    public Optional<Claims> parseToken(String token) {
+        try {
+            return Optional.of(extractAllClaims(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Extrae el email (subject) del token
      */
@@ -72,7 +112,13 @@ public class JwtUtil {
      * Extrae el userId del token
      */
     public Long extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
+        return getUserId(extractAllClaims(token));
+    }
+
+    /**
+     * Obtiene el userId de claims ya verificados
+     */
+    public Long getUserId(Claims claims) {
         Object userIdObj = claims.get("userId");
         if (userIdObj instanceof Integer) {
             return ((Integer) userIdObj).longValue();
@@ -98,14 +144,24 @@ public class JwtUtil {
     }
 
     /**
-     * Extrae todos los claims del token
+     * Extrae todos los claims del token, usando la caché de tokens verificados
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        String digest = digest(token);
+        Claims cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        // El parser rechaza firmas inválidas y tokens vencidos
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        long cacheUntil = System.currentTimeMillis() + cacheTtl.toMillis();
+        Date tokenExpiration = claims.getExpiration();
+        if (tokenExpiration != null) {
+            cacheUntil = Math.min(cacheUntil, tokenExpiration.getTime());
+        }
+        verifiedTokens.put(digest, claims, cacheUntil);
+        return claims;
     }
 
     /**
@@ -140,4 +196,13 @@ public class JwtUtil {
     public String extractRole(String token) {
         return extractClaim(token, claims -> claims.get("role", String.class));
     }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
 }
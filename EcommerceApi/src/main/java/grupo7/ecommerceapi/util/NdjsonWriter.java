@@ -0,0 +1,65 @@
+package grupo7.ecommerceapi.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Escribe resultados grandes como NDJSON (un objeto JSON por línea) a medida que se
+ * producen, sin armar la lista completa ni el documento entero en memoria.
+ */
+@Component
+public class NdjsonWriter {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    // Cada cuántos registros se empuja lo escrito hacia el cliente
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectWriter writer;
+
+    public NdjsonWriter(ObjectMapper objectMapper) {
+        // Sin flush por valor: el generador junta varias líneas antes de escribir al socket
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Prepara la respuesta y le pasa a {@code producer} un consumidor que escribe cada
+     * elemento recibido como una línea.
+     */
+    public <T> void write(HttpServletResponse response, Consumer<Consumer<T>> producer) throws IOException {
+        response.setContentType(MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        write(response.getOutputStream(), producer);
+    }
+
+    public <T> void write(OutputStream output, Consumer<Consumer<T>> producer) throws IOException {
+        try (JsonGenerator generator = writer.createGenerator(output)) {
+            // Jackson separa valores raíz con un espacio; acá el separador es el salto de línea
+            generator.setRootValueSeparator(null);
+            int[] written = {0};
+            producer.accept(item -> {
+                try {
+                    writer.writeValue(generator, item);
+                    generator.writeRaw('\n');
+                    if (++written[0] % FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
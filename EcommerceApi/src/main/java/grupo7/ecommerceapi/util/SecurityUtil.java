@@ -1,41 +1,85 @@
 package grupo7.ecommerceapi.util;
 
 import grupo7.ecommerceapi.entity.User;
+import grupo7.ecommerceapi.event.UserChangedEvent;
 import grupo7.ecommerceapi.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.util.Optional;
 
 @Component
-@RequiredArgsConstructor
 public class SecurityUtil {
 
     private final UserRepository userRepository;
+    private final Duration userCacheTtl;
+
+    // userId -> copia desacoplada del usuario activo; se invalida al editar o dar de baja
+    private final ExpiringCache<Long, User> activeUsers;
+
+    public SecurityUtil(UserRepository userRepository,
+                        @Value("${security.user-cache.max-size:10000}") int userCacheMaxSize,
+                        @Value("${security.user-cache.ttl:1m}") Duration userCacheTtl) {
+        this.userRepository = userRepository;
+        this.userCacheTtl = userCacheTtl;
+        this.activeUsers = new ExpiringCache<>(userCacheMaxSize);
+    }
 
     /**
-     * Obtiene el usuario autenticado desde el SecurityContext
+     * Obtiene el principal autenticado tal como lo dejó el filtro JWT
      */
-    public Optional<User> getCurrentUser() {
+    public Optional<AuthenticatedUser> getCurrentPrincipal() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication != null && authentication.isAuthenticated()
-                && authentication.getPrincipal() instanceof String) {
-            String email = (String) authentication.getPrincipal();
-            System.out.println("DEBUG: SecurityUtil.getCurrentUser - Email del principal: " + email);
-            Optional<User> user = userRepository.findActiveByEmail(email);
-            if (user.isEmpty()) {
-                System.out.println("DEBUG: SecurityUtil.getCurrentUser - No se encontró usuario con email: " + email);
-            } else {
-                System.out.println("DEBUG: SecurityUtil.getCurrentUser - Usuario encontrado: " + user.get().getEmail());
-            }
-            return user;
+                && authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return Optional.of(principal);
         }
 
-        System.out.println("DEBUG: SecurityUtil.getCurrentUser - No hay autenticación válida. Principal: " + 
-            (authentication != null ? authentication.getPrincipal().getClass().getName() : "null"));
+        return Optional.empty();
+    }
+
+    /**
+     * Id del usuario autenticado, tomado del principal. Se confirma que siga activo con la
+     * caché de usuarios, así que en general no consulta la base.
+     */
+    public Optional<Long> getCurrentUserId() {
+        Optional<AuthenticatedUser> principal = getCurrentPrincipal();
+        if (principal.isPresent() && principal.get().userId() != null) {
+            Long userId = principal.get().userId();
+            return isActive(userId) ? Optional.of(userId) : Optional.empty();
+        }
+        return getCurrentUser().map(User::getId);
+    }
+
+    /**
+     * Obtiene el usuario autenticado desde el SecurityContext. Los usuarios activos se
+     * guardan en memoria por un rato corto, así que los requests de una misma sesión no
+     * vuelven a consultar la tabla users. Con o sin caché se devuelve una copia desacoplada
+     * de la sesión (solo datos escalares), nunca la entidad administrada.
+     */
+    public Optional<User> getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return Optional.empty();
+        }
+
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            if (authenticatedUser.userId() == null) {
+                // Tokens emitidos sin userId: se resuelven por email, sin caché
+                return userRepository.findActiveByEmail(authenticatedUser.email()).map(SecurityUtil::snapshot);
+            }
+            return findActiveUser(authenticatedUser.userId()).map(SecurityUtil::snapshot);
+        }
+        if (principal instanceof String email) {
+            return userRepository.findActiveByEmail(email).map(SecurityUtil::snapshot);
+        }
         return Optional.empty();
     }
 
@@ -45,11 +89,69 @@ public class SecurityUtil {
     public Optional<String> getCurrentUserEmail() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-        if (authentication != null && authentication.isAuthenticated()
-                && authentication.getPrincipal() instanceof String) {
-            return Optional.of((String) authentication.getPrincipal());
+        if (authentication != null && authentication.isAuthenticated()) {
+            if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+                return Optional.ofNullable(principal.email());
+            }
+            if (authentication.getPrincipal() instanceof String email) {
+                return Optional.of(email);
+            }
         }
 
         return Optional.empty();
     }
+
+    /**
+     * Descarta el usuario cacheado; se llama cuando cambian sus datos o se da de baja
+     */
+    public void evictUser(Long userId) {
+        if (userId != null) {
+            activeUsers.invalidate(userId);
+        }
+    }
+
+    /**
+     * Recién después del commit: si se descartara antes, un request concurrente podría volver
+     * a cachear los datos viejos que todavía ve en la base.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evictUser(event.userId());
+    }
+
+    private boolean isActive(Long userId) {
+        return findActiveUser(userId).isPresent();
+    }
+
+    /**
+     * Copia cacheada del usuario activo; quien la devuelva hacia afuera tiene que copiarla
+     */
+    private Optional<User> findActiveUser(Long userId) {
+        User cached = activeUsers.get(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<User> user = userRepository.findById(userId).filter(User::getIsActive).map(SecurityUtil::snapshot);
+        user.ifPresent(copy -> activeUsers.put(userId, copy, userCacheTtl));
+        return user;
+    }
+
+    /**
+     * Copia los datos escalares del usuario. Cada llamada recibe su propia instancia, sin
+     * colecciones lazy atadas a una sesión ya cerrada. El hash de la contraseña no se copia:
+     * nadie lo necesita para identificar a quien llama y no tiene por qué quedar en memoria.
+     */
+    private static User snapshot(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setSurname(user.getSurname());
+        copy.setEmail(user.getEmail());
+        copy.setIsActive(user.getIsActive());
+        copy.setRole(user.getRole());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
+    }
 }
@@ -0,0 +1,74 @@
+package grupo7.ecommerceapi.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalRegionFactoryTest {
+
+    private LocalRegionFactory regionFactory;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("hibernate.cache.local.default.max-size", "50");
+        settings.put("hibernate.cache.local.default.ttl", "10m");
+        settings.put("hibernate.cache.local.category-queries.ttl", "1h");
+        regionFactory = new LocalRegionFactory();
+        regionFactory.start(null, settings);
+    }
+
+    @Test
+    void regions_shouldTakeTheirOwnSettingsAndFallBackToDefault() {
+        regionFactory.createQueryResultsRegionStorageAccess(CacheRegions.CATEGORY_QUERIES, null);
+        regionFactory.createQueryResultsRegionStorageAccess("default-query-results-region", null);
+
+        Map<String, Object> snapshot = regionFactory.snapshot();
+
+        assertEquals("PT1H", region(snapshot, CacheRegions.CATEGORY_QUERIES).get("ttl"));
+        assertEquals(50, region(snapshot, CacheRegions.CATEGORY_QUERIES).get("maxSize"));
+        assertEquals("PT10M", region(snapshot, "default-query-results-region").get("ttl"));
+    }
+
+    @Test
+    void storage_shouldCountHitsMissesAndEvictions() {
+        LocalRegionStorage region = (LocalRegionStorage) regionFactory
+                .createQueryResultsRegionStorageAccess(CacheRegions.CATEGORY_QUERIES, null);
+
+        assertNull(region.getFromCache("activas", null));
+        region.putIntoCache("activas", "resultado", null);
+        assertEquals("resultado", region.getFromCache("activas", null));
+        region.evictData();
+
+        assertFalse(region.contains("activas"));
+        Map<String, Object> stats = region.snapshot();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(1L, stats.get("puts"));
+        assertEquals(1L, stats.get("evictions"));
+        assertEquals(0.5, stats.get("hitRatio"));
+    }
+
+    @Test
+    void timestampsRegion_shouldNotExpire() {
+        LocalRegionStorage timestamps = (LocalRegionStorage) regionFactory
+                .createTimestampsRegionStorageAccess("default-update-timestamps-region", null);
+
+        timestamps.putIntoCache("categories", 1L, null);
+
+        assertTrue(timestamps.contains("categories"));
+        assertEquals("none", timestamps.snapshot().get("ttl"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> region(Map<String, Object> snapshot, String name) {
+        return (Map<String, Object>) snapshot.get(name);
+    }
+}
@@ -0,0 +1,132 @@
+package grupo7.ecommerceapi.catalog;
+
+import grupo7.ecommerceapi.repository.CatalogVersionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogETagInterceptorTest {
+
+    @Test
+    void eTag_shouldDependOnVersionAndRequestParameters() {
+        String firstPage = CatalogETagInterceptor.eTag(1L, "/api/products", "page=0");
+
+        assertEquals(firstPage, CatalogETagInterceptor.eTag(1L, "/api/products", "page=0"));
+        assertNotEquals(firstPage, CatalogETagInterceptor.eTag(1L, "/api/products", "page=1"));
+        assertNotEquals(firstPage, CatalogETagInterceptor.eTag(2L, "/api/products", "page=0"));
+        assertNotEquals(firstPage, CatalogETagInterceptor.eTag(1L, "/api/products/offers", "page=0"));
+        assertTrue(firstPage.startsWith("W/\""));
+    }
+
+    @Test
+    void bump_shouldAdvanceTheCatalogVersion() {
+        CatalogVersion catalogVersion = localVersion(false);
+        long before = catalogVersion.current();
+
+        catalogVersion.onProductChanged(null);
+        catalogVersion.onCategoryChanged(null);
+
+        assertEquals(before + 2, catalogVersion.current());
+        assertTrue(catalogVersion.lastModified() > 0);
+    }
+
+    @Test
+    void preHandle_shouldAnswer304_whenIfNoneMatchIsCurrent_and200AfterABump() {
+        CatalogVersion catalogVersion = localVersion(false);
+        CatalogETagInterceptor interceptor = new CatalogETagInterceptor(catalogVersion);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get(null), first, null));
+        String eTag = first.getHeader(HttpHeaders.ETAG);
+        assertEquals(200, first.getStatus());
+
+        MockHttpServletResponse revalidated = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(get(eTag), revalidated, null));
+        assertEquals(304, revalidated.getStatus());
+
+        catalogVersion.bump();
+
+        MockHttpServletResponse afterBump = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get(eTag), afterBump, null));
+        assertEquals(200, afterBump.getStatus());
+        assertNotEquals(eTag, afterBump.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void preHandle_shouldOmitETag_whileReplicasMayBeBehind() {
+        CatalogVersion catalogVersion = localVersion(true);
+        CatalogETagInterceptor interceptor = new CatalogETagInterceptor(catalogVersion);
+        catalogVersion.bump();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get(null), response, null));
+
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+        assertEquals("no-store", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void sharedVersion_shouldBeSeenByEveryInstance() {
+        AtomicLong row = new AtomicLong(7);
+        CatalogVersionRepository repository = new CatalogVersionRepository(null) {
+            @Override
+            public void increment() {
+                row.incrementAndGet();
+            }
+
+            @Override
+            public Optional<Long> current() {
+                return Optional.of(row.get());
+            }
+        };
+        CatalogVersion writer = sharedVersion(repository);
+        CatalogVersion reader = sharedVersion(repository);
+        assertEquals(writer.current(), reader.current());
+
+        // El cambio solo se marca: la fila se incrementa en la próxima pasada programada
+        writer.onProductChanged(null);
+        writer.onProductChanged(null);
+        assertEquals(7, row.get());
+        assertFalse(writer.isSettled());
+
+        writer.refresh();
+        assertEquals(8, writer.current());
+        assertTrue(writer.isSettled());
+        assertEquals(7, reader.current());
+
+        reader.refresh();
+        assertEquals(8, reader.current());
+        assertEquals(CatalogETagInterceptor.eTag(writer.current(), "/api/products", null),
+                CatalogETagInterceptor.eTag(reader.current(), "/api/products", null));
+    }
+
+    private static CatalogVersion localVersion(boolean replicasEnabled) {
+        return new CatalogVersion(null, replicasEnabled, Duration.ofMinutes(1));
+    }
+
+    private static CatalogVersion sharedVersion(CatalogVersionRepository repository) {
+        CatalogVersion catalogVersion = new CatalogVersion(repository, false, Duration.ofMinutes(1));
+        catalogVersion.loadOnStartup();
+        return catalogVersion;
+    }
+
+    private static MockHttpServletRequest get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        request.setQueryString("page=0");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,134 @@
+package grupo7.ecommerceapi.catalog;
+
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CatalogSnapshotTest {
+
+    private Category electronics;
+    private Category books;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        electronics = category(1L, "Electronics");
+        books = category(2L, "Books");
+
+        snapshot = CatalogSnapshot.of(1L,
+                List.of(
+                        product(1L, "Notebook", 1000, null, electronics),
+                        product(2L, "Auriculares", 200, 150, electronics),
+                        product(3L, "Novela", 50, null, books)),
+                List.of(electronics, books));
+    }
+
+    @Test
+    void findAll_shouldSortByRequestedProperty() {
+        Page<Product> page = snapshot.findAll(PageRequest.of(0, 10, Sort.by("price").descending()));
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of(1L, 2L, 3L), page.getContent().stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void findAll_shouldPaginate() {
+        Page<Product> page = snapshot.findAll(PageRequest.of(1, 2, Sort.by("name")));
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+        assertEquals("Novela", page.getContent().get(0).getName());
+    }
+
+    @Test
+    void findByCategoryName_shouldIgnoreCase() {
+        Page<Product> page = snapshot.findByCategoryName("electronics", PageRequest.of(0, 10));
+
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    void findDiscounted_shouldReturnOnlyProductsWithActiveDiscount() {
+        Page<Product> page = snapshot.findDiscounted(PageRequest.of(0, 10));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals(2L, page.getContent().get(0).getId());
+    }
+
+    @Test
+    void findByPriceRange_shouldIncludeBounds() {
+        Page<Product> page = snapshot.findByPriceRange(BigDecimal.valueOf(50), BigDecimal.valueOf(200),
+                PageRequest.of(0, 10));
+
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    void withProduct_shouldReplaceWithoutMutatingPreviousSnapshot() {
+        Product updated = product(3L, "Novela", 80, null, books);
+
+        CatalogSnapshot next = snapshot.withProduct(2L, 3L, updated);
+
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(snapshot.getProduct(3L).getPrice()));
+        assertEquals(0, BigDecimal.valueOf(80).compareTo(next.getProduct(3L).getPrice()));
+        assertNotSame(updated, next.getProduct(3L));
+    }
+
+    @Test
+    void withProduct_shouldRemoveInactiveProducts() {
+        Product deleted = product(1L, "Notebook", 1000, null, electronics);
+        deleted.setIsActive(false);
+
+        CatalogSnapshot next = snapshot.withProduct(2L, 1L, deleted);
+
+        assertNull(next.getProduct(1L));
+        assertEquals(2, next.size());
+    }
+
+    @Test
+    void withProduct_shouldKeepEveryOrderSorted() {
+        CatalogSnapshot next = snapshot
+                .withProduct(2L, 1L, product(1L, "Agenda", 10, null, electronics))
+                .withProduct(3L, 4L, product(4L, "Mochila", 300, null, books));
+
+        assertEquals(List.of(1L, 3L, 2L, 4L), ids(next.findAll(PageRequest.of(0, 10, Sort.by("price")))));
+        assertEquals(List.of(1L, 2L, 4L, 3L), ids(next.findAll(PageRequest.of(0, 10, Sort.by("name")))));
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(next.findAll(PageRequest.of(0, 10))));
+    }
+
+    private List<Long> ids(Page<Product> page) {
+        return page.getContent().stream().map(Product::getId).toList();
+    }
+
+    private Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        category.setIsActive(true);
+        return category;
+    }
+
+    private Product product(Long id, String name, int price, Integer discount, Category category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(name);
+        product.setPrice(BigDecimal.valueOf(price));
+        product.setDiscount(discount != null ? BigDecimal.valueOf(discount) : null);
+        product.setCategory(category);
+        product.setStock(10);
+        product.setIsActive(true);
+        return product;
+    }
+}
@@ -0,0 +1,47 @@
+package grupo7.ecommerceapi.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshTicketsTest {
+
+    private final RefreshTickets tickets = new RefreshTickets();
+
+    @Test
+    void acceptProduct_shouldRejectOlderReadThatFinishesLater() {
+        long older = tickets.next();
+        long newer = tickets.next();
+
+        assertTrue(tickets.acceptProduct(1L, newer));
+        assertFalse(tickets.acceptProduct(1L, older));
+        assertTrue(tickets.acceptProduct(2L, older));
+    }
+
+    @Test
+    void acceptReload_shouldKeepProductsReadAfterTheReload() {
+        long before = tickets.next();
+        long reload = tickets.next();
+        long after = tickets.next();
+        tickets.acceptProduct(1L, before);
+        tickets.acceptProduct(2L, after);
+
+        assertTrue(tickets.acceptReload(reload));
+
+        assertEquals(Set.of(2L), tickets.newerThanReload());
+        assertFalse(tickets.acceptProduct(3L, before));
+    }
+
+    @Test
+    void acceptReload_shouldRejectOlderReload() {
+        long older = tickets.next();
+        long newer = tickets.next();
+
+        assertTrue(tickets.acceptReload(newer));
+        assertFalse(tickets.acceptReload(older));
+    }
+}
@@ -0,0 +1,80 @@
+package grupo7.ecommerceapi.datasource;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConnectionPoolMetricsTest {
+
+    private final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics(Duration.ofMillis(100));
+
+    @Test
+    void snapshot_shouldReportPoolStateAndAcquireHistogram() {
+        IMetricsTracker tracker = metrics.create("primary", new FixedPoolStats(8, 2, 3, 10));
+
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MICROSECONDS.toNanos(300));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(40));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(2_000));
+        tracker.recordConnectionUsageMillis(10);
+        tracker.recordConnectionUsageMillis(30);
+        tracker.recordConnectionTimeout();
+
+        Map<String, Object> pool = pool("primary");
+        assertEquals(8, pool.get("active"));
+        assertEquals(2, pool.get("idle"));
+        assertEquals(3, pool.get("pending"));
+        assertEquals(10, pool.get("total"));
+        assertEquals(20.0, pool.get("usageMeanMs"));
+
+        Map<String, Object> acquire = section(pool, "acquire");
+        assertEquals(3L, acquire.get("count"));
+        assertEquals(2_000.0, acquire.get("maxMs"));
+        assertEquals(1L, acquire.get("timeouts"));
+
+        Map<String, Object> histogram = section(acquire, "histogram");
+        assertEquals(1L, histogram.get("<=1ms"));
+        assertEquals(1L, histogram.get("<=50ms"));
+        assertEquals(1L, histogram.get("+Inf"));
+        assertEquals(0L, histogram.get("<=100ms"));
+    }
+
+    @Test
+    void bucketFor_shouldUseInclusiveUpperBounds() {
+        assertEquals(0, ConnectionPoolMetrics.bucketFor(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertEquals(1, ConnectionPoolMetrics.bucketFor(TimeUnit.MILLISECONDS.toNanos(2)));
+        assertEquals(6, ConnectionPoolMetrics.bucketFor(TimeUnit.MILLISECONDS.toNanos(1_000)));
+        assertEquals(7, ConnectionPoolMetrics.bucketFor(TimeUnit.MILLISECONDS.toNanos(1_001)));
+    }
+
+    private Map<String, Object> pool(String name) {
+        return section(metrics.snapshot(), name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> section(Map<String, Object> parent, String key) {
+        return (Map<String, Object>) parent.get(key);
+    }
+
+    private static final class FixedPoolStats extends PoolStats {
+
+        private FixedPoolStats(int active, int idle, int pending, int max) {
+            super(0);
+            this.activeConnections = active;
+            this.idleConnections = idle;
+            this.pendingThreads = pending;
+            this.totalConnections = active + idle;
+            this.maxConnections = max;
+        }
+
+        @Override
+        protected void update() {
+            // Valores fijos para la prueba
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package grupo7.ecommerceapi.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection;
+
+    // Retraso que informa la réplica en el próximo chequeo
+    private final AtomicReference<Duration> replicaLag = new AtomicReference<>(Duration.ZERO);
+
+    private ReplicaLagMonitor monitor;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new ReplicaLagMonitor(Map.of("replica-0", replica), connection -> replicaLag.get(),
+                Duration.ofSeconds(5));
+        routing = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica), monitor,
+                Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.clearStickiness();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void readOnlyTransaction_shouldUseHealthyReplica() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        monitor.checkReplicas();
+
+        beginTransaction(true);
+
+        assertSame(replicaConnection, routing.getConnection());
+    }
+
+    @Test
+    void readWriteTransaction_shouldUsePrimary() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        beginTransaction(false);
+
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    void readOnlyTransaction_shouldUsePrimary_whenReplicaLagsTooMuch() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        replicaLag.set(Duration.ofSeconds(30));
+        monitor.checkReplicas();
+
+        beginTransaction(true);
+
+        assertTrue(monitor.healthyReplicas().isEmpty());
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    void readOnlyTransaction_shouldUsePrimary_whenReplicationIsStopped() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        replicaLag.set(null);
+        monitor.checkReplicas();
+
+        assertTrue(monitor.healthyReplicas().isEmpty());
+    }
+
+    @Test
+    void readAfterWrite_shouldStickToPrimary_untilTheRequestEnds() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        monitor.checkReplicas();
+
+        beginTransaction(false);
+        routing.getConnection();
+        beginTransaction(true);
+
+        assertSame(primaryConnection, routing.getConnection());
+
+        ReplicaRoutingDataSource.clearStickiness();
+
+        assertSame(replicaConnection, routing.getConnection());
+        assertEquals(List.of("replica-0"), monitor.healthyReplicas());
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+}
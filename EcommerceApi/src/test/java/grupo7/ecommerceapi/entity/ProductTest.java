@@ -0,0 +1,63 @@
+package grupo7.ecommerceapi.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductTest {
+
+    @Test
+    void pricing_shouldBeDerivedFromPriceAndDiscount() {
+        Product product = new Product();
+        product.setPrice(new BigDecimal("200.00"));
+        product.setDiscount(new BigDecimal("150.00"));
+
+        assertTrue(product.hasDiscount());
+        assertEquals(new BigDecimal("150.00"), product.getActualPrice());
+        assertEquals(new BigDecimal("25.00"), product.getDiscountPercentage());
+        assertEquals("$200.00", product.getFormattedPrice());
+        assertEquals("$150.00", product.getFormattedActualPrice());
+    }
+
+    @Test
+    void pricing_shouldFollowLaterChanges() {
+        Product product = new Product();
+        product.setPrice(new BigDecimal("100.00"));
+        product.setDiscount(new BigDecimal("80.00"));
+
+        product.setDiscount(new BigDecimal("120.00"));
+
+        assertFalse(product.hasDiscount());
+        assertEquals(new BigDecimal("100.00"), product.getActualPrice());
+        assertEquals(BigDecimal.ZERO, product.getDiscountPercentage());
+    }
+
+    @Test
+    void setImage_shouldKeepTheDigestOfContentAddressedImages() {
+        String digest = "a".repeat(64);
+        Product product = new Product();
+
+        product.setImage("http://localhost:8080/api/files/" + digest + "_w320.webp?v=2");
+        assertEquals(digest, product.getImageDigest());
+
+        product.setImage("/images/mouse.png");
+        assertNull(product.getImageDigest());
+    }
+
+    @Test
+    void refreshPricing_shouldFillPersistedColumns() {
+        Product product = new Product();
+        product.setPrice(new BigDecimal("50.00"));
+        product.setDiscount(new BigDecimal("40.00"));
+
+        product.refreshPricing();
+
+        assertEquals(new BigDecimal("40.00"), product.getActualPrice());
+        assertTrue(product.hasDiscount());
+    }
+}
@@ -0,0 +1,178 @@
+package grupo7.ecommerceapi.outbox;
+
+import grupo7.ecommerceapi.entity.OutboxEvent;
+import grupo7.ecommerceapi.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private RecordingHandler handler;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        handler = new RecordingHandler();
+        relay = new OutboxRelay(outboxEventRepository, List.of(handler), true, 10, MAX_ATTEMPTS,
+                Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofDays(7), Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.shutdown();
+    }
+
+    @Test
+    void relayBatch_shouldDeliverInOrderAndMarkTheBatchProcessed() {
+        pending(event(1L, 10L, 0), event(2L, 11L, 0), event(3L, 10L, 0));
+
+        boolean more = relay.relayBatch();
+
+        assertEquals(List.of(1L, 2L, 3L), handler.delivered);
+        verify(outboxEventRepository).markProcessed(eq(List.of(1L, 2L, 3L)), eq(OutboxEvent.Status.PROCESSED),
+                any(LocalDateTime.class));
+        assertFalse(more);
+    }
+
+    @Test
+    void relayBatch_shouldHoldLaterEventsOfAFailedAggregate() {
+        handler.failing.add(1L);
+        pending(event(1L, 10L, 0), event(2L, 10L, 0), event(3L, 11L, 0));
+
+        relay.relayBatch();
+
+        // El evento 2 es del mismo pedido que el 1: espera a que el 1 se entregue
+        assertEquals(List.of(3L), handler.delivered);
+        verify(outboxEventRepository).recordFailure(eq(1L), eq(OutboxEvent.Status.PENDING), eq(1),
+                any(LocalDateTime.class), anyString());
+        verify(outboxEventRepository).markProcessed(eq(List.of(3L)), eq(OutboxEvent.Status.PROCESSED),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    void relayBatch_shouldSkipAggregatesWaitingForARetry() {
+        OutboxEvent waiting = event(1L, 10L, 1);
+        waiting.setNextAttemptAt(LocalDateTime.now().plusMinutes(1));
+        pending(waiting, event(2L, 10L, 0));
+
+        relay.relayBatch();
+
+        assertEquals(List.of(), handler.delivered);
+        verify(outboxEventRepository, never()).markProcessed(any(), any(), any());
+    }
+
+    @Test
+    void relayBatch_shouldOnlyReadEventsThatAreDue() {
+        pending(event(5L, 12L, 0));
+
+        relay.relayBatch();
+
+        // Los que esperan reintento se filtran en la consulta y no ocupan el lote
+        verify(outboxEventRepository).findDue(eq(OutboxEvent.Status.PENDING),
+                argThat(now -> !now.isAfter(LocalDateTime.now())), eq(Limit.of(10)));
+        assertEquals(List.of(5L), handler.delivered);
+    }
+
+    @Test
+    void relayBatch_shouldMarkEventFailed_whenAttemptsAreExhausted() {
+        handler.failing.add(1L);
+        pending(event(1L, 10L, MAX_ATTEMPTS - 1), event(2L, 10L, 0));
+
+        relay.relayBatch();
+
+        verify(outboxEventRepository).recordFailure(eq(1L), eq(OutboxEvent.Status.FAILED), eq(MAX_ATTEMPTS),
+                any(LocalDateTime.class), anyString());
+        // Un evento descartado ya no frena al resto de su agregado
+        assertEquals(List.of(2L), handler.delivered);
+    }
+
+    @Test
+    void relayBatch_shouldCountAHangingDeliveryAsFailed() {
+        handler.hanging.add(1L);
+        pending(event(1L, 10L, 0), event(2L, 11L, 0));
+
+        relay.relayBatch();
+
+        verify(outboxEventRepository).recordFailure(eq(1L), eq(OutboxEvent.Status.PENDING), eq(1),
+                any(LocalDateTime.class), argThat(error -> error.contains("TimeoutException")));
+        // El destino colgado no frena a los demás agregados
+        assertEquals(List.of(2L), handler.delivered);
+    }
+
+    @Test
+    void backoff_shouldDoubleUpToTheMaximum() {
+        assertEquals(Duration.ofSeconds(1), relay.backoff(1));
+        assertEquals(Duration.ofSeconds(2), relay.backoff(2));
+        assertEquals(Duration.ofSeconds(16), relay.backoff(5));
+        assertEquals(Duration.ofSeconds(30), relay.backoff(6));
+        assertEquals(Duration.ofSeconds(30), relay.backoff(60));
+    }
+
+    private void pending(OutboxEvent... events) {
+        when(outboxEventRepository.findDue(eq(OutboxEvent.Status.PENDING), any(LocalDateTime.class), eq(Limit.of(10))))
+                .thenReturn(List.of(events));
+    }
+
+    private static OutboxEvent event(Long id, Long orderId, int attempts) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setAggregateType(DomainEvents.ORDER);
+        event.setAggregateId(orderId);
+        event.setEventType(DomainEvents.ORDER_PLACED);
+        event.setPayload("{}");
+        event.setAttempts(attempts);
+        event.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        return event;
+    }
+
+    private static final class RecordingHandler implements OutboxEventHandler {
+
+        private final List<Long> delivered = new ArrayList<>();
+        private final Set<Long> failing = new HashSet<>();
+        private final Set<Long> hanging = new HashSet<>();
+
+        @Override
+        public boolean supports(String eventType) {
+            return DomainEvents.ORDER_PLACED.equals(eventType);
+        }
+
+        @Override
+        public void handle(OutboxEvent event) throws InterruptedException {
+            if (hanging.contains(event.getId())) {
+                Thread.sleep(Duration.ofSeconds(30).toMillis());
+            }
+            if (failing.contains(event.getId())) {
+                throw new IllegalStateException("Destino caído");
+            }
+            delivered.add(event.getId());
+        }
+    }
+}
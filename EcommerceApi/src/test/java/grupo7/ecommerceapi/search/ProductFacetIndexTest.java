@@ -0,0 +1,179 @@
+package grupo7.ecommerceapi.search;
+
+import grupo7.ecommerceapi.dto.FacetCountsDTO;
+import grupo7.ecommerceapi.dto.PriceBandCountDTO;
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductFacetIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Category audio = category("Audio");
+        Category hogar = category("Hogar");
+
+        index = new ProductFacetIndex(productRepository, true, new String[]{"50", "100"});
+        index.rebuild(List.of(
+                product(1L, "Auriculares", 30, null, 5, audio),
+                product(2L, "Parlante", 80, 70, 0, audio),
+                product(3L, "Lámpara", 120, null, 2, hogar),
+                product(4L, "Velador", 45, 40, 1, hogar)));
+    }
+
+    @Test
+    void filter_shouldIntersectAllFilters() {
+        ProductFacetIndex.Result result = index.filter(
+                new ProductFacetIndex.Filter(Set.of("HOGAR"), true, true, null, null), null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(4L), result.ids().getContent());
+        assertEquals(1, result.ids().getTotalElements());
+    }
+
+    @Test
+    void filter_shouldCountEachFacetWithoutItsOwnFilter() {
+        ProductFacetIndex.Result result = index.filter(
+                new ProductFacetIndex.Filter(Set.of("audio"), false, true, null, null), null, PageRequest.of(0, 10));
+        FacetCountsDTO facets = result.facets();
+
+        assertEquals(List.of(1L), result.ids().getContent());
+        // Categorías: solo con stock, sin filtrar por categoría
+        assertEquals(Map.of("Audio", 1, "Hogar", 2), facets.getCategories());
+        // Stock: solo audio, sin filtrar por stock
+        assertEquals(1, facets.getInStock());
+        assertEquals(0, facets.getDiscounted());
+        assertEquals(List.of(1, 0, 0), facets.getPriceBands().stream().map(PriceBandCountDTO::getCount).toList());
+    }
+
+    @Test
+    void filter_shouldReturnPriceBands() {
+        List<PriceBandCountDTO> bands = index.filter(
+                new ProductFacetIndex.Filter(Set.of(), false, false, null, null), null, PageRequest.of(0, 10))
+                .facets().getPriceBands();
+
+        assertEquals(BigDecimal.ZERO, bands.get(0).getFrom());
+        assertEquals(new BigDecimal("50"), bands.get(0).getTo());
+        assertEquals(2, bands.get(0).getCount());
+        assertEquals(1, bands.get(1).getCount());
+        assertEquals(new BigDecimal("100"), bands.get(2).getFrom());
+        assertNull(bands.get(2).getTo());
+        assertEquals(1, bands.get(2).getCount());
+    }
+
+    @Test
+    void filter_shouldApplyExactPriceRangeInsideBands() {
+        ProductFacetIndex.Result result = index.filter(
+                new ProductFacetIndex.Filter(null, false, false, new BigDecimal("40"), new BigDecimal("80")),
+                null, PageRequest.of(0, 10, Sort.by("price")));
+
+        assertEquals(List.of(4L, 2L), result.ids().getContent());
+    }
+
+    @Test
+    void filter_shouldIntersectTextMatches() {
+        ProductFacetIndex.Result result = index.filter(
+                new ProductFacetIndex.Filter(null, false, false, null, null), Set.of(2L, 3L, 99L),
+                PageRequest.of(0, 10));
+
+        assertEquals(List.of(2L, 3L), result.ids().getContent());
+        assertEquals(Map.of("Audio", 1, "Hogar", 1), result.facets().getCategories());
+    }
+
+    @Test
+    void filter_shouldSortAndPaginate() {
+        ProductFacetIndex.Result result = index.filter(
+                new ProductFacetIndex.Filter(null, false, false, null, null), null,
+                PageRequest.of(1, 2, Sort.by("name").ascending()));
+
+        // auriculares, lampara | parlante, velador
+        assertEquals(List.of(2L, 4L), result.ids().getContent());
+        assertEquals(4, result.ids().getTotalElements());
+    }
+
+    @Test
+    void update_shouldMoveAndRemoveProducts() {
+        index.update(1L, product(1L, "Auriculares", 150, 120, 0, category("Hogar")));
+        index.update(5L, product(5L, "Micrófono", 60, null, 3, category("Audio")));
+        index.update(2L, null);
+
+        ProductFacetIndex.Result result = index.filter(
+                new ProductFacetIndex.Filter(Set.of("hogar"), true, false, null, null), null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(1L, 4L), result.ids().getContent());
+        assertEquals(Map.of("Hogar", 2), result.facets().getCategories());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void onProductChanged_shouldNotPublishReadOlderThanAppliedUpdate() {
+        when(productRepository.findActiveById(2L)).thenAnswer(invocation -> {
+            // Mientras esta lectura está en curso se aplica otra más nueva
+            index.update(2L, null);
+            return Optional.of(product(2L, "Parlante", 80, 70, 0, category("Audio")));
+        });
+
+        index.onProductChanged(new ProductChangedEvent(2L));
+
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void onCategoryChanged_shouldKeepProductsUpdatedDuringTheRebuild() {
+        Category audio = category("Audio");
+        when(productRepository.findAllActiveWithCategory()).thenAnswer(invocation -> {
+            index.update(5L, product(5L, "Micrófono", 60, null, 3, category("Estudio")));
+            return List.of(product(1L, "Auriculares", 30, null, 5, audio));
+        });
+
+        index.onCategoryChanged(new CategoryChangedEvent(1L));
+
+        ProductFacetIndex.Result result = index.filter(
+                new ProductFacetIndex.Filter(null, false, false, null, null), null, PageRequest.of(0, 10));
+        assertEquals(List.of(1L, 5L), result.ids().getContent());
+        assertEquals(Map.of("Audio", 1, "Estudio", 1), result.facets().getCategories());
+    }
+
+    private Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return category;
+    }
+
+    private Product product(Long id, String name, int price, Integer discount, int stock, Category category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(name);
+        product.setPrice(BigDecimal.valueOf(price));
+        product.setDiscount(discount != null ? BigDecimal.valueOf(discount) : null);
+        product.setStock(stock);
+        product.setCategory(category);
+        product.setIsActive(true);
+        return product;
+    }
+}
@@ -0,0 +1,167 @@
+package grupo7.ecommerceapi.search;
+
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.CategoryChangedEvent;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Category audio = category("Audio");
+        Category hogar = category("Hogar");
+
+        index = new ProductSearchIndex(productRepository, true);
+        index.rebuild(List.of(
+                product(1L, "Auriculares inalámbricos", "Sonido envolvente con cancelación de ruido", 300, audio),
+                product(2L, "Parlante portátil", "Parlante con auriculares de regalo", 500, audio),
+                product(3L, "Lámpara de pie", "Iluminación cálida para el living", 100, hogar)));
+    }
+
+    @Test
+    void search_shouldIgnoreAccentsAndCase() {
+        Page<Long> result = index.search("LAMPARA", null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(3L), result.getContent());
+    }
+
+    @Test
+    void search_shouldRankNameMatchesFirst() {
+        Page<Long> result = index.search("auriculares", null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(1L, 2L), result.getContent());
+    }
+
+    @Test
+    void search_shouldMatchPrefixes() {
+        Page<Long> result = index.search("inalam", null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(1L), result.getContent());
+    }
+
+    @Test
+    void search_shouldOnlyExpandTheLastTerm() {
+        assertEquals(List.of(2L), index.search("parlante porta", null, PageRequest.of(0, 10)).getContent());
+        assertTrue(index.search("parla portatil", null, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void search_shouldKeepEveryPrefixExpansion() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            products.add(product(id, "Producto m" + id, "Edición especial", 100, category("Audio")));
+        }
+        index.rebuild(products);
+
+        assertEquals(100, index.search("m", null, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void search_shouldRequireAllTerms() {
+        Page<Long> result = index.search("parlante regalo", null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(2L), result.getContent());
+    }
+
+    @Test
+    void search_shouldFilterByCategory() {
+        Page<Long> result = index.search("con", "hogar", PageRequest.of(0, 10));
+
+        assertTrue(result.isEmpty());
+        assertEquals(List.of(3L), index.search("living", "Hogar", PageRequest.of(0, 10)).getContent());
+    }
+
+    @Test
+    void search_shouldSortAndPaginate() {
+        Page<Long> result = index.search("auriculares", null, PageRequest.of(0, 1, Sort.by("price").descending()));
+
+        assertEquals(2, result.getTotalElements());
+        assertEquals(List.of(2L), result.getContent());
+    }
+
+    @Test
+    void update_shouldReindexAndRemoveProducts() {
+        Product renamed = product(3L, "Velador", "Luz de noche", 80, category("Hogar"));
+        index.update(3L, renamed);
+
+        assertTrue(index.search("lampara", null, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(List.of(3L), index.search("velador", null, PageRequest.of(0, 10)).getContent());
+
+        index.update(3L, null);
+
+        assertTrue(index.search("velador", null, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void onProductChanged_shouldNotPublishReadOlderThanAppliedUpdate() {
+        Product stale = product(3L, "Lámpara de pie", "Iluminación cálida para el living", 100, category("Hogar"));
+        when(productRepository.findActiveById(3L)).thenAnswer(invocation -> {
+            // Mientras esta lectura está en curso se aplica otra más nueva
+            index.update(3L, product(3L, "Velador", "Luz de noche", 80, category("Hogar")));
+            return Optional.of(stale);
+        });
+
+        index.onProductChanged(new ProductChangedEvent(3L));
+
+        assertTrue(index.search("lampara", null, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(List.of(3L), index.search("velador", null, PageRequest.of(0, 10)).getContent());
+    }
+
+    @Test
+    void onCategoryChanged_shouldKeepProductsUpdatedDuringTheRebuild() {
+        Category hogar = category("Hogar");
+        Product stale = product(3L, "Lámpara de pie", "Iluminación cálida para el living", 100, hogar);
+        when(productRepository.findAllActiveWithCategory()).thenAnswer(invocation -> {
+            index.update(3L, product(3L, "Velador", "Luz de noche", 80, hogar));
+            return List.of(stale);
+        });
+
+        index.onCategoryChanged(new CategoryChangedEvent(1L));
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(3L), index.search("velador", null, PageRequest.of(0, 10)).getContent());
+    }
+
+    private Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        return category;
+    }
+
+    private Product product(Long id, String name, String description, int price, Category category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(BigDecimal.valueOf(price));
+        product.setCategory(category);
+        product.setIsActive(true);
+        return product;
+    }
+}
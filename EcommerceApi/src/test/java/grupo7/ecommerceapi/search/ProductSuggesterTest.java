@@ -0,0 +1,179 @@
+package grupo7.ecommerceapi.search;
+
+import grupo7.ecommerceapi.dto.ProductSalesRow;
+import grupo7.ecommerceapi.dto.SuggestionDTO;
+import grupo7.ecommerceapi.dto.SuggestionsDTO;
+import grupo7.ecommerceapi.entity.Category;
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.repository.CategoryRepository;
+import grupo7.ecommerceapi.repository.OrderItemRepository;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSuggesterTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private ProductSuggester suggester;
+    private Category audio;
+    private Category hogar;
+
+    @BeforeEach
+    void setUp() {
+        audio = category(1L, "Audio");
+        hogar = category(2L, "Artículos de hogar");
+
+        suggester = new ProductSuggester(productRepository, categoryRepository, orderItemRepository, true, 3);
+        suggester.rebuild(
+                List.of(product(1L, "Auriculares inalámbricos", audio),
+                        product(2L, "Auriculares con cable", audio),
+                        product(3L, "Lámpara de pie", hogar),
+                        product(4L, "Aspiradora", hogar),
+                        product(5L, "Alfombra", hogar)),
+                List.of(audio, hogar),
+                List.of(new ProductSalesRow(2L, 40L), new ProductSalesRow(1L, 10L)));
+    }
+
+    @Test
+    void suggest_shouldIgnoreAccentsAndCase() {
+        assertEquals(List.of(3L), ids(suggester.suggest("LAMP", 5).getProducts()));
+        assertEquals(List.of(1L), ids(suggester.suggest("inalam", 5).getProducts()));
+    }
+
+    @Test
+    void suggest_shouldMatchAnyWordAndRankByPopularity() {
+        SuggestionsDTO result = suggester.suggest("a", 5);
+
+        // Los más vendidos primero; sin ventas, los nombres más cortos
+        assertEquals(List.of(2L, 1L, 5L), ids(result.getProducts()));
+        assertEquals(List.of(2L, 1L), ids(result.getCategories()));
+    }
+
+    @Test
+    void suggest_shouldMatchPhrasePrefixes() {
+        assertEquals(List.of(2L), ids(suggester.suggest("auriculares c", 5).getProducts()));
+        assertEquals(List.of(3L), ids(suggester.suggest("de pi", 5).getProducts()));
+        assertTrue(suggester.suggest("  ", 5).getProducts().isEmpty());
+    }
+
+    @Test
+    void update_shouldRefreshPopularityAndRemoveProducts() {
+        assertEquals(List.of(2L, 1L), ids(suggester.suggest("auri", 5).getProducts()));
+
+        suggester.update(1L, product(1L, "Auriculares inalámbricos", audio), 100);
+        assertEquals(List.of(1L, 2L), ids(suggester.suggest("auri", 5).getProducts()));
+
+        suggester.update(1L, null, 0);
+        assertEquals(List.of(2L), ids(suggester.suggest("auri", 5).getProducts()));
+        assertTrue(suggester.suggest("inal", 5).getProducts().isEmpty());
+    }
+
+    @Test
+    void updatePopularity_shouldRerankFromTheLatestSales() {
+        suggester.updatePopularity(List.of(new ProductSalesRow(1L, 50L), new ProductSalesRow(2L, 40L)));
+
+        assertEquals(List.of(1L, 2L), ids(suggester.suggest("auri", 5).getProducts()));
+    }
+
+    @Test
+    void onProductChanged_shouldKeepPopularityWithoutSummingSales() {
+        when(productRepository.findActiveById(1L))
+                .thenReturn(Optional.of(product(1L, "Auriculares inalámbricos pro", audio)));
+
+        suggester.onProductChanged(new ProductChangedEvent(1L));
+
+        assertEquals(List.of(2L, 1L), ids(suggester.suggest("auri", 5).getProducts()));
+        assertEquals(List.of(1L), ids(suggester.suggest("pro", 5).getProducts()));
+        verifyNoInteractions(orderItemRepository);
+    }
+
+    @Test
+    void onProductChanged_shouldKeepPopularityPublishedDuringTheRead() {
+        when(productRepository.findActiveById(1L)).thenAnswer(invocation -> {
+            // Mientras se lee el producto se publican unidades vendidas más nuevas
+            suggester.updatePopularity(List.of(new ProductSalesRow(1L, 50L), new ProductSalesRow(2L, 40L)));
+            return Optional.of(product(1L, "Auriculares inalámbricos", audio));
+        });
+
+        suggester.onProductChanged(new ProductChangedEvent(1L));
+
+        assertEquals(List.of(1L, 2L), ids(suggester.suggest("auri", 5).getProducts()));
+    }
+
+    @Test
+    void onProductChanged_shouldNotPublishReadOlderThanAppliedUpdate() {
+        when(productRepository.findActiveById(1L)).thenAnswer(invocation -> {
+            suggester.update(1L, null, 0);
+            return Optional.of(product(1L, "Auriculares inalámbricos", audio));
+        });
+
+        suggester.onProductChanged(new ProductChangedEvent(1L));
+
+        assertTrue(suggester.suggest("inal", 5).getProducts().isEmpty());
+    }
+
+    @Test
+    void refreshPopularity_shouldNotPublishSalesOlderThanAppliedOnes() {
+        when(orderItemRepository.sumQuantityGroupedByProduct()).thenAnswer(invocation -> {
+            suggester.updatePopularity(List.of(new ProductSalesRow(1L, 50L), new ProductSalesRow(2L, 40L)));
+            return List.of(new ProductSalesRow(2L, 40L), new ProductSalesRow(1L, 10L));
+        });
+
+        suggester.refreshPopularity();
+
+        assertEquals(List.of(1L, 2L), ids(suggester.suggest("auri", 5).getProducts()));
+    }
+
+    @Test
+    void update_shouldAdjustCategoryRanking() {
+        suggester.update(6L, product(6L, "Amplificador", audio), 0);
+        suggester.update(7L, product(7L, "Altavoz", audio), 0);
+        suggester.update(3L, null, 0);
+
+        // Audio pasa a 4 productos y "Artículos de hogar" queda con 2
+        assertEquals(List.of(1L, 2L), ids(suggester.suggest("a", 5).getCategories()));
+    }
+
+    private List<Long> ids(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(SuggestionDTO::getId).toList();
+    }
+
+    private Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        category.setIsActive(true);
+        return category;
+    }
+
+    private Product product(Long id, String name, Category category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(name);
+        product.setCategory(category);
+        product.setIsActive(true);
+        return product;
+    }
+}
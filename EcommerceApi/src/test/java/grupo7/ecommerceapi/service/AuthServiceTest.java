@@ -70,7 +70,7 @@ class AuthServiceTest {
         request.setPassword("password");
 
         when(userService.createUser(any(User.class))).thenReturn(user);
-        when(jwtUtil.generateToken(1L, "jane@example.com")).thenReturn("token");
+        when(jwtUtil.generateToken(1L, "jane@example.com", "USER")).thenReturn("token");
         when(authMapper.toAuthUser(user)).thenReturn(authUserDTO);
 
         AuthResponseDTO response = authService.register(request);
@@ -102,7 +102,7 @@ class AuthServiceTest {
         request.setPassword("password");
 
         when(userService.login("jane@example.com", "password")).thenReturn(Optional.of(user));
-        when(jwtUtil.generateToken(1L, "jane@example.com")).thenReturn("token");
+        when(jwtUtil.generateToken(1L, "jane@example.com", "USER")).thenReturn("token");
         when(authMapper.toAuthUser(user)).thenReturn(authUserDTO);
 
         AuthResponseDTO response = authService.login(request);
@@ -0,0 +1,148 @@
+package grupo7.ecommerceapi.service;
+
+import grupo7.ecommerceapi.exception.InvalidUploadException;
+import grupo7.ecommerceapi.storage.FileMetadata;
+import grupo7.ecommerceapi.storage.StoredUpload;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStorageServiceTest {
+
+    // SHA-256 de "same photo"
+    private static final String DIGEST = "cd11691e645ea094f874ed9af9dff9548540cbb0b27650afd76e771f40045c23";
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void storeFile_shouldDeduplicateIdenticalContent_inShardedDirectories() throws Exception {
+        FileStorageService service = new FileStorageService(uploadDir.toString(), true, 100, Duration.ofMinutes(1), Duration.ZERO);
+
+        String first = service.storeFile(image("a.PNG", "same photo"));
+        String second = service.storeFile(image("b.png", "same photo"));
+
+        assertEquals(first, second);
+        assertEquals(DIGEST + ".png", first);
+        Path stored = uploadDir.resolve(first.substring(0, 2)).resolve(first.substring(2, 4)).resolve(first);
+        assertTrue(Files.exists(stored));
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void getMetadata_shouldUseDigestAsETag_forContentAddressedFiles() {
+        FileStorageService service = new FileStorageService(uploadDir.toString(), true, 100, Duration.ofMinutes(1), Duration.ZERO);
+        String fileName = service.storeFile(image("a.png", "same photo"));
+
+        FileMetadata metadata = service.getMetadata(fileName).orElseThrow();
+
+        assertEquals("\"" + fileName.substring(0, 64) + "\"", metadata.eTag());
+        assertEquals(10, metadata.size());
+    }
+
+    @Test
+    void storeFile_shouldKeepRandomNames_whenContentAddressingIsOff() {
+        FileStorageService service = new FileStorageService(uploadDir.toString(), false, 100, Duration.ofMinutes(1), Duration.ZERO);
+
+        String first = service.storeFile(image("a.png", "same photo"));
+        String second = service.storeFile(image("a.png", "same photo"));
+
+        assertNotEquals(first, second);
+        assertTrue(Files.exists(uploadDir.resolve(first)));
+    }
+
+    @Test
+    void storeStream_shouldSniffFormat_andNameFileFromContent() {
+        FileStorageService service = new FileStorageService(uploadDir.toString(), false, 100, Duration.ofMinutes(1), Duration.ZERO);
+
+        StoredUpload upload = service.storeStream(new ByteArrayInputStream(png(1_000)), 5_000);
+
+        assertTrue(upload.fileName().endsWith(".png"));
+        assertEquals(1_000, upload.size());
+        assertTrue(Files.exists(uploadDir.resolve(upload.fileName())));
+    }
+
+    @Test
+    void storeStream_shouldRejectNonImages_withoutLeavingFiles() throws Exception {
+        FileStorageService service = new FileStorageService(uploadDir.toString(), false, 100, Duration.ofMinutes(1), Duration.ZERO);
+        byte[] script = "<script>alert(1)</script>".getBytes(StandardCharsets.UTF_8);
+
+        InvalidUploadException ex = assertThrows(InvalidUploadException.class,
+                () -> service.storeStream(new ByteArrayInputStream(script), 5_000));
+
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, ex.getStatus());
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void storeStream_shouldAbortOnceLimitIsExceeded() throws Exception {
+        FileStorageService service = new FileStorageService(uploadDir.toString(), false, 100, Duration.ofMinutes(1), Duration.ZERO);
+
+        InvalidUploadException ex = assertThrows(InvalidUploadException.class,
+                () -> service.storeStream(new ByteArrayInputStream(png(200_000)), 100_000));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, ex.getStatus());
+        try (var files = Files.list(uploadDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void deleteIfUnused_shouldCheckUsageByDigest_forVariantsToo() throws Exception {
+        FileStorageService service = new FileStorageService(uploadDir.toString(), true, 100, Duration.ofMinutes(1), Duration.ZERO);
+        String fileName = service.storeFile(image("a.png", "same photo"));
+        Path variant = service.resolveStoredFile(DIGEST + "_thumb.jpg").orElseThrow();
+        Files.write(variant, new byte[]{1});
+        List<String> checked = new ArrayList<>();
+
+        FileStorageService.Deletion deletion = service.deleteIfUnused(DIGEST + "_thumb.jpg", digest -> {
+            checked.add(digest);
+            return true;
+        });
+
+        assertEquals(FileStorageService.Deletion.IN_USE, deletion);
+        assertEquals(List.of(DIGEST), checked);
+        assertTrue(Files.exists(variant));
+        assertEquals(FileStorageService.Deletion.DELETED, service.deleteIfUnused(fileName, digest -> false));
+        assertFalse(Files.exists(variant));
+    }
+
+    @Test
+    void deleteIfUnused_shouldKeepFilesUploadedWithinTheGracePeriod() {
+        FileStorageService service = new FileStorageService(uploadDir.toString(), true, 100, Duration.ofMinutes(1), Duration.ofMinutes(10));
+        String fileName = service.storeFile(image("a.png", "same photo"));
+
+        assertEquals(FileStorageService.Deletion.IN_USE, service.deleteIfUnused(fileName, digest -> false));
+        assertEquals(FileStorageService.Deletion.NOT_FOUND, service.deleteIfUnused(DIGEST + "_thumb.jpg", digest -> false));
+    }
+
+    private static byte[] png(int size) {
+        byte[] data = new byte[size];
+        byte[] signature = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+        System.arraycopy(signature, 0, data, 0, signature.length);
+        return data;
+    }
+
+    private static MockMultipartFile image(String name, String content) {
+        return new MockMultipartFile("file", name, "image/png", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,6 +1,7 @@
 package grupo7.ecommerceapi.service;
 
 import grupo7.ecommerceapi.dto.OrderItemResponseDTO;
+import grupo7.ecommerceapi.dto.OrderResponseDTO;
 import grupo7.ecommerceapi.dto.order.CreateOrderRequest;
 import grupo7.ecommerceapi.dto.order.OrderAddressDTO;
 import grupo7.ecommerceapi.dto.order.OrderItemRequestDTO;
@@ -13,24 +14,35 @@ import grupo7.ecommerceapi.exception.InsufficientStockException;
 import grupo7.ecommerceapi.exception.ResourceNotFoundException;
 import grupo7.ecommerceapi.mapper.OrderMapper;
 import grupo7.ecommerceapi.mapper.ProductMapper;
-import grupo7.ecommerceapi.repository.BillingAddressRepository;
+import grupo7.ecommerceapi.outbox.DomainEvents;
+import grupo7.ecommerceapi.outbox.OutboxService;
+import grupo7.ecommerceapi.repository.OrderBatchRepository;
 import grupo7.ecommerceapi.repository.OrderItemRepository;
 import grupo7.ecommerceapi.repository.OrderRepository;
-import grupo7.ecommerceapi.repository.PaymentInfoRepository;
-import grupo7.ecommerceapi.repository.ShippingAddressRepository;
+import grupo7.ecommerceapi.stock.StockReservationService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,13 +54,15 @@ class OrderServiceTest {
     @Mock
     private OrderItemRepository orderItemRepository;
     @Mock
-    private BillingAddressRepository billingAddressRepository;
+    private OrderBatchRepository orderBatchRepository;
     @Mock
-    private ShippingAddressRepository shippingAddressRepository;
+    private ProductService productService;
     @Mock
-    private PaymentInfoRepository paymentInfoRepository;
+    private StockReservationService stockReservationService;
     @Mock
-    private ProductService productService;
+    private EntityManager entityManager;
+    @Mock
+    private OutboxService outboxService;
 
     private OrderService orderService;
 
@@ -60,12 +74,13 @@ class OrderServiceTest {
         orderService = new OrderService(
                 orderRepository,
                 orderItemRepository,
-                billingAddressRepository,
-                shippingAddressRepository,
-                paymentInfoRepository,
+                orderBatchRepository,
                 productService,
-                new OrderMapper(new ProductMapper())
+                stockReservationService,
+                new OrderMapper(new ProductMapper()),
+                outboxService
         );
+        ReflectionTestUtils.setField(orderService, "entityManager", entityManager);
 
         user = new User();
         user.setId(10L);
@@ -96,22 +111,57 @@ class OrderServiceTest {
 
     @Test
     void createOrder_shouldThrow_whenProductNotFound() {
-        when(productService.getProductById(1L)).thenReturn(Optional.empty());
+        doThrow(new ResourceNotFoundException("Producto no encontrado con id: 1"))
+                .when(stockReservationService).reserveForCurrentTransaction(Map.of(1L, 2));
 
         assertThrows(ResourceNotFoundException.class,
-                () -> orderService.createOrder(user, createOrderRequest));
+                () -> orderService.createOrder(10L, createOrderRequest));
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
     void createOrder_shouldThrow_whenStockInsufficient() {
+        doThrow(new InsufficientStockException("Stock insuficiente para el producto: Product 1"))
+                .when(stockReservationService).reserveForCurrentTransaction(Map.of(1L, 2));
+
+        assertThrows(InsufficientStockException.class,
+                () -> orderService.createOrder(10L, createOrderRequest));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void createOrder_shouldMergeLinesAndBuildResponseInMemory() {
+        OrderItemRequestDTO repeated = new OrderItemRequestDTO();
+        repeated.setProductId(1L);
+        repeated.setQuantity(1);
+        createOrderRequest.setItems(List.of(createOrderRequest.getItems().get(0), repeated));
+
         Product product = new Product();
         product.setId(1L);
-        product.setStock(1);
+        product.setName("Product 1");
         product.setPrice(BigDecimal.valueOf(100));
-        when(productService.getProductById(1L)).thenReturn(Optional.of(product));
-
-        assertThrows(InsufficientStockException.class,
-                () -> orderService.createOrder(user, createOrderRequest));
+        when(productService.getProductsByIds(Set.of(1L))).thenReturn(Map.of(1L, product));
+        when(entityManager.getReference(User.class, 10L)).thenReturn(user);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(99L);
+            return order;
+        });
+
+        var response = orderService.createOrder(10L, createOrderRequest);
+
+        verify(stockReservationService).reserveForCurrentTransaction(Map.of(1L, 3));
+        verify(orderBatchRepository).insertOrderItems(any());
+        verify(orderBatchRepository).insertBillingAddress(any());
+        verify(orderBatchRepository).insertPaymentInfo(any());
+        verify(orderRepository, never()).findById(any());
+        assertEquals(99L, response.getId());
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(response.getTotalAmount()));
+        assertEquals(1, response.getOrderItems().size());
+        assertEquals(3, response.getOrderItems().get(0).getQuantity());
+        assertEquals(1, response.getBillingAddresses().size());
+        verify(outboxService).append(eq(DomainEvents.ORDER), eq(99L), eq(DomainEvents.ORDER_PLACED),
+                any(DomainEvents.OrderPlaced.class));
     }
 
     @Test
@@ -168,6 +218,25 @@ class OrderServiceTest {
         assertEquals(2, response.get(0).getQuantity());
         assertEquals("Product 1", response.get(0).getProduct().getName());
     }
-}
-
 
+    @Test
+    void streamOrdersByStatus_shouldLoadGraphsPerChunkAndReleaseTheContext() {
+        Order first = new Order();
+        first.setId(1L);
+        Order second = new Order();
+        second.setId(2L);
+        when(orderRepository.findByStatusAfterId(eq(Order.OrderStatus.PENDING), eq(0L), any(Limit.class)))
+                .thenReturn(List.of(first, second));
+
+        List<OrderResponseDTO> written = new ArrayList<>();
+        orderService.streamOrdersByStatus(Order.OrderStatus.PENDING, written::add);
+
+        assertEquals(List.of(1L, 2L), written.stream().map(OrderResponseDTO::getId).toList());
+        verify(orderRepository).fetchOrderItemsByIdIn(List.of(1L, 2L));
+        verify(orderRepository).fetchBillingAddressesByIdIn(List.of(1L, 2L));
+        verify(orderRepository).fetchShippingAddressesByIdIn(List.of(1L, 2L));
+        verify(entityManager).clear();
+        // Una página incompleta es la última: no se pide la siguiente
+        verify(orderRepository).findByStatusAfterId(eq(Order.OrderStatus.PENDING), anyLong(), any(Limit.class));
+    }
+}
@@ -1,28 +1,48 @@
 package grupo7.ecommerceapi.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import grupo7.ecommerceapi.catalog.ProductCatalog;
+import grupo7.ecommerceapi.catalog.ProductJsonCache;
 import grupo7.ecommerceapi.dto.CreateProductRequest;
+import grupo7.ecommerceapi.dto.ProductSummaryJson;
+import grupo7.ecommerceapi.dto.ProductSummaryRow;
 import grupo7.ecommerceapi.entity.Category;
 import grupo7.ecommerceapi.entity.Product;
 import grupo7.ecommerceapi.entity.User;
 import grupo7.ecommerceapi.exception.ResourceNotFoundException;
+import grupo7.ecommerceapi.mapper.ProductMapper;
+import grupo7.ecommerceapi.outbox.OutboxService;
 import grupo7.ecommerceapi.repository.ProductRepository;
+import grupo7.ecommerceapi.repository.ProductStockRepository;
+import grupo7.ecommerceapi.repository.UserRepository;
+import grupo7.ecommerceapi.search.ProductFacetIndex;
+import grupo7.ecommerceapi.search.ProductSearchIndex;
+import grupo7.ecommerceapi.search.ProductSuggester;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -32,9 +52,41 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductStockRepository productStockRepository;
+
     @Mock
     private CategoryService categoryService;
 
+    @Mock
+    private ProductCatalog productCatalog;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductFacetIndex productFacetIndex;
+
+    @Mock
+    private ProductSuggester productSuggester;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ProductMapper productMapper = new ProductMapper();
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Spy
+    private ProductJsonCache productJsonCache = new ProductJsonCache(new ProductMapper(), true, 100, Duration.ofMinutes(1));
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private UserRepository userRepository;
+
     @InjectMocks
     private ProductService productService;
 
@@ -64,6 +116,7 @@ class ProductServiceTest {
     @Test
     void createProduct_shouldPersistProduct_whenCategoryExists() {
         when(categoryService.getCategoryByName("Electronics")).thenReturn(Optional.of(category));
+        when(userRepository.getReferenceById(5L)).thenReturn(user);
         when(productRepository.save(org.mockito.ArgumentMatchers.any(Product.class)))
                 .thenAnswer(invocation -> {
                     Product product = invocation.getArgument(0);
@@ -71,7 +124,7 @@ class ProductServiceTest {
                     return product;
                 });
 
-        Product created = productService.createProduct(createProductRequest, user);
+        Product created = productService.createProduct(createProductRequest, 5L);
 
         assertEquals(10L, created.getId());
         assertEquals(user, created.getCreatedBy());
@@ -87,7 +140,7 @@ class ProductServiceTest {
         when(categoryService.getCategoryByName("Electronics")).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
-                () -> productService.createProduct(createProductRequest, user));
+                () -> productService.createProduct(createProductRequest, 5L));
     }
 
     @Test
@@ -124,6 +177,15 @@ class ProductServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> productService.getProductStock(1L));
     }
 
+    @Test
+    void filterProducts_shouldRejectUnsupportedSort_evenWhenIndexIsNotLoaded() {
+        ProductFacetIndex.Filter filter = new ProductFacetIndex.Filter(null, false, false, null, null);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                productService.filterProducts(filter, null, PageRequest.of(0, 10, Sort.by("stock"))));
+        assertTrue(productService.filterProducts(filter, null, PageRequest.of(0, 10, Sort.by("price"))).isEmpty());
+    }
+
     @Test
     void getAllProducts_shouldReturnPage() {
         Product product = new Product();
@@ -135,6 +197,37 @@ class ProductServiceTest {
 
         assertEquals(1, result.getTotalElements());
     }
-}
 
+    @Test
+    void getAllProductSummaries_shouldMapProjectedRows_whenCatalogCannotServe() throws Exception {
+        ProductSummaryRow row = new ProductSummaryRow(3L, "Mouse", "Inalámbrico", new BigDecimal("100.00"),
+                new BigDecimal("80.00"), "mouse.png", 4, true, null, null,
+                1L, "Electronics", null, true, null, null);
+        when(productRepository.findActiveSummaries(PageRequest.of(0, 10))).thenReturn(new PageImpl<>(List.of(row)));
+
+        Page<ProductSummaryJson> result = productService.getAllProductSummaries(PageRequest.of(0, 10));
+
+        JsonNode summary = objectMapper.readTree(objectMapper.writeValueAsBytes(result.getContent().get(0)));
+        assertEquals(0, new BigDecimal("80.00").compareTo(summary.get("actualPrice").decimalValue()));
+        assertTrue(summary.get("hasActiveDiscount").asBoolean());
+        assertEquals(0, new BigDecimal("20.00").compareTo(summary.get("discountPercentage").decimalValue()));
+        assertEquals("Electronics", summary.get("category").get("name").asText());
+    }
 
+    @Test
+    void getAllProductSummaries_shouldReuseSerializedJson_whenProductIsUnchanged() throws Exception {
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 3, 1, 10, 0);
+        ProductSummaryRow row = new ProductSummaryRow(3L, "Mouse", "Inalámbrico", new BigDecimal("100.00"),
+                null, "mouse.png", 4, true, updatedAt, updatedAt,
+                1L, "Electronics", null, true, updatedAt, updatedAt);
+        when(productRepository.findActiveSummaries(PageRequest.of(0, 10)))
+                .thenReturn(new PageImpl<>(List.of(row), PageRequest.of(0, 10), 1));
+
+        byte[] first = objectMapper.writeValueAsBytes(productService.getAllProductSummaries(PageRequest.of(0, 10)));
+        byte[] second = objectMapper.writeValueAsBytes(productService.getAllProductSummaries(PageRequest.of(0, 10)));
+
+        assertArrayEquals(first, second);
+        assertEquals(1L, productJsonCache.snapshot().get("hits"));
+        assertEquals(1L, productJsonCache.snapshot().get("misses"));
+    }
+}
@@ -0,0 +1,220 @@
+package grupo7.ecommerceapi.stock;
+
+import grupo7.ecommerceapi.entity.Product;
+import grupo7.ecommerceapi.event.ProductChangedEvent;
+import grupo7.ecommerceapi.exception.InsufficientStockException;
+import grupo7.ecommerceapi.exception.ResourceNotFoundException;
+import grupo7.ecommerceapi.repository.ProductRepository;
+import grupo7.ecommerceapi.repository.ProductStockRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    @Mock
+    private ProductStockRepository productStockRepository;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void reserve_shouldThrowInsufficientStock_whenDatabaseRejectsLine() {
+        StockReservationService service = service(false);
+        when(productStockRepository.decrementAll(Map.of(1L, 1, 2L, 5))).thenReturn(List.of(2L));
+        when(productRepository.findActiveById(2L)).thenReturn(Optional.of(product(2L)));
+
+        assertThrows(InsufficientStockException.class, () -> service.reserve(Map.of(1L, 1, 2L, 5)));
+    }
+
+    @Test
+    void reserve_shouldThrowNotFound_whenRejectedProductDoesNotExist() {
+        StockReservationService service = service(false);
+        when(productStockRepository.decrementAll(Map.of(3L, 1))).thenReturn(List.of(3L));
+        when(productRepository.findActiveById(3L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> service.reserve(Map.of(3L, 1)));
+    }
+
+    @Test
+    void release_shouldReturnStockToDatabaseOnlyOnce() {
+        StockReservationService service = service(false);
+        when(productStockRepository.decrementAll(Map.of(1L, 2))).thenReturn(List.of());
+
+        StockReservation reservation = service.reserve(Map.of(1L, 2));
+
+        assertTrue(service.release(reservation.id()));
+        assertFalse(service.release(reservation.id()));
+        verify(productStockRepository).incrementAll(Map.of(1L, 2));
+    }
+
+    @Test
+    void release_shouldRetryFromSweeper_whenDatabaseIncrementFails() {
+        StockReservationService service = service(false);
+        when(productStockRepository.decrementAll(Map.of(1L, 2))).thenReturn(List.of());
+        doThrow(new IllegalStateException("sin conexión")).doNothing()
+                .when(productStockRepository).incrementAll(Map.of(1L, 2));
+
+        StockReservation reservation = service.reserve(Map.of(1L, 2));
+
+        assertThrows(IllegalStateException.class, () -> service.release(reservation.id()));
+        service.expireReservations();
+
+        verify(productStockRepository, times(2)).incrementAll(Map.of(1L, 2));
+        assertFalse(service.release(reservation.id()));
+    }
+
+    @Test
+    void expireReservations_shouldSkipReservationsBoundToOpenTransaction() {
+        StockReservationService service = new StockReservationService(productStockRepository, productRepository,
+                eventPublisher, transactionManager, false, Duration.ofMinutes(-1));
+        when(productStockRepository.decrementAll(Map.of(1L, 2))).thenReturn(List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.reserveForCurrentTransaction(Map.of(1L, 2));
+            service.expireReservations();
+            verify(productStockRepository, never()).incrementAll(any());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            verify(productStockRepository).incrementAll(Map.of(1L, 2));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserveForCurrentTransaction_shouldDecrementInCallersTransaction_whenTransactionIsActive() {
+        StockReservationService service = service(false);
+        when(productStockRepository.decrementAll(Map.of(1L, 2))).thenReturn(List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            service.reserveForCurrentTransaction(Map.of(1L, 2));
+
+            verify(productStockRepository).decrementAll(Map.of(1L, 2));
+            verifyNoInteractions(transactionManager);
+            // El rollback del pedido devuelve el stock; no hay nada que liberar a mano
+            assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserveForCurrentTransaction_shouldFailCommit_whenReservationIsGone() {
+        StockReservationService service = service(false);
+        when(productStockRepository.decrementAll(Map.of(1L, 2))).thenReturn(List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            StockReservation reservation = service.reserveForCurrentTransaction(Map.of(1L, 2));
+            service.release(reservation.id());
+
+            TransactionSynchronization sync = TransactionSynchronizationManager.getSynchronizations().get(0);
+            assertThrows(InsufficientStockException.class, () -> sync.beforeCommit(false));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserve_shouldNotOversell_whenInMemory() {
+        StockReservationService service = service(true);
+        when(productRepository.findStockById(1L)).thenReturn(Optional.of(3));
+        when(productRepository.findActiveById(1L)).thenReturn(Optional.of(product(1L)));
+
+        StockReservation first = service.reserve(Map.of(1L, 2));
+
+        assertThrows(InsufficientStockException.class, () -> service.reserve(Map.of(1L, 2)));
+        assertEquals(1, service.getAvailableInMemory(1L));
+
+        service.release(first.id());
+
+        assertEquals(3, service.getAvailableInMemory(1L));
+        verify(productStockRepository, never()).decrementAll(any());
+    }
+
+    @Test
+    void reserve_shouldGiveBackPreviousLines_whenInMemoryLineFails() {
+        StockReservationService service = service(true);
+        when(productRepository.findStockById(1L)).thenReturn(Optional.of(5));
+        when(productRepository.findStockById(2L)).thenReturn(Optional.of(0));
+        when(productRepository.findActiveById(2L)).thenReturn(Optional.of(product(2L)));
+
+        assertThrows(InsufficientStockException.class, () -> service.reserve(Map.of(1L, 2, 2L, 1)));
+
+        assertEquals(5, service.getAvailableInMemory(1L));
+    }
+
+    @Test
+    void reconcile_shouldFlushCommittedUnitsInOneBatch() {
+        StockReservationService service = service(true);
+        when(productRepository.findStockById(1L)).thenReturn(Optional.of(10));
+        when(productRepository.findStockById(2L)).thenReturn(Optional.of(10));
+
+        service.commit(service.reserve(Map.of(1L, 2, 2L, 1)).id());
+        service.commit(service.reserve(Map.of(1L, 3)).id());
+        service.reconcile();
+
+        verify(productStockRepository).decrementConfirmed(Map.of(1L, 5, 2L, 1));
+        assertEquals(5, service.getAvailableInMemory(1L));
+    }
+
+    @Test
+    void reconcile_shouldKeepRejectedUnitsPendingAndCounterLoaded() {
+        StockReservationService service = service(true);
+        when(productRepository.findStockById(1L)).thenReturn(Optional.of(10));
+        when(productStockRepository.decrementConfirmed(Map.of(1L, 4))).thenReturn(List.of(1L));
+
+        service.commit(service.reserve(Map.of(1L, 4)).id());
+        service.reconcile();
+        // El contador está ocioso, pero sus ventas no llegaron a MySQL: no se puede descartar
+        service.onProductChanged(new ProductChangedEvent(1L));
+
+        assertEquals(6, service.getAvailableInMemory(1L));
+        service.reconcile();
+        verify(productStockRepository, times(2)).decrementConfirmed(Map.of(1L, 4));
+    }
+
+    private StockReservationService service(boolean inMemory) {
+        return new StockReservationService(productStockRepository, productRepository, eventPublisher,
+                transactionManager, inMemory, Duration.ofMinutes(10));
+    }
+
+    private Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        return product;
+    }
+}
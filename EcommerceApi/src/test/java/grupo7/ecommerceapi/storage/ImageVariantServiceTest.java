@@ -0,0 +1,103 @@
+package grupo7.ecommerceapi.storage;
+
+import grupo7.ecommerceapi.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService fileStorageService;
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService(uploadDir.toString(), false, 100, Duration.ofMinutes(1), Duration.ZERO);
+        imageVariantService = new ImageVariantService(fileStorageService, true, 0.8f, 1_000_000);
+    }
+
+    @Test
+    void generateVariants_shouldWriteScaledJpegs_keepingAspectRatio() throws Exception {
+        ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_ARGB), "png",
+                uploadDir.resolve("photo.png").toFile());
+
+        imageVariantService.generateVariants("photo.png");
+
+        BufferedImage thumbnail = ImageIO.read(uploadDir.resolve("photo_thumb.jpg").toFile());
+        BufferedImage medium = ImageIO.read(uploadDir.resolve("photo_medium.jpg").toFile());
+        assertEquals(200, thumbnail.getWidth());
+        assertEquals(100, thumbnail.getHeight());
+        assertEquals(600, medium.getWidth());
+        assertEquals(300, medium.getHeight());
+    }
+
+    @Test
+    void generateVariants_shouldNotUpscaleSmallImages() throws Exception {
+        ImageIO.write(new BufferedImage(120, 80, BufferedImage.TYPE_INT_RGB), "png",
+                uploadDir.resolve("small.png").toFile());
+
+        imageVariantService.generateVariants("small.png");
+
+        BufferedImage medium = ImageIO.read(uploadDir.resolve("small_medium.jpg").toFile());
+        assertEquals(120, medium.getWidth());
+        assertEquals(80, medium.getHeight());
+    }
+
+    @Test
+    void generateVariants_shouldSkipUnreadableFiles() throws Exception {
+        Files.writeString(uploadDir.resolve("image.webp"), "not an image");
+
+        imageVariantService.generateVariants("image.webp");
+
+        assertFalse(Files.exists(uploadDir.resolve("image_thumb.jpg")));
+    }
+
+    @Test
+    void generateVariants_shouldSkipImagesAboveThePixelLimit() throws Exception {
+        ImageIO.write(new BufferedImage(2000, 600, BufferedImage.TYPE_BYTE_BINARY), "png",
+                uploadDir.resolve("huge.png").toFile());
+
+        imageVariantService.generateVariants("huge.png");
+
+        assertFalse(Files.exists(uploadDir.resolve("huge_thumb.jpg")));
+        assertFalse(Files.exists(uploadDir.resolve("huge_medium.jpg")));
+    }
+
+    @Test
+    void generateVariants_shouldSubsampleLargeImages_keepingAspectRatio() throws Exception {
+        ImageIO.write(new BufferedImage(2400, 400, BufferedImage.TYPE_INT_RGB), "png",
+                uploadDir.resolve("wide.png").toFile());
+
+        imageVariantService.generateVariants("wide.png");
+
+        assertEquals(2, ImageVariantService.subsampling(2400, 400));
+        BufferedImage medium = ImageIO.read(uploadDir.resolve("wide_medium.jpg").toFile());
+        assertEquals(600, medium.getWidth());
+        assertEquals(100, medium.getHeight());
+    }
+
+    @Test
+    void deleteFile_shouldRemoveVariantsToo() throws Exception {
+        ImageIO.write(new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB), "png",
+                uploadDir.resolve("square.png").toFile());
+        imageVariantService.generateVariants("square.png");
+
+        assertTrue(fileStorageService.deleteFile("square.png"));
+
+        assertFalse(Files.exists(uploadDir.resolve("square_thumb.jpg")));
+        assertFalse(Files.exists(uploadDir.resolve("square_medium.jpg")));
+    }
+}
@@ -0,0 +1,83 @@
+package grupo7.ecommerceapi.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticFileServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final StaticFileServer server = new StaticFileServer();
+    private FileMetadata file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path path = tempDir.resolve("image.png");
+        Files.writeString(path, "0123456789", StandardCharsets.US_ASCII);
+        file = new FileMetadata("image.png", path, 10, 1_700_000_000_000L, MediaType.IMAGE_PNG);
+    }
+
+    @Test
+    void serve_shouldWriteWholeFile_withImmutableCacheHeaders() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/files/image.png");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        server.serve(file, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals(file.eTag(), response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeader(HttpHeaders.CACHE_CONTROL).contains("immutable"));
+        assertEquals("image/png", response.getContentType());
+    }
+
+    @Test
+    void serve_shouldAnswerNotModified_whenETagMatches() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/files/image.png");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, file.eTag());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        server.serve(file, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void serve_shouldReturnPartialContent_forSingleRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/files/image.png");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        server.serve(file, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void serve_shouldRejectUnsatisfiableRange() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/files/image.png");
+        request.addHeader(HttpHeaders.RANGE, "bytes=50-60");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        server.serve(file, request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+}
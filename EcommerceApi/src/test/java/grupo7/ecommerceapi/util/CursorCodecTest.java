@@ -0,0 +1,52 @@
+package grupo7.ecommerceapi.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorCodecTest {
+
+    private final CursorCodec cursorCodec = new CursorCodec(new ObjectMapper());
+
+    @Test
+    void encodeAndDecode_shouldPreserveSortAndKeyTypes() {
+        CursorCodec.Cursor first = cursorCodec.first("price", "desc");
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("price", new BigDecimal("1500.50"));
+        keys.put("id", 42L);
+
+        String token = cursorCodec.encode(first, ScrollPosition.forward(keys));
+        CursorCodec.Cursor decoded = cursorCodec.decode(token);
+
+        assertEquals("price", decoded.sortBy());
+        assertEquals(Sort.Direction.DESC, decoded.direction());
+        KeysetScrollPosition position = (KeysetScrollPosition) decoded.position();
+        assertEquals(new BigDecimal("1500.50"), position.getKeys().get("price"));
+        assertEquals(42L, position.getKeys().get("id"));
+    }
+
+    @Test
+    void first_shouldRejectUnsupportedSortKeys() {
+        assertThrows(IllegalArgumentException.class, () -> cursorCodec.first("stock", "asc"));
+    }
+
+    @Test
+    void decode_shouldRejectTamperedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> cursorCodec.decode("no-es-un-cursor"));
+    }
+
+    @Test
+    void first_shouldStartFromInitialPosition() {
+        assertTrue(cursorCodec.first("id", "asc").position().isInitial());
+    }
+}
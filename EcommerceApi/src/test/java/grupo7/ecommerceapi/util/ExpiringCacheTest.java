@@ -0,0 +1,52 @@
+package grupo7.ecommerceapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiringCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void get_shouldReturnNull_whenEntryExpired() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, now::get);
+        cache.put("a", "1", 1_500);
+
+        assertEquals("1", cache.get("a"));
+
+        now.set(1_500);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_shouldStayBounded_andEvictSoonestToExpire() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(10, now::get);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i, 2_000 + i);
+        }
+
+        cache.put(100, 100, 5_000);
+
+        assertTrue(cache.size() <= 10);
+        assertNull(cache.get(0));
+        assertEquals(100, cache.get(100));
+        assertEquals(9, cache.get(9));
+    }
+
+    @Test
+    void invalidate_shouldRemoveEntry() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, now::get);
+        cache.put("a", "1", 5_000);
+
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,54 @@
+package grupo7.ecommerceapi.util;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "YourSecretKeyForJWTTokensShouldBeAtLeast256BitsLongAndVerySecureForProductionUse";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000L, 100, Duration.ofMinutes(5));
+
+    @Test
+    void parseToken_shouldReturnClaims_andReuseThemForTheSameToken() {
+        String token = jwtUtil.generateToken(7L, "jane@example.com");
+
+        Optional<Claims> first = jwtUtil.parseToken(token);
+        Optional<Claims> second = jwtUtil.parseToken(token);
+
+        assertTrue(first.isPresent());
+        assertEquals("jane@example.com", first.get().getSubject());
+        assertEquals(7L, jwtUtil.getUserId(first.get()));
+        assertSame(first.get(), second.get());
+    }
+
+    @Test
+    void parseToken_shouldRejectTokensSignedWithAnotherKey() {
+        JwtUtil other = new JwtUtil(SECRET.replace('Y', 'Z'), 60_000L, 100, Duration.ofMinutes(5));
+        String token = other.generateToken(7L, "jane@example.com");
+
+        assertTrue(jwtUtil.parseToken(token).isEmpty());
+        assertFalse(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    void parseToken_shouldRejectExpiredTokens() {
+        JwtUtil shortLived = new JwtUtil(SECRET, -1_000L, 100, Duration.ofMinutes(5));
+        String token = shortLived.generateToken(7L, "jane@example.com");
+
+        assertTrue(jwtUtil.parseToken(token).isEmpty());
+    }
+
+    @Test
+    void parseToken_shouldRejectGarbage() {
+        assertTrue(jwtUtil.parseToken("not-a-token").isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package grupo7.ecommerceapi.util;
+
+import grupo7.ecommerceapi.entity.User;
+import grupo7.ecommerceapi.event.UserChangedEvent;
+import grupo7.ecommerceapi.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityUtilTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SecurityUtil securityUtil;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        securityUtil = new SecurityUtil(userRepository, 100, Duration.ofMinutes(1));
+
+        user = new User();
+        user.setId(1L);
+        user.setName("Jane");
+        user.setSurname("Doe");
+        user.setEmail("jane@example.com");
+        user.setPassword("$2a$10$hash");
+        user.setIsActive(true);
+
+        AuthenticatedUser principal = new AuthenticatedUser(1L, "jane@example.com", "USER");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                principal, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getCurrentUser_shouldQueryRepositoryOnce_andServeCopiesAfterwards() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        Optional<User> first = securityUtil.getCurrentUser();
+        Optional<User> second = securityUtil.getCurrentUser();
+
+        assertTrue(first.isPresent());
+        assertEquals("jane@example.com", second.get().getEmail());
+        // Tanto la primera (sin caché) como la segunda son copias, nunca la entidad del repositorio
+        assertNotSame(user, first.get());
+        assertNotSame(first.get(), second.get());
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void getCurrentUser_shouldNotKeepThePasswordHash() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertNull(securityUtil.getCurrentUser().get().getPassword());
+        assertNull(securityUtil.getCurrentUser().get().getPassword());
+    }
+
+    @Test
+    void getCurrentUser_shouldReloadAfterEviction() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        securityUtil.getCurrentUser();
+
+        user.setIsActive(false);
+        securityUtil.onUserChanged(new UserChangedEvent(1L));
+
+        assertTrue(securityUtil.getCurrentUser().isEmpty());
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void getCurrentUserId_shouldUsePrincipalAndCachedActiveCheck() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertEquals(Optional.of(1L), securityUtil.getCurrentUserId());
+        assertEquals(Optional.of(1L), securityUtil.getCurrentUserId());
+
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void getCurrentUserId_shouldBeEmpty_whenUserWasDeactivated() {
+        user.setIsActive(false);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertTrue(securityUtil.getCurrentUserId().isEmpty());
+    }
+
+    @Test
+    void getCurrentUserEmail_shouldReadPrincipalWithoutRepository() {
+        assertEquals(Optional.of("jane@example.com"), securityUtil.getCurrentUserEmail());
+        assertEquals(1L, securityUtil.getCurrentPrincipal().get().userId());
+    }
+}
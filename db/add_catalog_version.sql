@@ -0,0 +1,15 @@
+-- =====================================================
+-- Tabla catalog_version: versión del catálogo compartida por todas las
+-- instancias de la API. Sube con cada cambio de productos o categorías y de ella
+-- salen los ETag de los listados (ver CatalogVersion).
+-- Este script es seguro ejecutarlo múltiples veces (idempotente)
+-- =====================================================
+
+USE ecommerce_db;
+
+CREATE TABLE IF NOT EXISTS catalog_version (
+    id TINYINT PRIMARY KEY,
+    version BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT IGNORE INTO catalog_version (id, version) VALUES (1, 0);
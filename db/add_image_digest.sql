@@ -0,0 +1,49 @@
+-- =====================================================
+-- Digest de la imagen en products (image_digest)
+-- Antes de borrar un archivo direccionado por contenido la API revisa si algún
+-- producto lo usa; con este campo indexado es una búsqueda por igualdad en lugar
+-- de un LIKE '%digest%' que recorre toda la tabla.
+-- Este script es seguro ejecutarlo múltiples veces (idempotente)
+-- =====================================================
+
+USE ecommerce_db;
+
+-- Columna image_digest
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = 'ecommerce_db'
+               AND table_name = 'products'
+               AND column_name = 'image_digest');
+
+SET @sqlstmt := IF(@exist = 0,
+                   'ALTER TABLE products ADD COLUMN image_digest CHAR(64) NULL AFTER image',
+                   'SELECT ''Columna image_digest ya existe'' AS mensaje');
+
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Índice sobre image_digest (solo si no existe)
+SET @exist_idx := (SELECT COUNT(*) FROM information_schema.statistics
+                   WHERE table_schema = 'ecommerce_db'
+                   AND table_name = 'products'
+                   AND index_name = 'idx_image_digest');
+
+SET @sqlstmt_idx := IF(@exist_idx = 0,
+                       'CREATE INDEX idx_image_digest ON products(image_digest)',
+                       'SELECT ''Índice idx_image_digest ya existe'' AS mensaje');
+
+PREPARE stmt_idx FROM @sqlstmt_idx;
+EXECUTE stmt_idx;
+DEALLOCATE PREPARE stmt_idx;
+
+-- Completar los valores de los productos existentes
+-- (mismo criterio que Product: último segmento de la URL con forma <digest>[.ext | _variante])
+UPDATE products
+SET image_digest = IF(
+        REGEXP_LIKE(SUBSTRING_INDEX(SUBSTRING_INDEX(image, '?', 1), '/', -1),
+                    '^[0-9a-f]{64}([._][A-Za-z0-9._-]*)?$', 'c'),
+        LEFT(SUBSTRING_INDEX(SUBSTRING_INDEX(image, '?', 1), '/', -1), 64),
+        NULL);
+
+-- Verificar datos
+SELECT id, image, image_digest FROM products WHERE image_digest IS NOT NULL LIMIT 10;
@@ -0,0 +1,42 @@
+-- =====================================================
+-- Tabla outbox_events: eventos de dominio (pedido creado, cambio de estado,
+-- cambio de producto) escritos en la misma transacción que el cambio.
+-- Un proceso en segundo plano los entrega a los handlers y los marca como procesados.
+-- Este script es seguro ejecutarlo múltiples veces (idempotente)
+-- =====================================================
+
+USE ecommerce_db;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(1000) NULL,
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    processed_at DATETIME(6) NULL,
+
+    INDEX idx_outbox_status (status, id),
+    INDEX idx_outbox_aggregate (aggregate_type, aggregate_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Índice por agregado para saltear los que esperan un reintento (tablas creadas antes)
+SET @exist_idx := (SELECT COUNT(*) FROM information_schema.statistics
+                   WHERE table_schema = 'ecommerce_db'
+                   AND table_name = 'outbox_events'
+                   AND index_name = 'idx_outbox_aggregate');
+
+SET @sqlstmt_idx := IF(@exist_idx = 0,
+                       'CREATE INDEX idx_outbox_aggregate ON outbox_events(aggregate_type, aggregate_id, id)',
+                       'SELECT ''Índice idx_outbox_aggregate ya existe'' AS mensaje');
+
+PREPARE stmt_idx FROM @sqlstmt_idx;
+EXECUTE stmt_idx;
+DEALLOCATE PREPARE stmt_idx;
+
+-- Verificar pendientes
+SELECT status, COUNT(*) AS eventos FROM outbox_events GROUP BY status;
@@ -0,0 +1,59 @@
+-- =====================================================
+-- Precios precalculados en products (actual_price, has_discount)
+-- Los listados leen estos valores en lugar de recalcularlos por producto
+-- y /products/discounted filtra por un flag indexado.
+-- Este script es seguro ejecutarlo múltiples veces (idempotente)
+-- =====================================================
+
+USE ecommerce_db;
+
+-- Columna actual_price (precio con descuento aplicado)
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = 'ecommerce_db'
+               AND table_name = 'products'
+               AND column_name = 'actual_price');
+
+SET @sqlstmt := IF(@exist = 0,
+                   'ALTER TABLE products ADD COLUMN actual_price DECIMAL(10,2) NULL AFTER discount',
+                   'SELECT ''Columna actual_price ya existe'' AS mensaje');
+
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Columna has_discount
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = 'ecommerce_db'
+               AND table_name = 'products'
+               AND column_name = 'has_discount');
+
+SET @sqlstmt := IF(@exist = 0,
+                   'ALTER TABLE products ADD COLUMN has_discount BOOLEAN NOT NULL DEFAULT FALSE AFTER actual_price',
+                   'SELECT ''Columna has_discount ya existe'' AS mensaje');
+
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Índice para productos en oferta (solo si no existe)
+SET @exist_idx := (SELECT COUNT(*) FROM information_schema.statistics
+                   WHERE table_schema = 'ecommerce_db'
+                   AND table_name = 'products'
+                   AND index_name = 'idx_active_discount');
+
+SET @sqlstmt_idx := IF(@exist_idx = 0,
+                       'CREATE INDEX idx_active_discount ON products(is_active, has_discount)',
+                       'SELECT ''Índice idx_active_discount ya existe'' AS mensaje');
+
+PREPARE stmt_idx FROM @sqlstmt_idx;
+EXECUTE stmt_idx;
+DEALLOCATE PREPARE stmt_idx;
+
+-- Completar los valores de los productos existentes
+-- (mismo criterio que Product: hay descuento si es menor al precio)
+UPDATE products
+SET has_discount = (discount IS NOT NULL AND discount < price),
+    actual_price = IF(discount IS NOT NULL AND discount < price, discount, price);
+
+-- Verificar datos
+SELECT id, name, price, discount, actual_price, has_discount FROM products LIMIT 10;
@@ -0,0 +1,45 @@
+-- =====================================================
+-- updated_at con microsegundos en products y categories
+-- ProductJsonCache usa el updated_at del producto y el de su categoría como
+-- versión del JSON cacheado; con precisión de segundos dos cambios dentro del
+-- mismo segundo (p. ej. dos ventas seguidas) dejaban la misma versión.
+-- Este script es seguro ejecutarlo múltiples veces (idempotente)
+-- =====================================================
+
+USE ecommerce_db;
+
+-- products.updated_at
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = 'ecommerce_db'
+               AND table_name = 'products'
+               AND column_name = 'updated_at'
+               AND datetime_precision = 6);
+
+SET @sqlstmt := IF(@exist = 0,
+                   'ALTER TABLE products MODIFY COLUMN updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)',
+                   'SELECT ''Columna products.updated_at ya tiene microsegundos'' AS mensaje');
+
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- categories.updated_at
+SET @exist := (SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = 'ecommerce_db'
+               AND table_name = 'categories'
+               AND column_name = 'updated_at'
+               AND datetime_precision = 6);
+
+SET @sqlstmt := IF(@exist = 0,
+                   'ALTER TABLE categories MODIFY COLUMN updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)',
+                   'SELECT ''Columna categories.updated_at ya tiene microsegundos'' AS mensaje');
+
+PREPARE stmt FROM @sqlstmt;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Verificar columnas
+SELECT table_name, column_name, column_type FROM information_schema.columns
+WHERE table_schema = 'ecommerce_db'
+AND table_name IN ('products', 'categories')
+AND column_name = 'updated_at';
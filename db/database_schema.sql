@@ -33,7 +33,8 @@ CREATE TABLE categories (
     description TEXT,
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    -- Con microsegundos: ProductJsonCache lo usa como versión de la fila
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     
     INDEX idx_name (name)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -48,11 +49,15 @@ CREATE TABLE products (
     price DECIMAL(10,2) NOT NULL,
     category_id BIGINT NOT NULL,
     image VARCHAR(500) NOT NULL,
+    image_digest CHAR(64) NULL, -- digest de la imagen direccionada por contenido (lo mantiene la API)
     stock INT NOT NULL DEFAULT 0,
     discount DECIMAL(10,2) NULL,
+    actual_price DECIMAL(10,2) NULL, -- precio con descuento aplicado (lo mantiene la API)
+    has_discount BOOLEAN NOT NULL DEFAULT FALSE,
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    -- Con microsegundos: ProductJsonCache lo usa como versión de la fila
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6),
     
     FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE RESTRICT,
     INDEX idx_name (name),
@@ -60,6 +65,8 @@ CREATE TABLE products (
     INDEX idx_price (price),
     INDEX idx_stock (stock),
     INDEX idx_active (is_active),
+    INDEX idx_active_discount (is_active, has_discount),
+    INDEX idx_image_digest (image_digest),
     FULLTEXT idx_search (name, description)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
@@ -193,10 +200,40 @@ CREATE TABLE payment_info (
     INDEX idx_order (order_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- =====================================================
+-- TABLA: OUTBOX_EVENTS (Eventos de dominio pendientes de entrega)
+-- =====================================================
+CREATE TABLE outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL, -- ORDER, PRODUCT
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL, -- ORDER_PLACED, ORDER_STATUS_CHANGED, PRODUCT_CHANGED
+    payload TEXT NOT NULL, -- JSON del evento
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, PROCESSED, FAILED
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(1000) NULL,
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    processed_at DATETIME(6) NULL,
+
+    INDEX idx_outbox_status (status, id),
+    INDEX idx_outbox_aggregate (aggregate_type, aggregate_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- TABLA: CATALOG_VERSION (Versión del catálogo compartida entre instancias)
+-- =====================================================
+CREATE TABLE catalog_version (
+    id TINYINT PRIMARY KEY, -- una única fila, id = 1
+    version BIGINT NOT NULL -- sube con cada cambio de productos o categorías
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- =====================================================
 -- INSERTAR DATOS INICIALES
 -- =====================================================
 
+INSERT INTO catalog_version (id, version) VALUES (1, 0);
+
 -- Insertar categorías
 INSERT INTO categories (name, description) VALUES
 ('Accesorios', 'Accesorios y complementos varios'),
@@ -270,6 +270,11 @@ INSERT INTO cart_items (cart_session_id, product_id, quantity, created_at, updat
 ('cart-user-6', 1, 2, NOW(), NOW()),   -- 2 Camisetas React
 ('cart-user-6', 9, 1, NOW(), NOW());   -- Taza JavaScript
 
+-- Precios precalculados (los inserts de arriba solo cargan price y discount)
+UPDATE products
+SET has_discount = (discount IS NOT NULL AND discount < price),
+    actual_price = IF(discount IS NOT NULL AND discount < price, discount, price);
+
 -- Rehabilitar foreign keys
 SET FOREIGN_KEY_CHECKS = 1;
 